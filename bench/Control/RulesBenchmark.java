@@ -0,0 +1,388 @@
+package Control;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.LongSupplier;
+
+import Model.*;
+
+/**
+ * The RulesBenchmark class measures the hot paths of the rules engine: ChessPiece.isValidMove for each piece type,
+ * Chess.isChecked, Chess.isCheckmate, Chess.move and Chess.convertPosition, over a corpus of opening, middlegame and
+ * endgame positions.
+ *
+ * <p>
+ * Every benchmark runs a number of warmup iterations, then measured iterations of a fixed duration. The report gives
+ * the mean throughput in operations per second with the spread between iterations, and the bytes allocated per
+ * operation, read from the allocation counter of the benchmark thread (the same number as the normalized allocation
+ * rate of a GC profiler). The results of the operations are summed into a sink so the JIT cannot drop them.
+ * </p>
+ *
+ * <p>
+ * The benchmarks live in their own source folder, next to src, and are compiled against the classes of src:
+ * {@code javac -d bin src/Control/*.java src/Model/*.java src/Engine/*.java} then
+ * {@code javac -cp bin -d bench-bin bench/Control/*.java} and
+ * {@code java -cp bin:bench-bin Control.RulesBenchmark [-wi iterations] [-i iterations] [-t milliseconds] [filter]}.
+ * </p>
+ *
+ * @author Yiming Huang
+ * @author Zihao Zheng
+ */
+public class RulesBenchmark {
+	/**
+	 * Opening positions of the corpus
+	 * */
+	static final String[] OPENINGS = {
+			"rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+			"r1bqkbnr/pppp1ppp/2n5/1B2p3/4P3/5N2/PPPP1PPP/RNBQK2R b KQkq - 3 3",
+			"rnbqkb1r/pp2pppp/3p1n2/8/3NP3/8/PPP2PPP/RNBQKB1R w KQkq - 1 5" };
+
+	/**
+	 * Middlegame positions of the corpus
+	 * */
+	static final String[] MIDDLEGAMES = {
+			"r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+			"r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+			"r2q1rk1/pp2bppp/2n1pn2/3p4/2PP4/2N1PN2/PP3PPP/R2QKB1R w KQ - 0 9" };
+
+	/**
+	 * Endgame positions of the corpus
+	 * */
+	static final String[] ENDGAMES = {
+			"8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+			"8/8/4k3/3p4/3P1K2/8/5R2/6r1 w - - 0 50",
+			"6k1/5ppp/8/8/8/8/1q3PPP/3R2K1 b - - 0 40" };
+
+	/**
+	 * Number of plies replayed by the move benchmark from each position
+	 * */
+	static final int LINE_LENGTH = 4;
+
+	/**
+	 * Sum of the results of every operation, so that none of them is optimized away
+	 * */
+	static volatile long sink;
+
+	/**
+	 * The session playing each position of the corpus, each with a game of its own
+	 * */
+	private final Chess[] sessions;
+
+	/**
+	 * The board array of the game of each session
+	 * */
+	private final ChessPiece[][][] boards;
+
+	/**
+	 * The game each Chess.move line restores before replaying
+	 * */
+	private final GameState[] saved;
+
+	/**
+	 * The moves replayed by the move benchmark from each position, as from row, from column, to row and to column
+	 * */
+	private final int[][][] lines;
+
+	/**
+	 * Prepares the boards, positions and move lines of a corpus
+	 * @param fens the positions of the corpus
+	 */
+	RulesBenchmark(String[] fens) {
+		sessions = new Chess[fens.length];
+		saved = new GameState[fens.length];
+		boards = new ChessPiece[fens.length][][];
+		lines = new int[fens.length][][];
+		int[] moves = new int[MoveGenerator.MAX_MOVES];
+		for (int i = 0; i < fens.length; i++) {
+			sessions[i] = new Chess(new GameState(fens[i]));
+			saved[i] = new GameState(fens[i]);
+			boards[i] = sessions[i].game.getBoard();
+
+			// the line is made of the first legal move of every ply, skipping promotions which need Chess.promote
+			Position line = new Position();
+			line.copyFrom(saved[i].getPosition());
+			List<int[]> plies = new ArrayList<>();
+			while (plies.size() < LINE_LENGTH) {
+				int count = MoveGenerator.generateLegalMoves(line, moves);
+				int chosen = Move.NONE;
+				for (int j = 0; j < count && chosen == Move.NONE; j++) {
+					if (Move.promotion(moves[j]) == 0) {
+						chosen = moves[j];
+					}
+				}
+				if (chosen == Move.NONE) {
+					break;
+				}
+				plies.add(new int[] { Position.row(Move.from(chosen)), Position.column(Move.from(chosen)),
+						Position.row(Move.to(chosen)), Position.column(Move.to(chosen)) });
+				line.makeMove(chosen);
+			}
+			lines[i] = plies.toArray(new int[0][]);
+		}
+	}
+
+	/**
+	 * Puts a position of the corpus back to its original state after moves were made on it
+	 * @param index the index of the position
+	 */
+	private void restore(int index) {
+		sessions[index].game.copyFrom(saved[index]);
+	}
+
+	/**
+	 * Counts the isValidMove calls made by one operation of a piece benchmark
+	 * @param symbol the symbol of the piece type
+	 * @return the number of calls
+	 */
+	private int countValidMoveCalls(String symbol) {
+		int calls = 0;
+		for (int i = 0; i < boards.length; i++) {
+			for (ChessPiece[] row : boards[i]) {
+				for (ChessPiece piece : row) {
+					if (piece != null && piece.getSymbol().equals(symbol)) {
+						calls += 64;
+					}
+				}
+			}
+		}
+		return calls;
+	}
+
+	/**
+	 * Calls isValidMove of every piece of a type on every position, towards every square
+	 * @param symbol the symbol of the piece type
+	 * @return the number of valid moves found
+	 */
+	private long validMoves(String symbol) {
+		long valid = 0;
+		for (int i = 0; i < boards.length; i++) {
+			GameState game = sessions[i].game;
+			ChessPiece[][] board = boards[i];
+			for (int row = 0; row < 8; row++) {
+				for (int col = 0; col < 8; col++) {
+					ChessPiece piece = board[row][col];
+					if (piece != null && piece.getSymbol().equals(symbol)) {
+						for (int to = 0; to < 64; to++) {
+							if (piece.isValidMove(game, row, col, Position.row(to), Position.column(to))) {
+								valid++;
+							}
+						}
+					}
+				}
+			}
+		}
+		return valid;
+	}
+
+	/**
+	 * Calls isChecked for both colors on every position
+	 * @return the number of kings in check
+	 */
+	private long checks() {
+		long checked = 0;
+		for (int i = 0; i < boards.length; i++) {
+			checked += sessions[i].isChecked("white") ? 1 : 0;
+			checked += sessions[i].isChecked("black") ? 1 : 0;
+		}
+		return checked;
+	}
+
+	/**
+	 * Calls isCheckmate for both colors on every position
+	 * @return the number of kings in checkmate
+	 */
+	private long checkmates() {
+		long mated = 0;
+		for (int i = 0; i < boards.length; i++) {
+			mated += sessions[i].isCheckmate("white") ? 1 : 0;
+			mated += sessions[i].isCheckmate("black") ? 1 : 0;
+		}
+		return mated;
+	}
+
+	/**
+	 * Restores every position without moving, which is the fixed cost included in the move benchmark
+	 * @return the number of positions restored
+	 */
+	private long restores() {
+		for (int i = 0; i < boards.length; i++) {
+			restore(i);
+		}
+		return boards.length;
+	}
+
+	/**
+	 * Replays the line of every position with Chess.move, restoring the position first
+	 * @return the number of moves made
+	 */
+	private long moves() {
+		long made = 0;
+		for (int i = 0; i < boards.length; i++) {
+			restore(i);
+			for (int[] ply : lines[i]) {
+				sessions[i].move(ply[0], ply[1], ply[2], ply[3]);
+				made++;
+			}
+		}
+		return made;
+	}
+
+	/**
+	 * Method for getting the number of moves replayed by one operation of the move benchmark
+	 * @return the number of moves
+	 */
+	private int countMoves() {
+		int count = 0;
+		for (int[][] line : lines) {
+			count += line.length;
+		}
+		return count;
+	}
+
+	/**
+	 * Converts the name of every square of the board
+	 * @param names the square names
+	 * @return the sum of the converted indices
+	 */
+	private static long convertAll(String[] names) {
+		long sum = 0;
+		for (String name : names) {
+			int[] converted = Chess.convertPosition(name);
+			sum += converted[0] + converted[1];
+		}
+		return sum;
+	}
+
+	/**
+	 * One benchmark: an operation, and the number of calls of the measured method it makes
+	 */
+	private static class Case {
+		/** name of the benchmark */
+		final String name;
+
+		/** name of the corpus */
+		final String corpus;
+
+		/** number of calls of the measured method per operation */
+		final int calls;
+
+		/** the operation */
+		final LongSupplier operation;
+
+		/**
+		 * Constructs a benchmark
+		 * @param name name of the benchmark
+		 * @param corpus name of the corpus
+		 * @param calls number of calls of the measured method per operation
+		 * @param operation the operation
+		 */
+		Case(String name, String corpus, int calls, LongSupplier operation) {
+			this.name = name;
+			this.corpus = corpus;
+			this.calls = calls;
+			this.operation = operation;
+		}
+	}
+
+	/**
+	 * Runs one benchmark and prints a line of the report
+	 * @param benchmark the benchmark
+	 * @param warmups the number of warmup iterations
+	 * @param iterations the number of measured iterations
+	 * @param millis the duration of each iteration in milliseconds
+	 */
+	private static void run(Case benchmark, int warmups, int iterations, long millis) {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		double[] throughput = new double[iterations];
+		long allocated = 0;
+		long calls = 0;
+		for (int iteration = -warmups; iteration < iterations; iteration++) {
+			long operations = 0;
+			long result = 0;
+			long bytesBefore = threads.getCurrentThreadAllocatedBytes();
+			long start = System.nanoTime();
+			long deadline = start + millis * 1000000L;
+			long now;
+			do {
+				result += benchmark.operation.getAsLong();
+				operations++;
+				now = System.nanoTime();
+			} while (now < deadline);
+			long bytes = threads.getCurrentThreadAllocatedBytes() - bytesBefore;
+			sink += result;
+			if (iteration >= 0) {
+				throughput[iteration] = operations * benchmark.calls * 1e9 / (now - start);
+				allocated += bytes;
+				calls += operations * benchmark.calls;
+			}
+		}
+		double mean = 0;
+		for (double value : throughput) {
+			mean += value / iterations;
+		}
+		double variance = 0;
+		for (double value : throughput) {
+			variance += (value - mean) * (value - mean) / Math.max(1, iterations - 1);
+		}
+		System.out.println(String.format(Locale.ROOT, "%-28s %-11s %15.0f +- %12.0f ops/s %10.1f B/op", benchmark.name,
+				benchmark.corpus, mean, Math.sqrt(variance), (double) allocated / Math.max(1, calls)));
+	}
+
+	/**
+	 * This is the main method of the benchmarks.
+	 *
+	 * @param args "-wi n" warmup iterations, "-i n" measured iterations, "-t ms" iteration time, and an optional
+	 *             text that the names of the benchmarks to run must contain. Benchmarks of a piece type missing from
+	 *             a corpus are skipped.
+	 */
+	public static void main(String[] args) {
+		int warmups = 3;
+		int iterations = 5;
+		long millis = 500;
+		String filter = "";
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-wi")) {
+				warmups = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-i")) {
+				iterations = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-t")) {
+				millis = Long.parseLong(args[++i]);
+			} else {
+				filter = args[i];
+			}
+		}
+
+		List<Case> cases = new ArrayList<>();
+		String[] corpusNames = { "opening", "middlegame", "endgame" };
+		String[][] corpora = { OPENINGS, MIDDLEGAMES, ENDGAMES };
+		String[] symbols = { "p", "N", "B", "R", "Q", "K" };
+		String[] pieceNames = { "Pawn", "Knight", "Bishop", "Rook", "Queen", "King" };
+		for (int c = 0; c < corpora.length; c++) {
+			RulesBenchmark corpus = new RulesBenchmark(corpora[c]);
+			for (int p = 0; p < symbols.length; p++) {
+				String symbol = symbols[p];
+				cases.add(new Case(pieceNames[p] + ".isValidMove", corpusNames[c], corpus.countValidMoveCalls(symbol),
+						() -> corpus.validMoves(symbol)));
+			}
+			cases.add(new Case("Chess.isChecked", corpusNames[c], 2 * corpora[c].length, corpus::checks));
+			cases.add(new Case("Chess.isCheckmate", corpusNames[c], 2 * corpora[c].length, corpus::checkmates));
+			cases.add(new Case("Chess.move", corpusNames[c], corpus.countMoves(), corpus::moves));
+			cases.add(new Case("(restore before Chess.move)", corpusNames[c], corpus.countMoves(), corpus::restores));
+		}
+		String[] names = new String[64];
+		for (int square = 0; square < 64; square++) {
+			names[square] = Move.squareName(square);
+		}
+		cases.add(new Case("Chess.convertPosition", "squares", 64, () -> convertAll(names)));
+
+		System.out.println(String.format(Locale.ROOT, "%-28s %-11s %30s %15s", "Benchmark", "Corpus",
+				"Throughput", "Allocation"));
+		for (Case benchmark : cases) {
+			if (benchmark.name.contains(filter) && benchmark.calls > 0) {
+				run(benchmark, warmups, iterations, millis);
+			}
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package Control;
+
+import java.util.Locale;
+
+import Engine.ParallelSearch;
+import Engine.SearchLimits;
+import Engine.SearchResult;
+import Engine.TranspositionTable;
+import Model.Position;
+
+/**
+ * The SearchBenchmark class measures how the parallel search scales with the number of threads, as the time it takes
+ * to reach a fixed depth (time to depth) over the middlegame positions of {@link RulesBenchmark}.
+ *
+ * <p>
+ * Every position is searched from an empty transposition table once per thread count. The report gives the total
+ * time, the speedup over the first thread count, and the nodes per second of all threads together.
+ * </p>
+ *
+ * <p>
+ * Usage: {@code java -cp bin:bench-bin Control.SearchBenchmark [-d depth] [-hash megabytes] [threads...]}, for example
+ * {@code -d 7 1 2 4 8}. By default every power of two up to the number of processors is measured.
+ * </p>
+ *
+ * @author Yiming Huang
+ * @author Zihao Zheng
+ */
+public class SearchBenchmark {
+	/**
+	 * This is the main method of the search benchmark.
+	 *
+	 * @param args "[-d depth] [-hash megabytes] [threads...]"
+	 */
+	public static void main(String[] args) {
+		int depth = 6;
+		int megabytes = 64;
+		int[] threadCounts = new int[args.length];
+		int counts = 0;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-d")) {
+				depth = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-hash")) {
+				megabytes = Integer.parseInt(args[++i]);
+			} else {
+				threadCounts[counts++] = Integer.parseInt(args[i]);
+			}
+		}
+		if (counts == 0) {
+			threadCounts = new int[32];
+			for (int threads = 1; threads <= Runtime.getRuntime().availableProcessors(); threads *= 2) {
+				threadCounts[counts++] = threads;
+			}
+		}
+
+		TranspositionTable table = new TranspositionTable(megabytes);
+		ParallelSearch search = new ParallelSearch(table);
+		Position position = new Position();
+		// warm up the JIT with one untimed round
+		for (String fen : RulesBenchmark.MIDDLEGAMES) {
+			position.setFen(fen);
+			search.search(position, new SearchLimits(depth, 0, 0));
+		}
+
+		System.out.println(String.format(Locale.ROOT, "%-8s %12s %10s %15s", "Threads", "Time (ms)", "Speedup",
+				"Nodes/second"));
+		double baseline = 0;
+		for (int c = 0; c < counts; c++) {
+			long nanos = 0;
+			long nodes = 0;
+			for (String fen : RulesBenchmark.MIDDLEGAMES) {
+				position.setFen(fen);
+				table.clear();
+				SearchLimits limits = new SearchLimits(depth, 0, 0);
+				limits.setThreads(threadCounts[c]);
+				long start = System.nanoTime();
+				SearchResult result = search.search(position, limits);
+				nanos += System.nanoTime() - start;
+				nodes += result.getNodes();
+			}
+			if (c == 0) {
+				baseline = nanos;
+			}
+			System.out.println(String.format(Locale.ROOT, "%-8d %12.1f %9.2fx %15d", threadCounts[c], nanos / 1e6,
+					baseline / nanos, (long) (nodes * 1e9 / nanos)));
+		}
+	}
+}
@@ -0,0 +1,171 @@
+package Control;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import Model.GameArchive;
+import Model.GameArchiveWriter;
+import Model.GameStatus;
+import Model.Move;
+import Model.MoveFileReader;
+import Model.MoveGenerator;
+import Model.PgnGame;
+import Model.PgnReader;
+import Model.Position;
+
+/**
+ * The ArchiveTool class converts games into a binary {@link GameArchive} and scans the archives, replaying every game
+ * straight from the mapped file.
+ *
+ * <p>
+ * Converting reads the same files as BatchReplay: move files in the format of runner2 and PGN files. Only the games
+ * whose moves are all legal are written, so an archive never has to be checked again. Scanning replays every move of
+ * every game on one position and counts the results, the moves and the games ending in checkmate, without parsing
+ * text or allocating per game.
+ * </p>
+ *
+ * <p>
+ * Usage: {@code java Control.ArchiveTool convert <archive> <file | directory | @list> ...} or
+ * {@code java Control.ArchiveTool scan <archive>}.
+ * </p>
+ *
+ * @author Yiming Huang
+ * @author Zihao Zheng
+ */
+public class ArchiveTool {
+	/**
+	 * Where the reports are printed
+	 * */
+	private final PrintStream out;
+
+	/**
+	 * Constructs an archive tool
+	 * @param out where the reports are printed
+	 */
+	public ArchiveTool(PrintStream out) {
+		this.out = out;
+	}
+
+	/**
+	 * Converts the games of some files into an archive. The games with an illegal move are skipped.
+	 * @param archive the archive to write, replaced if it exists
+	 * @param files the move files and PGN files
+	 * @return the number of games skipped
+	 * @throws IOException if a file cannot be read or the archive cannot be written
+	 */
+	public long convert(Path archive, List<Path> files) throws IOException {
+		long start = System.nanoTime();
+		long skipped = 0;
+		long size;
+		int games;
+		try (GameArchiveWriter writer = new GameArchiveWriter(archive)) {
+			PgnGame game = new PgnGame();
+			MoveFileReader moveFiles = new MoveFileReader();
+			for (Path file : files) {
+				if (BatchReplay.isPgn(file)) {
+					try (PgnReader reader = PgnReader.open(file)) {
+						while (reader.next(game)) {
+							if (!add(writer, game, file)) {
+								skipped++;
+							}
+						}
+					}
+				} else {
+					moveFiles.read(file, game);
+					if (!add(writer, game, file)) {
+						skipped++;
+					}
+				}
+			}
+			games = writer.getGameCount();
+			size = writer.getSize() + games * 8L;
+		}
+		double seconds = Math.max(1, System.nanoTime() - start) / 1e9;
+		out.printf("%d games written to %s from %d files, %d skipped, %d bytes in %.2f s%n", games, archive,
+				files.size(), skipped, size, seconds);
+		out.flush();
+		return skipped;
+	}
+
+	/**
+	 * Adds a game to an archive if its moves are all legal
+	 * @param writer the archive
+	 * @param game the game
+	 * @param file the file the game was read from
+	 * @return true if the game was added
+	 * @throws IOException if the archive cannot be written
+	 */
+	private boolean add(GameArchiveWriter writer, PgnGame game, Path file) throws IOException {
+		if (!game.isValid()) {
+			out.println("skipped " + file + " game " + game.getNumber() + ": " + game.getError());
+			return false;
+		}
+		writer.add(game);
+		return true;
+	}
+
+	/**
+	 * Replays every game of an archive and prints its statistics and the throughput
+	 * @param path the archive
+	 * @throws IOException if the archive cannot be read
+	 */
+	public void scan(Path path) throws IOException {
+		try (GameArchive archive = new GameArchive(path)) {
+			long start = System.nanoTime();
+			Position position = new Position();
+			int[] moves = new int[GameArchiveWriter.MAX_MOVES];
+			long[] results = new long[4];
+			long plies = 0;
+			long checkmates = 0;
+			int longest = 0;
+			for (int game = 0; game < archive.getGameCount(); game++) {
+				archive.setUp(game, position);
+				int count = archive.getMoves(game, moves);
+				for (int i = 0; i < count; i++) {
+					position.makeMove(Move.fromCompact(position, moves[i]));
+				}
+				plies += count;
+				longest = Math.max(longest, count);
+				if (position.isInCheck(position.getSideToMove())
+						&& MoveGenerator.status(position) == GameStatus.CHECKMATE) {
+					checkmates++;
+				}
+				String result = archive.getResult(game);
+				results[result.equals(PgnGame.WHITE_WINS) ? 0
+						: result.equals(PgnGame.BLACK_WINS) ? 1 : result.equals(PgnGame.DRAW) ? 2 : 3]++;
+			}
+			double seconds = Math.max(1, System.nanoTime() - start) / 1e9;
+			int games = archive.getGameCount();
+			out.printf("%d games, %d moves (%.1f per game, longest %d), %d ending in checkmate%n", games, plies,
+					games == 0 ? 0.0 : (double) plies / games, longest, checkmates);
+			out.printf("white wins %d, black wins %d, draws %d, unknown %d%n", results[0], results[1], results[2],
+					results[3]);
+			out.printf("%.0f games/second, %.0f moves/second in %.2f s%n", games / seconds, plies / seconds, seconds);
+			out.flush();
+		}
+	}
+
+	/**
+	 * This is the main method that converts or scans archives.
+	 *
+	 * @param args "convert", the archive, then the files, directories and @lists; or "scan" and the archive
+	 * @throws IOException if a file cannot be read or written
+	 */
+	public static void main(String[] args) throws IOException {
+		ArchiveTool tool = new ArchiveTool(System.out);
+		if (args.length >= 3 && args[0].equals("convert")) {
+			List<Path> files = BatchReplay.listFiles(Arrays.asList(args).subList(2, args.length));
+			tool.convert(Path.of(args[1]), files);
+		} else if (args.length == 2 && args[0].equals("scan") && Files.isRegularFile(Path.of(args[1]))) {
+			tool.scan(Path.of(args[1]));
+		} else {
+			System.err.println("Usage: java Control.ArchiveTool convert <archive> <file | directory | @list> ...");
+			System.err.println("       java Control.ArchiveTool scan <archive>");
+			System.exit(2);
+		}
+	}
+}
@@ -0,0 +1,538 @@
+package Control;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Stream;
+
+import Model.MoveFileReader;
+import Model.PgnGame;
+import Model.PgnReader;
+
+/**
+ * The BatchReplay class checks many games at once: every move of every game is replayed and must be legal, and the
+ * result of each game is reported with the first illegal move, if any, followed by the throughput of the whole batch.
+ *
+ * <p>
+ * The games are read from move files in the format of runner2 (such as ex1.txt: one move like "e2 e4" per line, an
+ * optional promotion letter or "draw?" after it, or "resign"), and from PGN files, which hold many games each. The
+ * files are replayed in parallel on a ForkJoinPool with the number of threads asked for. A PGN file larger than the
+ * chunk size is cut into chunks at the start of its games (the lines starting with "[Event "), so that one large
+ * database is shared between the threads too.
+ * </p>
+ *
+ * <p>
+ * The reports are printed in the order of the files and of the games in them, whatever order the threads finish in.
+ * Only the games with an illegal move are reported unless every game is asked for.
+ * </p>
+ *
+ * <p>
+ * Usage: {@code java Control.BatchReplay [-threads n] [-chunk megabytes] [-all] <file | directory | @list> ...}.
+ * A directory is searched for .txt and .pgn files, and "@list" names a file listing one path per line.
+ * </p>
+ *
+ * @author Yiming Huang
+ * @author Zihao Zheng
+ */
+public class BatchReplay {
+	/**
+	 * The size of the chunks large PGN files are cut into, in megabytes, when none is given
+	 * */
+	static final int DEFAULT_CHUNK = 8;
+
+	/**
+	 * The line that starts every game of a PGN file, where the file can be cut
+	 * */
+	private static final byte[] GAME_START = "\n[Event ".getBytes(StandardCharsets.ISO_8859_1);
+
+	/**
+	 * The pool the files are replayed on
+	 * */
+	private final ForkJoinPool pool;
+
+	/**
+	 * Where the reports are printed
+	 * */
+	private final PrintStream out;
+
+	/**
+	 * Whether every game is reported, or only the games with an illegal move
+	 * */
+	private final boolean reportAll;
+
+	/**
+	 * The size of the chunks large PGN files are cut into, in bytes
+	 * */
+	private final long chunkSize;
+
+	/**
+	 * The pieces of work of the batch, in the order of the reports
+	 * */
+	private Unit[] units;
+
+	/**
+	 * The report of each piece of work, set when it is done and cleared when it is printed
+	 * */
+	private Report[] reports;
+
+	/**
+	 * The index of the next report to print
+	 * */
+	private int nextReport;
+
+	/**
+	 * The number of games of the file being printed that were printed before the next report
+	 * */
+	private long gamesBefore;
+
+	/**
+	 * The totals of the reports printed
+	 * */
+	private long games, invalidGames, plies, bytes;
+
+	/**
+	 * Constructs a batch replay
+	 * @param pool the pool the files are replayed on
+	 * @param out where the reports are printed
+	 * @param reportAll true to report every game, false to report only the games with an illegal move
+	 * @param chunkSize the size of the chunks large PGN files are cut into, in bytes
+	 */
+	public BatchReplay(ForkJoinPool pool, PrintStream out, boolean reportAll, long chunkSize) {
+		this.pool = pool;
+		this.out = out;
+		this.reportAll = reportAll;
+		this.chunkSize = Math.max(1, chunkSize);
+	}
+
+	/**
+	 * Replays every game of some files and prints the reports and the throughput. One batch runs at a time.
+	 * @param files the move files and PGN files
+	 * @return true if every move of every game was legal
+	 * @throws IOException if the size of a PGN file cannot be read
+	 */
+	public boolean run(List<Path> files) throws IOException {
+		List<Unit> work = new ArrayList<>();
+		for (Path file : files) {
+			if (isPgn(file)) {
+				addChunks(file, work);
+			} else {
+				work.add(new Unit(file, false, 0, Long.MAX_VALUE));
+			}
+		}
+		units = work.toArray(new Unit[0]);
+		reports = new Report[units.length];
+		nextReport = 0;
+		gamesBefore = 0;
+		games = invalidGames = plies = bytes = 0;
+
+		long start = System.nanoTime();
+		if (units.length > 0) {
+			pool.invoke(new ReplayTask(0, units.length));
+		}
+		double seconds = Math.max(1, System.nanoTime() - start) / 1e9;
+		out.printf("%d files, %d games, %d with an illegal move, %d moves in %.2f s%n", files.size(), games,
+				invalidGames, plies, seconds);
+		out.printf("%.0f games/second, %.0f moves/second, %.1f MB/second on %d threads%n", games / seconds,
+				plies / seconds, bytes / seconds / 1e6, pool.getParallelism());
+		out.flush();
+		return invalidGames == 0;
+	}
+
+	/**
+	 * Cuts a PGN file into chunks starting at the start of a game
+	 * @param file the PGN file
+	 * @param work the list the chunks are added to
+	 * @throws IOException if the file cannot be read
+	 */
+	private void addChunks(Path file, List<Unit> work) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			long start = 0;
+			while (start < size) {
+				long end = start + chunkSize >= size ? size : nextGameStart(channel, start + chunkSize, size);
+				work.add(new Unit(file, true, start, end));
+				start = end;
+			}
+			if (size == 0) {
+				work.add(new Unit(file, true, 0, 0));
+			}
+		}
+	}
+
+	/**
+	 * Method for getting the offset of the first game of a PGN file starting at or after an offset
+	 * @param channel the file
+	 * @param from the offset the search starts at
+	 * @param size the size of the file
+	 * @return the offset of the "[" of the first "[Event " line, or the size of the file if there is none
+	 * @throws IOException if the file cannot be read
+	 */
+	private static long nextGameStart(FileChannel channel, long from, long size) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+		byte[] bytes = buffer.array();
+		// start one byte early so that a game starting exactly at the offset is found after its newline
+		long offset = from - 1;
+		while (offset < size) {
+			buffer.clear();
+			int count = channel.read(buffer, offset);
+			if (count <= 0) {
+				break;
+			}
+			for (int i = 0; i + GAME_START.length <= count; i++) {
+				if (bytes[i] == '\n' && Arrays.equals(bytes, i, i + GAME_START.length, GAME_START, 0,
+						GAME_START.length)) {
+					return offset + i + 1;
+				}
+			}
+			if (offset + count >= size) {
+				break;
+			}
+			// the next read overlaps this one so that a line cut at the end is still found
+			offset += count - GAME_START.length + 1;
+		}
+		return size;
+	}
+
+	/**
+	 * Replays the games of a piece of work
+	 * @param unit the piece of work
+	 * @return the report of the games
+	 */
+	private Report replay(Unit unit) {
+		Report report = new Report();
+		try {
+			if (unit.pgn) {
+				replayPgn(unit, report);
+			} else {
+				replayMoveFile(unit.path, report);
+			}
+		} catch (IOException | RuntimeException e) {
+			report.failure = e.toString();
+		}
+		return report;
+	}
+
+	/**
+	 * Replays the games of a chunk of a PGN file. The reader checks every move against the legal moves.
+	 * @param unit the chunk
+	 * @param report the report the games are added to
+	 * @throws IOException if the file cannot be read
+	 */
+	private void replayPgn(Unit unit, Report report) throws IOException {
+		try (PgnReader reader = new PgnReader(new RangeChannel(FileChannel.open(unit.path, StandardOpenOption.READ),
+				unit.start, unit.end))) {
+			PgnGame game = new PgnGame();
+			while (reader.next(game)) {
+				report.games++;
+				report.plies += game.getMoveCount();
+				if (!game.isValid()) {
+					report.invalid++;
+					report.add(game.getNumber(), game.getError());
+				} else if (reportAll) {
+					report.add(game.getNumber(), game.getResult() + " in " + game.getMoveCount() + " moves");
+				}
+			}
+			report.bytes = reader.getBytesRead();
+		}
+	}
+
+	/**
+	 * Replays the game of a move file in the format of runner2, stopping at the first illegal move
+	 * @param path the move file
+	 * @param report the report the game is added to
+	 * @throws IOException if the file cannot be read
+	 */
+	private void replayMoveFile(Path path, Report report) throws IOException {
+		byte[] text = Files.readAllBytes(path);
+		PgnGame game = new PgnGame();
+		new MoveFileReader().read(text, text.length, game);
+		report.bytes = text.length;
+		report.games = 1;
+		report.plies = game.getMoveCount();
+		if (!game.isValid()) {
+			report.invalid++;
+			report.add(0, game.getError());
+		} else if (reportAll) {
+			report.add(0, game.getResult() + " in " + game.getMoveCount() + " moves");
+		}
+	}
+
+	/**
+	 * Stores the report of a piece of work and prints every report that is next in order
+	 * @param index the index of the piece of work
+	 * @param report its report
+	 */
+	private synchronized void publish(int index, Report report) {
+		reports[index] = report;
+		while (nextReport < reports.length && reports[nextReport] != null) {
+			Unit unit = units[nextReport];
+			Report done = reports[nextReport];
+			reports[nextReport] = null;
+			if (unit.start == 0) {
+				gamesBefore = 0;
+			}
+			if (done.failure != null) {
+				out.println(unit.path + ": cannot be read, " + done.failure);
+				invalidGames++;
+			}
+			for (int i = 0; i < done.count; i++) {
+				out.println(unit.pgn ? unit.path + " game " + (gamesBefore + done.numbers[i]) + ": " + done.lines[i]
+						: unit.path + ": " + done.lines[i]);
+			}
+			gamesBefore += done.games;
+			games += done.games;
+			invalidGames += done.invalid;
+			plies += done.plies;
+			bytes += done.bytes;
+			nextReport++;
+		}
+	}
+
+	/**
+	 * Checks if a file is read as PGN
+	 * @param file the file
+	 * @return true if its name ends with ".pgn"
+	 */
+	static boolean isPgn(Path file) {
+		return file.getFileName().toString().toLowerCase().endsWith(".pgn");
+	}
+
+	/**
+	 * Lists the files named by the arguments: the files themselves, the .txt and .pgn files under the directories,
+	 * and the paths listed in the files named with a leading "@"
+	 * @param names the arguments
+	 * @return the files, in the order given and sorted within each directory
+	 * @throws IOException if a directory or a list cannot be read
+	 */
+	static List<Path> listFiles(List<String> names) throws IOException {
+		List<Path> files = new ArrayList<>();
+		for (String name : names) {
+			if (name.startsWith("@")) {
+				List<String> listed = new ArrayList<>();
+				for (String line : Files.readAllLines(Path.of(name.substring(1)))) {
+					if (!line.isBlank()) {
+						listed.add(line.trim());
+					}
+				}
+				files.addAll(listFiles(listed));
+				continue;
+			}
+			Path path = Path.of(name);
+			if (Files.isDirectory(path)) {
+				try (Stream<Path> walk = Files.walk(path)) {
+					walk.filter(Files::isRegularFile).filter(file -> {
+						String lower = file.getFileName().toString().toLowerCase();
+						return lower.endsWith(".txt") || lower.endsWith(".pgn");
+					}).sorted().forEach(files::add);
+				}
+			} else {
+				files.add(path);
+			}
+		}
+		return files;
+	}
+
+	/**
+	 * A piece of work: a move file, or a chunk of a PGN file
+	 */
+	private static final class Unit {
+		/** The file */
+		final Path path;
+
+		/** Whether the file is read as PGN */
+		final boolean pgn;
+
+		/** The offset of the chunk */
+		final long start;
+
+		/** The end of the chunk */
+		final long end;
+
+		/**
+		 * Constructs a piece of work
+		 * @param path the file
+		 * @param pgn whether the file is read as PGN
+		 * @param start the offset of the chunk
+		 * @param end the end of the chunk
+		 */
+		Unit(Path path, boolean pgn, long start, long end) {
+			this.path = path;
+			this.pgn = pgn;
+			this.start = start;
+			this.end = end;
+		}
+	}
+
+	/**
+	 * The report of a piece of work
+	 */
+	private static final class Report {
+		/** The number of games, of games with an illegal move, and of bytes read */
+		long games, invalid, bytes;
+
+		/** The number of legal moves replayed */
+		long plies;
+
+		/** The exception that stopped the work, or null */
+		String failure;
+
+		/** The number in the chunk of each game reported */
+		long[] numbers = new long[4];
+
+		/** The report of each game reported */
+		String[] lines = new String[4];
+
+		/** The number of games reported */
+		int count;
+
+		/**
+		 * Adds the report of a game
+		 * @param number the number of the game in the chunk
+		 * @param line the report of the game
+		 */
+		void add(long number, String line) {
+			if (count == lines.length) {
+				numbers = Arrays.copyOf(numbers, count * 2);
+				lines = Arrays.copyOf(lines, count * 2);
+			}
+			numbers[count] = number;
+			lines[count++] = line;
+		}
+	}
+
+	/**
+	 * Replays a range of the pieces of work, splitting it in halves down to single pieces
+	 */
+	private final class ReplayTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		/** The first piece of work of the range */
+		private final int from;
+
+		/** The end of the range */
+		private final int to;
+
+		/**
+		 * Constructs a task replaying a range of the pieces of work
+		 * @param from the first piece of work
+		 * @param to the end of the range
+		 */
+		ReplayTask(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from == 1) {
+				publish(from, replay(units[from]));
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			invokeAll(new ReplayTask(from, middle), new ReplayTask(middle, to));
+		}
+	}
+
+	/**
+	 * A channel reading a range of a file
+	 */
+	private static final class RangeChannel implements ReadableByteChannel {
+		/** The file */
+		private final FileChannel file;
+
+		/** The offset of the next byte */
+		private long position;
+
+		/** The end of the range */
+		private final long end;
+
+		/**
+		 * Constructs a channel reading a range of a file
+		 * @param file the file, which is closed with the channel
+		 * @param start the offset of the range
+		 * @param end the end of the range
+		 */
+		RangeChannel(FileChannel file, long start, long end) {
+			this.file = file;
+			this.position = start;
+			this.end = end;
+		}
+
+		@Override
+		public int read(ByteBuffer buffer) throws IOException {
+			if (position >= end) {
+				return -1;
+			}
+			int limit = buffer.limit();
+			if (end - position < buffer.remaining()) {
+				buffer.limit(buffer.position() + (int) (end - position));
+			}
+			int count = file.read(buffer, position);
+			buffer.limit(limit);
+			if (count > 0) {
+				position += count;
+			}
+			return count;
+		}
+
+		@Override
+		public boolean isOpen() {
+			return file.isOpen();
+		}
+
+		@Override
+		public void close() throws IOException {
+			file.close();
+		}
+	}
+
+	/**
+	 * This is the main method that replays the files given.
+	 *
+	 * @param args "-threads n" the number of threads, "-chunk m" the size of the chunks of the PGN files in
+	 *             megabytes, "-all" to report every game, then the files, directories and @lists
+	 * @throws IOException if a file cannot be listed
+	 */
+	public static void main(String[] args) throws IOException {
+		int threads = Runtime.getRuntime().availableProcessors();
+		int chunk = DEFAULT_CHUNK;
+		boolean all = false;
+		List<String> names = new ArrayList<>();
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-threads")) {
+				threads = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-chunk")) {
+				chunk = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-all")) {
+				all = true;
+			} else {
+				names.add(args[i]);
+			}
+		}
+		if (names.isEmpty()) {
+			System.err.println("Usage: java Control.BatchReplay [-threads n] [-chunk megabytes] [-all] "
+					+ "<file | directory | @list> ...");
+			System.exit(2);
+		}
+		ForkJoinPool pool = new ForkJoinPool(Math.max(1, threads));
+		try {
+			BatchReplay batch = new BatchReplay(pool, System.out, all, (long) chunk * 1024 * 1024);
+			if (!batch.run(listFiles(names))) {
+				System.exit(1);
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+}
@@ -1,9 +1,10 @@
 package Control;
 
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Scanner;
+import java.io.InputStream;
+import java.io.PrintStream;
 
 import Model.*;
 
@@ -15,8 +16,9 @@ import java.io.FileNotFoundException;
  @since 2023-03-09
  @author Yiming Huang
  @author Zihao Zheng
- The Chess class represents a game of chess. It holds the current state of the game,
- including the chessboard, the current player's turn, and whether the game has ended or not.
+ The Chess class runs a game of chess on the console. Each instance is one session playing one GameState,
+ which holds the chessboard, the side to move and whether the game has ended, so several sessions can run side by
+ side in one program.
  This class contains methods for initializing the game, printing the chessboard, and making moves.
  */
 
@@ -25,6 +27,8 @@ public class Chess {
 	 * The mode of the game. 
 	 * File: read from file. 
 	 * terminal: read from terminal
+	 * uci: play as an engine speaking the UCI protocol, see {@link Uci}
+	 * The first argument of main, if any, overrides it.
 	 * */
 	static String mode = "terminal";
 	
@@ -35,58 +39,75 @@ public class Chess {
 	static boolean debug = false;
 	
 	/**
-	 * The chess board 8x8
+	 * The game played by this session: the board, the bitboard position and the moves played
 	 * */
-	static ChessPiece[][] board = new ChessPiece[8][8];
+	final GameState game;
 	
 	/**
-	 * Whether it is the white side's move
+	 * The moves typed by the players, read by runner1
 	 * */
-	static boolean isWhiteMove = true;
+	private final Scanner input;
 	
 	/**
-	 * Whether the game has ended
+	 * Where the board and the messages of the game are printed
 	 * */
-	static boolean gameEnd = false;
+	private final PrintStream out;
+	
+	/**
+	 * Whether it is the white side's move. The runners flip it when they prompt for a move,
+	 * and flip it back when the move is rejected.
+	 * */
+	boolean isWhiteMove = true;
 
 	/**
-	Initializes the board with the chess pieces in their starting positions.
-	*/
-	public static void initChess() {
-		// Set up the initial state of the board
-		board[0][0] = new Rook("black", 1, 1);
-		board[0][1] = new Knight("black", 1, 2);
-		board[0][2] = new Bishop("black", 1, 3);
-		board[0][3] = new Queen("black", 1, 4);
-		board[0][4] = new King("black", 1, 5);
-		board[0][5] = new Bishop("black", 1, 6);
-		board[0][6] = new Knight("black", 1, 7);
-		board[0][7] = new Rook("black", 1, 8);
-		for (int i = 0; i < 8; i++) {
-			board[1][i] = new Pawn("black", 2, i + 1);
-		}
-		for (int i = 2; i < 6; i++) {
-			for (int j = 0; j < 8; j++) {
-				board[i][j] = null;
-			}
-		}
-		for (int i = 0; i < 8; i++) {
-			board[6][i] = new Pawn("white", 7, i + 1);
-		}
-		board[7][0] = new Rook("white", 8, 1);
-		board[7][1] = new Knight("white", 8, 2);
-		board[7][2] = new Bishop("white", 8, 3);
-		board[7][3] = new Queen("white", 8, 4);
-		board[7][4] = new King("white", 8, 5);
-		board[7][5] = new Bishop("white", 8, 6);
-		board[7][6] = new Knight("white", 8, 7);
-		board[7][7] = new Rook("white", 8, 8);
+	 * Constructs a session playing a new game from the starting position on the console
+	 * */
+	public Chess() {
+		this(new GameState());
+	}
+
+	/**
+	 * Constructs a session playing a game on the console
+	 * @param game the game to play
+	 * */
+	public Chess(GameState game) {
+		this(game, System.in, System.out);
+	}
 
-		ChessPiece.board = board;
+	/**
+	 * Constructs a session playing a game over a pair of streams, such as the streams of a network connection
+	 * @param game the game to play
+	 * @param in the stream the moves are read from
+	 * @param out the stream the board and the messages are printed to
+	 * */
+	public Chess(GameState game, InputStream in, PrintStream out) {
+		this.game = game;
+		this.input = new Scanner(in);
+		this.out = out;
+		isWhiteMove = game.isWhiteMove();
+	}
 
+	/**
+	Initializes the board with the chess pieces in their starting positions.
+	*/
+	public void initChess() {
+		game.setStartPosition();
+		isWhiteMove = true;
 	}
 	
-
+	
+	/**
+	Initializes the board with the position described by a FEN record, such as
+	"rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1".
+	@param fen the FEN record
+	@throws IllegalArgumentException if the record cannot be read
+	*/
+	public void initChess(String fen) {
+		game.setFen(fen);
+		isWhiteMove = game.isWhiteMove();
+	}
+	
+	
 	/**
 	Prints the current state of the chess board.
 	Chess pieces are represented by their symbols, and are preceded by a letter indicating their color.
@@ -96,31 +117,32 @@ public class Chess {
 	If a spot does not have a chess piece on it, and it is an even numbered row and column, it is represented by three empty spaces.
 	If a spot does not have a chess piece on it, and it is an odd numbered row and column, it is represented by two hash signs.
 	*/
-	public static void printBoard() {
+	public void printBoard() {
+		ChessPiece[][] board = game.getBoard();
 		for (int i = 0; i < 8; i++) {
 			for (int j = 0; j < 8; j++) {
 				ChessPiece piece = board[i][j];
 				if (board[i][j] != null) {
 					// There exists a chess piece in this spot
 					if (piece.getColor().equals("black")) {
-						System.out.print("b" + piece.getSymbol() + " ");
+						out.print("b" + piece.getSymbol() + " ");
 					} else {
-						System.out.print("w" + piece.getSymbol() + " ");
+						out.print("w" + piece.getSymbol() + " ");
 					}
 				} else {
 					// These isn't any chess piece in this spot
 					if ((i + j) % 2 == 0) {
 						// create shadow
-						System.out.print("   ");
+						out.print("   ");
 					} else {
 						// no shadow
-						System.out.print("## ");
+						out.print("## ");
 					}
 				}
 			}
-			System.out.println(8 - i);
+			out.println(8 - i);
 		}
-		System.out.println(" a  b  c  d  e  f  g  h ");
+		out.println(" a  b  c  d  e  f  g  h ");
 	}
 
 	
@@ -130,8 +152,9 @@ public class Chess {
 	@param color of the pieces to retrieve (either "white" or "black")
 	@return a list of ChessPiece objects that belong to the specified color
 	*/
-	public static List<ChessPiece> getPiecesOfColor(String color) {
+	public List<ChessPiece> getPiecesOfColor(String color) {
 		List<ChessPiece> pieces = new ArrayList<>();
+		ChessPiece[][] board = game.getBoard();
 		for (int i = 0; i < 8; i++) {
 			for (int j = 0; j < 8; j++) {
 				ChessPiece piece = board[i][j];
@@ -146,26 +169,14 @@ public class Chess {
 	
 	/**
 
-	Returns a list of valid moves for a king at the given position on an 8x8 chess board.
-	The method checks all 8 possible moves from the king's position and adds any valid moves to the list of valid moves.
+	Returns the squares a king at the given position on an 8x8 chess board can step to, suppose they are all empty.
+	The squares come from the precomputed king attack table, so nothing is allocated.
 	@param kingRow the row position of the king on the board
 	@param kingCol the column position of the king on the board
-	@return a list of int arrays representing the row and column positions of the valid moves for the king
+	@return a bitboard of the squares around the king
 	*/
-	public static List<int[]> getValidKingMoves(int kingRow, int kingCol) {
-		List<int[]> validMoves = new ArrayList<>();
-
-		// Check each of the 8 possible moves from the king's position
-		int[][] moves = { { -1, -1 }, { -1, 0 }, { -1, 1 }, { 0, -1 }, { 0, 1 }, { 1, -1 }, { 1, 0 }, { 1, 1 } };
-		for (int[] move : moves) {
-			int newRow = kingRow + move[0];
-			int newCol = kingCol + move[1];
-			if (newRow >= 0 && newRow <= 7 && newCol >= 0 && newCol <= 7) {
-				validMoves.add(new int[] { newRow, newCol });
-			}
-		}
-
-		return validMoves;
+	public static long getValidKingMoves(int kingRow, int kingCol) {
+		return Attacks.kingAttacks(Position.square(kingRow, kingCol));
 	}
 
 	
@@ -174,8 +185,9 @@ public class Chess {
 	@param color the color of the chess pieces to retrieve (either "white" or "black")
 	@return a list of all the chess pieces on the board with the specified color
 	*/
-	public static List<ChessPiece> getAllPiecesOfColor(String color) {
+	public List<ChessPiece> getAllPiecesOfColor(String color) {
 		List<ChessPiece> piecesOfColor = new ArrayList<>();
+		ChessPiece[][] board = game.getBoard();
 		for (int row = 0; row < 8; row++) {
 			for (int col = 0; col < 8; col++) {
 				ChessPiece piece = board[row][col];
@@ -191,128 +203,46 @@ public class Chess {
 	
 	/**
 	Checks whether a king of the given color is in check.
+	The king square is tracked by the position, and the square is probed outward for attackers, so no piece is asked
+	whether it can reach the king.
 	@param color the color of the king to check for check
 	@return true if the king is in check, false otherwise
 	*/
-	public static boolean isChecked(String color) {
-		// Find the king's position
-		int kingRow = -1;
-		int kingCol = -1;
-		for (int i = 0; i < 8; i++) {
-			for (int j = 0; j < 8; j++) {
-				ChessPiece piece = board[i][j];
-				if (piece != null && piece.getSymbol().equals("K") && piece.getColor().equals(color)) {
-					kingRow = i;
-					kingCol = j;
-					break;
-				}
-			}
-			if (kingRow != -1) {
-				break;
-			}
-		}
-		// Check if any opponent piece can attack the king
-		for (int i = 0; i < 8; i++) {
-			for (int j = 0; j < 8; j++) {
-				ChessPiece piece = board[i][j];
-				if (piece != null && !piece.getColor().equals(color)) {
-					if (piece.isValidMove(i, j, kingRow, kingCol)) {
-						return true;
-					}
-				}
-			}
-		}
-
-		return false;
+	public boolean isChecked(String color) {
+		return game.isInCheck(Position.color(color));
 	}
 
 	
 	
 	/**
-	 Checks if the given color is in checkmate.
+	 Returns the status of the game for the side to move: whether it can still play, is checkmated or is stalemated.
+	 The legal moves are only looked for until the first one is found, so a side that can play costs a move or two.
+	 @return ONGOING, CHECKMATE or STALEMATE
+	 */
+	public GameStatus getStatus() {
+		return game.getStatus();
+	}
+
+	
+	/**
+	 Checks if the given color is in checkmate, that is, in check with no legal move.
+	 Only the side to move can be checkmated.
 	 @param color the color to check for checkmate
 	 @return true if the given color is in checkmate, false otherwise
 	 */
-	public static boolean isCheckmate(String color) {
-		// Find the king's position on the board
-		int kingRow = -1;
-		int kingCol = -1;
-		for (int row = 0; row < 8; row++) {
-			for (int col = 0; col < 8; col++) {
-				ChessPiece piece = board[row][col];
-				if (piece instanceof King && piece.getColor().equals(color)) {
-					kingRow = row;
-					kingCol = col;
-					break;
-				}
-			}
-			if (kingRow != -1 && kingCol != -1) {
-				break;
-			}
-		}
-		// If the king is not on the board, return false
-		if (kingRow == -1 || kingCol == -1) {
-			return false;
-		}
+	public boolean isCheckmate(String color) {
+		return Position.color(color) == game.getSideToMove() && getStatus() == GameStatus.CHECKMATE;
+	}
 
-		// Get the possible positions the king can move to in the next round, suppose
-		// all of them are empty
-		List<int[]> validMoves = getValidKingMoves(kingRow, kingCol);
-		List<ChessPiece> enemyPiece = getAllPiecesOfColor(color == "white" ? "black" : "white");
-
-		// Find and remove valid positions, that has pieces of own color already in it
-//		Iterator<int[]> iterator = validMoves.iterator();
-//		while (iterator.hasNext()) {
-//		    int[] move = iterator.next();
-//		    int destRow = move[0];
-//		    int destCol = move[1];
-//		    
-//		    //  Remove this move since the king cannot eat a piece of its own color
-//		    if (board[destRow][destCol]!=null&&board[destRow][destCol].getColor().equals(color)) {
-//		    	iterator.remove();
-//		    }
-//		}
-
-		// Find and remove valid positions that enemy pieces can go to
-		boolean enemyReady = false;
-		for (ChessPiece piece : enemyPiece) {
-			Iterator<int[]> iterator2 = validMoves.iterator();
-			while (iterator2.hasNext()) {
-				int[] move = iterator2.next();
-				int row = move[0];
-				int col = move[1];
-
-				// Remove this move since the king can be captured if it was to go there
-				if (row >= 0 && row < 8 && col >= 0 && col < 8
-						&& (piece instanceof Pawn ? ((Pawn) piece).isValidTest(row, col)
-								: piece.isValidMove(row, col))) {
-					iterator2.remove();
-					enemyReady=true;
-//					System.out.println(row + "," + col + " can be occupied by " + piece.getColor() + piece.getSymbol()
-//							+ (piece.getRow()-1) + "," + (piece.getColumn()-1)+":"+(piece instanceof Pawn ? ((Pawn) piece).isValidTest(row, col)
-//									: piece.isValidMove(row, col)));
-				}
-			}
-		}
-//		System.out.println(validMoves.size());
-		int validEscapeRoute=validMoves.size();
-		
-		if(validEscapeRoute>0) {
-			// Until here, a validEscapeRoute MAY contain a piece, that shouldn't be a validEscapeRoute
-			// if king cannot perform all the validMoves, then also return true: must all be nonvalid moves
-			for (int[] move : validMoves) {
-			    int row = move[0];
-			    int col = move[1];
-			    if(!board[kingRow][kingCol].isValidMove(row, col)) {
-			    	validEscapeRoute--;
-			    }
-			}
-		}
-		if (validEscapeRoute <= 0&&enemyReady==true) {
-			return true;//king is surrounded
-		}
-		return false; // King is not surrounded
-		
+	
+	/**
+	 Checks if the given color is in stalemate, that is, not in check but with no legal move.
+	 Only the side to move can be stalemated.
+	 @param color the color to check for stalemate
+	 @return true if the given color is in stalemate, false otherwise
+	 */
+	public boolean isStalemate(String color) {
+		return Position.color(color) == game.getSideToMove() && getStatus() == GameStatus.STALEMATE;
 	}
 
 	
@@ -320,7 +250,7 @@ public class Chess {
 	Reverses the current player's turn by flipping the value of the "isWhiteMove" field.
 	This method assumes that the current turn belongs to the player whose value of x "isWhiteMove" is true.
 	*/
-	private static void reverseMove() {
+	private void reverseMove() {
 		if (isWhiteMove) {
 			isWhiteMove = false;
 		} else {
@@ -335,14 +265,16 @@ public class Chess {
 	This method assumes that the current turn belongs to the player whose value of
 	"isWhiteMove" is true.
 	*/
-	private static void printMoveStatement() {
+	private void printMoveStatement() {
 		if (isWhiteMove) {
-			System.out.print("White's move: ");
+			out.print("White's move: ");
 			isWhiteMove = false;
 		} else {
-			System.out.print("Black's move: ");
+			out.print("Black's move: ");
 			isWhiteMove = true;
 		}
+		// the prompt has no line end, so it has to be pushed to the player
+		out.flush();
 	}
 
 	
@@ -354,12 +286,12 @@ public class Chess {
 	@param move a string representing the player's move
 	@return true if the move is a resignation, false otherwise
 	*/
-	private static boolean isResign(String move) {
+	private boolean isResign(String move) {
 		if (move.equals("resign") && isWhiteMove) {
-			System.out.println("White wins");
+			out.println("White wins");
 			return true;
 		} else if (move.equals("resign") && !isWhiteMove) {
-			System.out.println("Black wins");
+			out.println("Black wins");
 			return true;
 		}
 		return false;
@@ -403,78 +335,41 @@ public class Chess {
 	 * @throws ArrayIndexOutOfBoundsException if any of the position indices is out
 	 *         of bounds
 	 */
-	private static void move(int fromRow, int fromColumn, int toRow, int toColumn) {
-		String color = board[fromRow][fromColumn].getColor();
-		int row = board[fromRow][fromColumn].getRow();
-		int column = board[fromRow][fromColumn].getColumn();
-
-		if (board[fromRow][fromColumn].getSymbol().equals("B")) {
-			board[toRow][toColumn] = new Bishop(color, row, column);
-		} else if (board[fromRow][fromColumn].getSymbol().equals("K")) {
-			board[toRow][toColumn] = new King(color, row, column);
-		} else if (board[fromRow][fromColumn].getSymbol().equals("N")) {
-			board[toRow][toColumn] = new Knight(color, row, column);
-		} else if (board[fromRow][fromColumn].getSymbol().equals("Q")) {
-			board[toRow][toColumn] = new Queen(color, row, column);
-		} else if (board[fromRow][fromColumn].getSymbol().equals("R")) {
-			board[toRow][toColumn] = new Rook(color, row, column);
-		} else {
-			// check if destination is emtpy and under/above (depending on color) is non
-			// empty: if so then remove it
-			if (((Pawn) board[fromRow][fromColumn]).en_passant_GOGOGO && board[toRow][toColumn] == null
-					&& isDiagonalMove(fromRow, fromColumn, toRow, toColumn)) {
-				// identify color
-				if (board[fromRow][fromColumn].getColor().equals("white")) {
-					// white
-					if (board[toRow + 1][toColumn] != null) {
-						board[toRow + 1][toColumn] = null;
-					}
-				} else {
-					// black
-					if (board[toRow - 1][toColumn] != null) {
-						board[toRow - 1][toColumn] = null;
-					}
-				}
-			}
+	void move(int fromRow, int fromColumn, int toRow, int toColumn) {
+		move(fromRow, fromColumn, toRow, toColumn, 0);
+	}
 
-			board[toRow][toColumn] = new Pawn(color, row, column);
-			Pawn obj = ((Pawn) board[toRow][toColumn]);
-			if (isDiagonalMove(fromRow, fromColumn, toRow, toColumn)) {
-				// Pawn has moved diagonal
-				obj.onlyVertical = false;
-			} else {
-				// Inherit the old onlyVertical from old pawn object
-				obj.onlyVertical = ((Pawn) board[fromRow][fromColumn]).onlyVertical;
-			}
-			obj.moveTwoAlready = ((Pawn) board[fromRow][fromColumn]).moveTwoAlready;
-
-			// Check left and right for enemy pawn, if so: set their enpassant to true if
-			// their isVertical is true and i have only move once (2 forward)
-			if (toColumn - 1 >= 0 && toColumn - 1 <= 7 && board[toRow][toColumn - 1] != null
-					&& board[toRow][toColumn - 1].getSymbol().equals("p")
-					&& board[toRow][toColumn - 1].getColor() != obj.getColor()
-					&& ((Pawn) board[toRow][toColumn - 1]).onlyVertical && obj.moveTwoAlready && obj.firstMove) {
-				((Pawn) board[toRow][toColumn - 1]).en_passant_GOGOGO = true;
-//				System.out.println("Left enemy set to TRUE");
-			} else if (toColumn + 1 >= 0 && toColumn + 1 <= 7 && board[toRow][toColumn + 1] != null
-					&& board[toRow][toColumn + 1].getSymbol().equals("p")
-					&& board[toRow][toColumn + 1].getColor() != obj.getColor()
-					&& ((Pawn) board[toRow][toColumn + 1]).onlyVertical && obj.moveTwoAlready && obj.firstMove) {
-				((Pawn) board[toRow][toColumn + 1]).en_passant_GOGOGO = true;
-//				System.out.println("RIGHT enemy set to TRUE");
-			}
+	
+	/**
+	 * Moves a chess piece from the specified starting position to the specified
+	 * ending position on the board, promoting it if it is a pawn reaching the last row.
+	 * The move is made by the game (see GameState.move), which also moves the rook
+	 * when castling and removes the pawn captured en passant.
+	 * 
+	 * @param fromRow the row index of the starting position (0-7)
+	 * @param fromColumn the column index of the starting position (0-7)
+	 * @param toRow the row index of the ending position (0-7)
+	 * @param toColumn the column index of the ending position (0-7)
+	 * @param promotion the piece type of the position the pawn promotes to, or 0
+	 */
+	void move(int fromRow, int fromColumn, int toRow, int toColumn, int promotion) {
+		game.move(fromRow, fromColumn, toRow, toColumn, promotion);
+	}
 
-			if (obj.firstMove == true) {
-				obj.firstMove = false;
-			}
-			// Losing en passant chance
-			if (obj.en_passant_GOGOGO == true) {
-				obj.en_passant_GOGOGO = false;
-			}
-		}
-//		System.out.println("from "+x+" "+y+"| to "+(toRow+1)+" "+(toColumn+1));
-		board[toRow][toColumn].setPosition(toRow + 1, toColumn + 1);
-		board[fromRow][fromColumn] = null;
+	
+	/**
+	 * Creates the move of the position for a move between two positions of the board array,
+	 * marking double pawn pushes, en passant captures and castling.
+	 * 
+	 * @param fromRow the row index of the starting position (0-7)
+	 * @param fromColumn the column index of the starting position (0-7)
+	 * @param toRow the row index of the ending position (0-7)
+	 * @param toColumn the column index of the ending position (0-7)
+	 * @param promotion the piece type of the position the pawn promotes to, or 0
+	 * @return the move, as encoded by Model.Move
+	 */
+	public int createMove(int fromRow, int fromColumn, int toRow, int toColumn, int promotion) {
+		return game.createMove(fromRow, fromColumn, toRow, toColumn, promotion);
 	}
 
 	
@@ -501,19 +396,32 @@ public class Chess {
 	@param fromColumn the column of the pawn to be promoted
 	@param promoteTo the new piece type to promote the pawn to (B, N, Q, or R)
 	*/
-	public static void promote(int fromRow, int fromColumn, String promoteTo) {
-		String color = board[fromRow][fromColumn].getColor();
-		int row = board[fromRow][fromColumn].getRow();
-		int column = board[fromRow][fromColumn].getColumn();
-
-		if (promoteTo.equals("B")) {
-			board[fromRow][fromColumn] = new Bishop(color, row, column);
-		} else if (promoteTo.equals("N")) {
-			board[fromRow][fromColumn] = new Knight(color, row, column);
-		} else if (promoteTo.equals("Q")) {
-			board[fromRow][fromColumn] = new Queen(color, row, column);
-		} else if (promoteTo.equals("R")) {
-			board[fromRow][fromColumn] = new Rook(color, row, column);
+	public void promote(int fromRow, int fromColumn, String promoteTo) {
+		int type = promotionType(promoteTo);
+		if (type == Position.EMPTY) {
+			return;
+		}
+		game.promote(fromRow, fromColumn, type);
+	}
+
+	
+	/**
+	Converts the letter of a promotion into a piece type of the position.
+	@param promoteTo the letter of the piece type (B, N, Q, or R)
+	@return the piece type, or Position.EMPTY if the letter is not a promotion
+	*/
+	public static int promotionType(String promoteTo) {
+		switch (promoteTo) {
+		case "B":
+			return Position.BISHOP;
+		case "N":
+			return Position.KNIGHT;
+		case "Q":
+			return Position.QUEEN;
+		case "R":
+			return Position.ROOK;
+		default:
+			return Position.EMPTY;
 		}
 	}
 
@@ -529,10 +437,10 @@ public class Chess {
 	@param toColumn the ending column of the move
 	@return true if the move is a diagonal move for a pawn, false otherwise
 	*/
-	public static boolean isDiagonalMove(int fromRow, int fromColumn, int toRow, int toColumn) {
+	public boolean isDiagonalMove(int fromRow, int fromColumn, int toRow, int toColumn) {
 		int rowDiff = toRow - fromRow;
 		int colDiff = toColumn - fromColumn;
-		int forwardDir = board[fromRow][fromColumn].getColor().equals("white") ? -1 : 1;
+		int forwardDir = game.getPiece(fromRow, fromColumn).getColor().equals("white") ? -1 : 1;
 		if (Math.abs(colDiff) == 1 && rowDiff == forwardDir) {
 			return true;
 		} else {
@@ -547,12 +455,14 @@ public class Chess {
 	user interface. It prompts the user to enter their moves via the console, and
 	validates each move before making it on the board. It also handles
 	pawn promotion, and checking for a draw or resignation. The game continues
-	until a player wins, resigns, or the user enters "draw?".
+	until a player wins, resigns, or the user enters "draw?", or until the input ends.
+	The console is the input and output streams of the session.
 	*/
-	public static void runner1() {
+	public void runner1() {
 		// This is running the program by taking in inputs in the terminal
 
-		Scanner scanner = new Scanner(System.in);
+		Scanner scanner = input;
+		ChessPiece[][] board = game.getBoard();
 		boolean printStatus = true;
 
 		// Runner
@@ -567,7 +477,10 @@ public class Chess {
 			// determine who should move
 			printMoveStatement();
 
-			// get the move coordinate
+			// get the move coordinate, the players left if there is none
+			if (!scanner.hasNextLine()) {
+				break;
+			}
 			String move = scanner.nextLine();
 
 			// Check Resign
@@ -578,9 +491,9 @@ public class Chess {
 			if (move.split(" ").length < 2 || move.split(" ").length > 3 || move.split(" ")[0].length() != 2
 					|| move.split(" ")[1].length() != 2) {
 				if(debug==true) {
-					System.out.println("Illegal move, try again : Wrong format");
+					out.println("Illegal move, try again : Wrong format");
 				}else {
-					System.out.println("Illegal move, try again.");
+					out.println("Illegal move, try again.");
 				}
 				printStatus = false;
 				reverseMove();
@@ -597,9 +510,9 @@ public class Chess {
 			// check if destination and "from" is the same thing
 			if (from.equals(to)) {
 				if(debug==true) {
-					System.out.println("Illegal move, try again : Destination cannot be same as source");
+					out.println("Illegal move, try again : Destination cannot be same as source");
 				}else {
-					System.out.println("Illegal move, try again.");
+					out.println("Illegal move, try again.");
 				}
 				printStatus = false;
 				reverseMove();
@@ -616,9 +529,9 @@ public class Chess {
 			// invalid)
 			if (fromRow == -1 || fromColumn == -1 || toRow == -1 || toColumn == -1) {
 				if(debug==true) {
-					System.out.println("Illegal move, try again : Invalid Coordinate");
+					out.println("Illegal move, try again : Invalid Coordinate");
 				}else {
-					System.out.println("Illegal move, try again.");
+					out.println("Illegal move, try again.");
 				}
 				printStatus = false;
 				reverseMove();
@@ -630,9 +543,9 @@ public class Chess {
 			if (board[fromRow][fromColumn] == null) {
 				// the piece of chess we are trying to move does not exists
 				if(debug==true) {
-					System.out.println("Illegal move, try again : Trying to move a non-existing piece");
+					out.println("Illegal move, try again : Trying to move a non-existing piece");
 				}else {
-					System.out.println("Illegal move, try again.");
+					out.println("Illegal move, try again.");
 				}				printStatus = false;
 				reverseMove();
 				continue;
@@ -644,9 +557,9 @@ public class Chess {
 				// because isWhiteMove is modified above, we have to do it reversely (true ||
 				// false instead of false||true)
 				if(debug==true) {
-					System.out.println("Illegal move, try again : Cannot move opponent");
+					out.println("Illegal move, try again : Cannot move opponent");
 				}else {
-					System.out.println("Illegal move, try again.");
+					out.println("Illegal move, try again.");
 				}				printStatus = false;
 				reverseMove();
 				continue;
@@ -658,20 +571,32 @@ public class Chess {
 				// because isWhiteMove is modified above, we have to do it reversely (true ||
 				// false instead of false||true)
 				if(debug==true) {
-					System.out.println("Illegal move, try again : Cannot eat own type");
+					out.println("Illegal move, try again : Cannot eat own type");
 				}else {
-					System.out.println("Illegal move, try again.");
+					out.println("Illegal move, try again.");
 				}				printStatus = false;
 				reverseMove();
 				continue;
 			}
 
 			// Check if it is a valid move for the piece (using isValidMove)
-			boolean valid = board[fromRow][fromColumn].isValidMove(toRow, toColumn);
+			boolean valid = board[fromRow][fromColumn].isValidMove(game, toRow, toColumn);
+			// the piece may move there, but the move must not leave the own king in check
+			if (valid == true && !game.isLegalMove(createMove(fromRow, fromColumn, toRow, toColumn, 0))) {
+				if(debug==true) {
+					out.println("Illegal move, try again : Cannot leave own king in check");
+				}else {
+					out.println("Illegal move, try again.");
+				}
+				printStatus = false;
+				reverseMove();
+				continue;
+			}
+			int promoteTo = 0;
 			
 			// check draw: will be in the promotion's spot
 			if (valid==true && move.split(" ").length == 3 && promotion.equals("draw?")) {
-				System.out.println("draw");
+				out.println("draw");
 				break;
 			}
 
@@ -684,12 +609,12 @@ public class Chess {
 					// trying to promote pawn to a rook/knight/bishop/queen
 					// check destination
 					if (checkPromote(toRow, board[fromRow][fromColumn].getColor())) {
-						promote(fromRow, fromColumn, promotion);
+						promoteTo = promotionType(promotion);
 					} else {
 						if(debug==true) {
-							System.out.println("Illegal promotion, try again. Cannot promote bc didn't reach end of board");
+							out.println("Illegal promotion, try again. Cannot promote bc didn't reach end of board");
 						}else {
-							System.out.println("Illegal promotion, try again.");
+							out.println("Illegal promotion, try again.");
 						}
 						printStatus = false;
 						reverseMove();
@@ -698,9 +623,9 @@ public class Chess {
 
 				} else {
 					if(debug==true) {
-						System.out.println("Illegal promotion, try again. Unknown promote final type (must be Q/N/R/B)");
+						out.println("Illegal promotion, try again. Unknown promote final type (must be Q/N/R/B)");
 					}else {
-						System.out.println("Illegal promotion, try again.");
+						out.println("Illegal promotion, try again.");
 					}					
 					printStatus = false;
 					reverseMove();
@@ -711,41 +636,19 @@ public class Chess {
 				// promotion to queen
 				// check destination
 				if (checkPromote(toRow, board[fromRow][fromColumn].getColor())) {
-					promote(fromRow, fromColumn, "Q");
+					promoteTo = Position.QUEEN;
 				}
 			}
 
 			// All Checks Successful: Move the piece
 			if (valid == true) {
-				if (board[fromRow][fromColumn].getSymbol().equals("p")
-						&& isDiagonalMove(fromRow, fromColumn, toRow, toColumn) && board[toRow - 1][toColumn] != null
-						&& board[toRow - 1][toColumn].getSymbol().equals("p")
-						&& board[toRow - 1][toColumn].getColor() != board[fromRow][fromColumn].getColor()
-						&& ((Pawn) board[fromRow][fromColumn]).en_passant_GOGOGO == true) {
-					// Pawn is making a diagonal move, and enemy pawn is right below destination,
-					// and our pawn is enpassant ready
-					board[toRow - 1][toColumn] = null; // captured the piece using enpassant
-					((Pawn) board[fromRow][fromColumn]).en_passant_GOGOGO = false; // captured the piece, no more
-																					// enpassant
-					((Pawn) board[fromRow][fromColumn]).onlyVertical = false;
-				} else if (board[fromRow][fromColumn].getSymbol().equals("p")
-						&& isDiagonalMove(fromRow, fromColumn, toRow, toColumn) && board[toRow + 1][toColumn] != null
-						&& board[toRow + 1][toColumn].getSymbol().equals("p")
-						&& board[toRow + 1][toColumn].getColor() != board[fromRow][fromColumn].getColor()
-						&& ((Pawn) board[fromRow][fromColumn]).en_passant_GOGOGO == true) {
-					// Pawn is making a diagonal move, and enemy pawn is right below destination,
-					// and our pawn is enpassant ready
-					board[toRow + 1][toColumn] = null; // captured the piece using enpassant
-					((Pawn) board[fromRow][fromColumn]).en_passant_GOGOGO = false; // captured the piece, no more
-																					// enpassant
-					((Pawn) board[fromRow][fromColumn]).onlyVertical = false;
-				}
-				move(fromRow, fromColumn, toRow, toColumn);
+				// en passant captures, castling rook moves and promotions are handled by move
+				move(fromRow, fromColumn, toRow, toColumn, promoteTo);
 			} else {
 				if(debug==true) {
-					System.out.println("Illegal move, try again : Not a valid move for piece (returned by isValidMove)");
+					out.println("Illegal move, try again : Not a valid move for piece (returned by isValidMove)");
 				}else {
-					System.out.println("Illegal move, try again.");
+					out.println("Illegal move, try again.");
 				}				printStatus = false;
 				reverseMove();
 				continue;
@@ -754,36 +657,57 @@ public class Chess {
 			// Check status of game (such as if one side has won after the move)
 			if(isWhiteMove) {
 				// before white moves, we check if white is in checkmate
-				if (isCheckmate("white")) {
-					System.out.println("Checkmate");
-					System.out.println("Black wins");
-					gameEnd = true;
+				GameStatus status = getStatus();
+				if (status == GameStatus.CHECKMATE) {
+					out.println("Checkmate");
+					out.println("Black wins");
+					game.setGameEnd(true);
+					break;
+				}else if (status == GameStatus.STALEMATE) {
+					out.println("Stalemate");
+					out.println("draw");
+					game.setGameEnd(true);
 					break;
 				}else {
 					if (isChecked("white")) {
-						System.out.println("White is Checked");
+						out.println("White is Checked");
 					}
 				}
 			}else {
-				if (isCheckmate("black")) {
-					System.out.println("Checkmate");
-					System.out.println("White wins");
-					gameEnd = true;
+				GameStatus status = getStatus();
+				if (status == GameStatus.CHECKMATE) {
+					out.println("Checkmate");
+					out.println("White wins");
+					game.setGameEnd(true);
+					break;
+				}else if (status == GameStatus.STALEMATE) {
+					out.println("Stalemate");
+					out.println("draw");
+					game.setGameEnd(true);
 					break;
 				}else {
 					if (isChecked("black")) {
-						System.out.println("Black is Checked");
+						out.println("Black is Checked");
 					}
 				}
 			}
 
-			System.out.println();
+			out.println();
 		}
 		scanner.close();
 	}
 
 	
 	
+	/**
+	This method runs the engine with the UCI protocol on the console of the session, for a chess GUI or a tournament
+	manager: the GUI sets up positions with "position", asks for moves with "go" and gets them back with "bestmove".
+	The position is updated move by move between commands instead of being set up again, see {@link Uci}.
+	*/
+	public void runner3() {
+		new Uci(input, out).run();
+	}
+
 	/**
 	This class provides a chess game runner that reads moves from a file and makes the moves on the chess board.
 	It includes a method to start the runner, and methods to check if a move is valid, if a promotion is valid,
@@ -793,11 +717,12 @@ public class Chess {
 	@param printEveryRound If true, print the board after every move.
 	@param printAtLast If true, print the final board after all moves.
 	*/
-	public static void runner2(String path,boolean printEveryRound,boolean printAtLast) {
+	public void runner2(String path,boolean printEveryRound,boolean printAtLast) {
 		try {
 			File file = new File(path);
 
 			Scanner scanner = new Scanner(file);
+			ChessPiece[][] board = game.getBoard();
 			boolean printStatus = true;
 
 			// Runner
@@ -817,7 +742,7 @@ public class Chess {
 
 				// get the move coordinate
 				String move = scanner.nextLine();
-				System.out.println(move);
+				out.println(move);
 
 				// Check Resign
 				if (isResign(move) == true)
@@ -827,9 +752,9 @@ public class Chess {
 				if (move.split(" ").length < 2 || move.split(" ").length > 3 || move.split(" ")[0].length() != 2
 						|| move.split(" ")[1].length() != 2) {
 					if(debug==true) {
-						System.out.println("Illegal move, try again : Wrong format");
+						out.println("Illegal move, try again : Wrong format");
 					}else {
-						System.out.println("Illegal move, try again.");
+						out.println("Illegal move, try again.");
 					}					printStatus = false;
 					reverseMove();
 					continue;
@@ -843,16 +768,16 @@ public class Chess {
 
 				// check draw: will be in the promotion's spot
 				if (move.split(" ").length == 3 && promotion.equals("draw?")) {
-					System.out.println("draw");
+					out.println("draw");
 					break;
 				}
 
 				// check if destination and "from" is the same thing
 				if (from.equals(to)) {
 					if(debug==true) {
-						System.out.println("Illegal move, try again : Destination cannot be same as source");
+						out.println("Illegal move, try again : Destination cannot be same as source");
 					}else {
-						System.out.println("Illegal move, try again.");
+						out.println("Illegal move, try again.");
 					}					printStatus = false;
 					reverseMove();
 					continue;
@@ -864,15 +789,15 @@ public class Chess {
 				int toRow = convertPosition(to)[0];
 				int toColumn = convertPosition(to)[1];
 
-//	 	       System.out.println(board[fromRow][fromColumn]!=null?board[fromRow][fromColumn].getColor()+board[fromRow][fromColumn].getSymbol():"");
+//	 	       out.println(board[fromRow][fromColumn]!=null?board[fromRow][fromColumn].getColor()+board[fromRow][fromColumn].getSymbol():"");
 
 				// Check if the from and to coordinates are -1 (meaning the coordinate is
 				// invalid)
 				if (fromRow == -1 || fromColumn == -1 || toRow == -1 || toColumn == -1) {
 					if(debug==true) {
-						System.out.println("Illegal move, try again : Invalid coordinate");
+						out.println("Illegal move, try again : Invalid coordinate");
 					}else {
-						System.out.println("Illegal move, try again.");
+						out.println("Illegal move, try again.");
 					}					printStatus = false;
 					reverseMove();
 					continue;
@@ -883,9 +808,9 @@ public class Chess {
 				if (board[fromRow][fromColumn] == null) {
 					// the piece of chess we are trying to move does not exists
 					if(debug==true) {
-						System.out.println("Illegal move, try again : Trying to move a non-exsisting piece");
+						out.println("Illegal move, try again : Trying to move a non-exsisting piece");
 					}else {
-						System.out.println("Illegal move, try again.");
+						out.println("Illegal move, try again.");
 					}					printStatus = false;
 					reverseMove();
 					continue;
@@ -897,9 +822,9 @@ public class Chess {
 					// because isWhiteMove is modified above, we have to do it reversely (true ||
 					// false instead of false||true)
 					if(debug==true) {
-						System.out.println("Illegal move, try again : Cannot move opponent");
+						out.println("Illegal move, try again : Cannot move opponent");
 					}else {
-						System.out.println("Illegal move, try again.");
+						out.println("Illegal move, try again.");
 					}					printStatus = false;
 					reverseMove();
 					continue;
@@ -911,9 +836,9 @@ public class Chess {
 					// because isWhiteMove is modified above, we have to do it reversely (true ||
 					// false instead of false||true)
 					if(debug==true) {
-						System.out.println("Illegal move, try again : Cannot eat own type");
+						out.println("Illegal move, try again : Cannot eat own type");
 					}else {
-						System.out.println("Illegal move, try again.");
+						out.println("Illegal move, try again.");
 					}					printStatus = false;
 					reverseMove();
 					continue;
@@ -921,7 +846,19 @@ public class Chess {
 
 				// Check if it is a valid move for the piece (using isValidMove)
 				board[fromRow][fromColumn].setPosition(fromRow + 1, fromColumn + 1);
-				boolean valid = board[fromRow][fromColumn].isValidMove(toRow, toColumn);
+				boolean valid = board[fromRow][fromColumn].isValidMove(game, toRow, toColumn);
+				// the piece may move there, but the move must not leave the own king in check
+				if (valid == true && !game.isLegalMove(createMove(fromRow, fromColumn, toRow, toColumn, 0))) {
+					if(debug==true) {
+						out.println("Illegal move, try again : Cannot leave own king in check");
+					}else {
+						out.println("Illegal move, try again.");
+					}
+					printStatus = false;
+					reverseMove();
+					continue;
+				}
+				int promoteTo = 0;
 
 				// Promotion
 				if (promotion != null && board[fromRow][fromColumn].getSymbol().equals("p")) {
@@ -933,12 +870,12 @@ public class Chess {
 						// trying to promote pawn to a rook/knight/bishop/queen
 						// check destination
 						if (checkPromote(toRow, board[fromRow][fromColumn].getColor())) {
-							promote(fromRow, fromColumn, promotion);
+							promoteTo = promotionType(promotion);
 						} else {
 							if(debug==true) {
-								System.out.println("Illegal promotion, try again. Cannot promote bc didn't reach end of board");
+								out.println("Illegal promotion, try again. Cannot promote bc didn't reach end of board");
 							}else {
-								System.out.println("Illegal promotion, try again.");
+								out.println("Illegal promotion, try again.");
 							}
 							printStatus = false;
 							reverseMove();
@@ -947,9 +884,9 @@ public class Chess {
 
 					} else {
 						if(debug==true) {
-							System.out.println("Illegal promotion, try again. Unknown promote final type (must be Q/N/R/B)");
+							out.println("Illegal promotion, try again. Unknown promote final type (must be Q/N/R/B)");
 						}else {
-							System.out.println("Illegal promotion, try again.");
+							out.println("Illegal promotion, try again.");
 						}							
 						printStatus = false;
 						reverseMove();
@@ -960,41 +897,19 @@ public class Chess {
 					// promotion to queen
 					// check destination
 					if (checkPromote(toRow, board[fromRow][fromColumn].getColor())) {
-						promote(fromRow, fromColumn, "Q");
+						promoteTo = Position.QUEEN;
 					}
 				}
 
 				// All Checks Successful: Move the piece
 				if (valid == true) {
-					if (board[fromRow][fromColumn].getSymbol().equals("p")
-							&& isDiagonalMove(fromRow, fromColumn, toRow, toColumn)
-							&& board[toRow - 1][toColumn] != null && board[toRow - 1][toColumn].getSymbol().equals("p")
-							&& board[toRow - 1][toColumn].getColor() != board[fromRow][fromColumn].getColor()
-							&& ((Pawn) board[fromRow][fromColumn]).en_passant_GOGOGO == true) {
-						// Pawn is making a diagonal move, and enemy pawn is right below destination,
-						// and our pawn is enpassant ready
-						board[toRow - 1][toColumn] = null; // captured the piece using enpassant
-						((Pawn) board[fromRow][fromColumn]).en_passant_GOGOGO = false; // captured the piece, no more
-																						// enpassant
-						((Pawn) board[fromRow][fromColumn]).onlyVertical = false;
-					} else if (board[fromRow][fromColumn].getSymbol().equals("p")
-							&& isDiagonalMove(fromRow, fromColumn, toRow, toColumn)
-							&& board[toRow + 1][toColumn] != null && board[toRow + 1][toColumn].getSymbol().equals("p")
-							&& board[toRow + 1][toColumn].getColor() != board[fromRow][fromColumn].getColor()
-							&& ((Pawn) board[fromRow][fromColumn]).en_passant_GOGOGO == true) {
-						// Pawn is making a diagonal move, and enemy pawn is right below destination,
-						// and our pawn is enpassant ready
-						board[toRow + 1][toColumn] = null; // captured the piece using enpassant
-						((Pawn) board[fromRow][fromColumn]).en_passant_GOGOGO = false; // captured the piece, no more
-																						// enpassant
-						((Pawn) board[fromRow][fromColumn]).onlyVertical = false;
-					}
-					move(fromRow, fromColumn, toRow, toColumn);
+					// en passant captures, castling rook moves and promotions are handled by move
+					move(fromRow, fromColumn, toRow, toColumn, promoteTo);
 				} else {
 					if(debug==true) {
-						System.out.println("Illegal move, try again : Invalid Move (by isValidMove)");
+						out.println("Illegal move, try again : Invalid Move (by isValidMove)");
 					}else {
-						System.out.println("Illegal move, try again.");
+						out.println("Illegal move, try again.");
 					}					printStatus = false;
 					reverseMove();
 					continue;
@@ -1005,34 +920,46 @@ public class Chess {
 				// Check status of game (such as if one side has won after the move)
 				if(isWhiteMove) {
 					// before white moves, we check if white is in checkmate
-					if (isCheckmate("white")) {
-						System.out.println("Checkmate");
-						System.out.println("Black wins");
-						gameEnd = true;
+					GameStatus status = getStatus();
+					if (status == GameStatus.CHECKMATE) {
+						out.println("Checkmate");
+						out.println("Black wins");
+						game.setGameEnd(true);
+						break;
+					}else if (status == GameStatus.STALEMATE) {
+						out.println("Stalemate");
+						out.println("draw");
+						game.setGameEnd(true);
 						break;
 					}else {
 						if (isChecked("white")) {
-							System.out.println("White is Checked");
+							out.println("White is Checked");
 						}
 					}
 				}else {
-					if (isCheckmate("black")) {
-						System.out.println("Checkmate");
-						System.out.println("White wins");
-						gameEnd = true;
+					GameStatus status = getStatus();
+					if (status == GameStatus.CHECKMATE) {
+						out.println("Checkmate");
+						out.println("White wins");
+						game.setGameEnd(true);
+						break;
+					}else if (status == GameStatus.STALEMATE) {
+						out.println("Stalemate");
+						out.println("draw");
+						game.setGameEnd(true);
 						break;
 					}else {
 						if (isChecked("black")) {
-							System.out.println("Black is Checked");
+							out.println("Black is Checked");
 						}
 					}
 				}
 				  
 
-				System.out.println();
+				out.println();
 			}
 			scanner.close();
-			if (!gameEnd) {
+			if (!game.isGameEnd()) {
 				runner1();
 			}else {
 				if(printAtLast) {
@@ -1050,17 +977,21 @@ public class Chess {
 	/**
 	 * This is the main method that starts the chess game.
 	 *
-	 * @param args command-line arguments
+	 * @param args command-line arguments: the mode ("terminal", "file" or "uci"), if given
 	 */
 	public static void main(String[] args) {
+		if (args.length > 0) {
+			mode = args[0];
+		}
 		if (mode.equals("terminal")) {
 			// run by taking input from terminal
-			initChess();
-			runner1();
+			new Chess().runner1();
 		} else if (mode.equals("file")) {
 			// run by taking input from a file (FILE FORMAT: 2 coordinates, then skip a line, and so on)
-			initChess();
-			runner2("/Users/zhengzihao/eclipse-workspace/Chess/src/Control/ex1.txt",false,false);// do not: print every round, print at last
+			new Chess().runner2("/Users/zhengzihao/eclipse-workspace/Chess/src/Control/ex1.txt",false,false);// do not: print every round, print at last
+		} else if (mode.equals("uci")) {
+			// run as an engine for a chess GUI or a tournament manager
+			new Chess().runner3();
 		}
 
 	}
@@ -0,0 +1,439 @@
+package Control;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import Model.GameState;
+
+/**
+ * The ChessServer class lets many games be played at once over local connections, each speaking the protocol of the
+ * console: the board is printed, a move is typed as "e2 e4" (followed by a promotion letter or "draw?" if needed),
+ * and "resign" gives the game up.
+ *
+ * <p>
+ * Every connection is a session with a {@link Chess} and a {@link GameState} of its own, run by runner1 on a virtual
+ * thread. A session waiting for its players parks its virtual thread without holding a platform thread, so thousands
+ * of idle games cost little more than their game state. The number of sessions is capped, and a connection beyond
+ * the cap is told so and closed.
+ * </p>
+ *
+ * <p>
+ * The server listens on the loopback interface, either on a TCP port or on a Unix domain socket. Closing it stops
+ * accepting connections, gives the running games a grace period to finish, and then disconnects the players left.
+ * </p>
+ *
+ * <p>
+ * Usage: {@code java Control.ChessServer [-port n | -socket path] [-max sessions] [-grace seconds]}. The server runs
+ * until it is interrupted (Ctrl-C), then shuts down gracefully.
+ * </p>
+ *
+ * @author Yiming Huang
+ * @author Zihao Zheng
+ */
+public class ChessServer implements AutoCloseable {
+	/**
+	 * The TCP port used when none is given
+	 * */
+	static final int DEFAULT_PORT = 5050;
+
+	/**
+	 * The maximum number of sessions used when none is given
+	 * */
+	static final int DEFAULT_MAX_SESSIONS = 10000;
+
+	/**
+	 * The time the running games get to finish when the server is closed, in milliseconds
+	 * */
+	static final long DEFAULT_GRACE_MILLIS = 10000;
+
+	/**
+	 * The first wait before accepting again after a failure, in milliseconds
+	 * */
+	static final long MIN_BACKOFF_MILLIS = 10;
+
+	/**
+	 * The longest wait before accepting again after failures in a row, in milliseconds
+	 * */
+	static final long MAX_BACKOFF_MILLIS = 1000;
+
+	/**
+	 * The channel accepting the connections
+	 * */
+	private final ServerSocketChannel server;
+
+	/**
+	 * The address the server listens on, with the port chosen by the system if 0 was asked
+	 * */
+	private final SocketAddress address;
+
+	/**
+	 * The path of the Unix domain socket, removed when the server closes, or null for TCP
+	 * */
+	private final Path socketPath;
+
+	/**
+	 * The key of the socket file bound by the server, which tells it apart from a file put in its place later, or null
+	 * */
+	private final Object socketKey;
+
+	/**
+	 * The maximum number of sessions at a time
+	 * */
+	private final int maxSessions;
+
+	/**
+	 * One permit per session that can still start
+	 * */
+	private final Semaphore slots;
+
+	/**
+	 * The connection and output stream of every running session
+	 * */
+	private final Map<SocketChannel, PrintStream> sessions = new ConcurrentHashMap<>();
+
+	/**
+	 * Starts one virtual thread per session
+	 * */
+	private final ExecutorService executor = Executors
+			.newThreadPerTaskExecutor(Thread.ofVirtual().name("chess-session-", 0).factory());
+
+	/**
+	 * The thread accepting the connections
+	 * */
+	private final Thread acceptor;
+
+	/**
+	 * The time the running games get to finish when the server is closed, in milliseconds
+	 * */
+	private volatile long graceMillis = DEFAULT_GRACE_MILLIS;
+
+	/**
+	 * Whether the server has been closed
+	 * */
+	private volatile boolean closed;
+
+	/**
+	 * Starts a server listening on an address
+	 * @param address a loopback TCP address, or a Unix domain socket address
+	 * @param maxSessions the maximum number of sessions at a time
+	 * @throws IOException if the address cannot be listened on, or the path of the socket is not a socket or is
+	 *         listened on by a running server
+	 * @throws IllegalArgumentException if the maximum number of sessions is not positive
+	 */
+	public ChessServer(SocketAddress address, int maxSessions) throws IOException {
+		if (maxSessions < 1) {
+			throw new IllegalArgumentException("maximum number of sessions must be positive: " + maxSessions);
+		}
+		this.maxSessions = maxSessions;
+		slots = new Semaphore(maxSessions);
+		if (address instanceof UnixDomainSocketAddress) {
+			socketPath = ((UnixDomainSocketAddress) address).getPath();
+			removeStaleSocket(socketPath);
+			server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+		} else {
+			socketPath = null;
+			server = ServerSocketChannel.open();
+		}
+		try {
+			server.bind(address);
+			socketKey = socketPath == null ? null : readSocketAttributes(socketPath).fileKey();
+		} catch (IOException e) {
+			server.close();
+			throw e;
+		}
+		this.address = server.getLocalAddress();
+		acceptor = Thread.ofVirtual().name("chess-acceptor").start(this::accept);
+	}
+
+	/**
+	 * Starts a server listening on a TCP port of the loopback interface
+	 * @param port the port, or 0 to let the system choose one
+	 * @param maxSessions the maximum number of sessions at a time
+	 * @return the server
+	 * @throws IOException if the port cannot be listened on
+	 */
+	public static ChessServer onPort(int port, int maxSessions) throws IOException {
+		return new ChessServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), maxSessions);
+	}
+
+	/**
+	 * Starts a server listening on a Unix domain socket
+	 * @param path the path of the socket file
+	 * @param maxSessions the maximum number of sessions at a time
+	 * @return the server
+	 * @throws IOException if the socket cannot be created, or the path is not a socket or is listened on by a running
+	 *         server
+	 */
+	public static ChessServer onSocket(Path path, int maxSessions) throws IOException {
+		return new ChessServer(UnixDomainSocketAddress.of(path), maxSessions);
+	}
+
+	/**
+	 * Removes the socket file of a server that did not shut down, which would make the bind fail. Nothing else is
+	 * removed: the path must be a socket that no server listens on any more.
+	 * @param path the path of the socket file
+	 * @throws IOException if the path is not a socket, or a server still listens on it
+	 */
+	private static void removeStaleSocket(Path path) throws IOException {
+		BasicFileAttributes attributes;
+		try {
+			attributes = readSocketAttributes(path);
+		} catch (NoSuchFileException e) {
+			return;
+		}
+		if (!attributes.isOther()) {
+			throw new IOException(path + " exists and is not a socket");
+		}
+		SocketChannel channel;
+		try {
+			channel = SocketChannel.open(UnixDomainSocketAddress.of(path));
+		} catch (ConnectException e) {
+			// nothing listens on the socket any more
+			Files.delete(path);
+			return;
+		}
+		channel.close();
+		throw new IOException("a server is already listening on " + path);
+	}
+
+	/**
+	 * Method for getting the attributes of a socket file, without following a symbolic link
+	 * @param path the path of the socket file
+	 * @return the attributes of the file
+	 * @throws IOException if the attributes cannot be read
+	 */
+	private static BasicFileAttributes readSocketAttributes(Path path) throws IOException {
+		return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+	}
+
+	/**
+	 * Accepts connections and starts a session for each, until the server is closed
+	 */
+	private void accept() {
+		long backoff = 0;
+		while (!closed) {
+			SocketChannel channel;
+			try {
+				channel = server.accept();
+			} catch (IOException e) {
+				if (closed || !server.isOpen()) {
+					break;
+				}
+				// a lasting error, such as running out of file descriptors, is retried more and more slowly
+				backoff = Math.min(MAX_BACKOFF_MILLIS, Math.max(MIN_BACKOFF_MILLIS, backoff * 2));
+				System.err.println("Cannot accept a connection: " + e.getMessage() + ", retrying in " + backoff + " ms");
+				try {
+					Thread.sleep(backoff);
+				} catch (InterruptedException interrupted) {
+					break;
+				}
+				continue;
+			}
+			backoff = 0;
+			if (!slots.tryAcquire()) {
+				reject(channel, "Server is full, try again later.");
+				continue;
+			}
+			try {
+				executor.execute(() -> play(channel));
+			} catch (RejectedExecutionException e) {
+				// the server was closed while the connection was being accepted
+				slots.release();
+				reject(channel, "Server is shutting down.");
+			}
+		}
+	}
+
+	/**
+	 * Plays the game of one session, until the game ends or the players disconnect
+	 * @param channel the connection of the players
+	 */
+	private void play(SocketChannel channel) {
+		PrintStream out = new PrintStream(new BufferedOutputStream(Channels.newOutputStream(channel)), true);
+		sessions.put(channel, out);
+		try {
+			if (!closed) {
+				Chess chess = new Chess(new GameState(), Channels.newInputStream(channel), out);
+				chess.runner1();
+			}
+			out.flush();
+		} catch (RuntimeException e) {
+			System.err.println("Session ended by an error: " + e);
+		} finally {
+			sessions.remove(channel);
+			closeQuietly(channel);
+			slots.release();
+		}
+	}
+
+	/**
+	 * Tells a connection why it is not served, and closes it
+	 * @param channel the connection
+	 * @param message the reason
+	 */
+	private static void reject(SocketChannel channel, String message) {
+		PrintStream out = new PrintStream(Channels.newOutputStream(channel), true);
+		out.println(message);
+		closeQuietly(channel);
+	}
+
+	/**
+	 * Closes a connection, ignoring errors since the players may already be gone
+	 * @param channel the connection
+	 */
+	private static void closeQuietly(SocketChannel channel) {
+		try {
+			channel.close();
+		} catch (IOException e) {
+			// nothing left to do with a connection that cannot be closed
+		}
+	}
+
+	/**
+	 * Method for getting the address the server listens on
+	 * @return the address, with the actual port for TCP
+	 */
+	public SocketAddress getAddress() {
+		return address;
+	}
+
+	/**
+	 * Method for getting the maximum number of sessions at a time
+	 * @return the maximum number of sessions
+	 */
+	public int getMaxSessions() {
+		return maxSessions;
+	}
+
+	/**
+	 * Method for getting the number of sessions being played
+	 * @return the number of running sessions
+	 */
+	public int getActiveSessions() {
+		return sessions.size();
+	}
+
+	/**
+	 * Method for setting the time the running games get to finish when the server is closed
+	 * @param graceMillis the grace period in milliseconds
+	 */
+	public void setGraceMillis(long graceMillis) {
+		this.graceMillis = Math.max(0, graceMillis);
+	}
+
+	/**
+	 * Waits until the server has stopped accepting connections
+	 * @throws InterruptedException if the waiting thread is interrupted
+	 */
+	public void join() throws InterruptedException {
+		acceptor.join();
+	}
+
+	/**
+	 * Shuts the server down gracefully: no connection is accepted any more, the running games get the grace period to
+	 * finish, and the players still connected after it are told and disconnected. Closing twice does nothing.
+	 */
+	@Override
+	public void close() {
+		synchronized (this) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+		}
+		boolean interrupted = false;
+		try {
+			server.close();
+			acceptor.interrupt();
+			acceptor.join();
+			executor.shutdown();
+			if (!executor.awaitTermination(graceMillis, TimeUnit.MILLISECONDS)) {
+				for (Map.Entry<SocketChannel, PrintStream> session : sessions.entrySet()) {
+					session.getValue().println();
+					session.getValue().println("Server is shutting down.");
+					closeQuietly(session.getKey());
+				}
+				executor.awaitTermination(graceMillis, TimeUnit.MILLISECONDS);
+			}
+		} catch (InterruptedException e) {
+			interrupted = true;
+		} catch (IOException e) {
+			System.err.println("Cannot close the server: " + e.getMessage());
+		} finally {
+			executor.shutdownNow();
+			if (socketPath != null) {
+				try {
+					// only the socket this server bound is removed, not a file put in its place since
+					BasicFileAttributes attributes = readSocketAttributes(socketPath);
+					if (attributes.isOther() && Objects.equals(attributes.fileKey(), socketKey)) {
+						Files.delete(socketPath);
+					}
+				} catch (NoSuchFileException e) {
+					// already removed
+				} catch (IOException e) {
+					System.err.println("Cannot remove " + socketPath + ": " + e.getMessage());
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * This is the main method that starts the server.
+	 *
+	 * @param args "-port n" the TCP port, or "-socket path" a Unix domain socket, "-max n" the maximum number of
+	 *             sessions, and "-grace s" the seconds the games get to finish on shutdown
+	 * @throws IOException if the server cannot listen
+	 * @throws InterruptedException if the main thread is interrupted
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+		int port = DEFAULT_PORT;
+		Path socket = null;
+		int max = DEFAULT_MAX_SESSIONS;
+		long grace = DEFAULT_GRACE_MILLIS;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-port")) {
+				port = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-socket")) {
+				socket = Path.of(args[++i]);
+			} else if (args[i].equals("-max")) {
+				max = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-grace")) {
+				grace = Long.parseLong(args[++i]) * 1000;
+			} else {
+				System.err.println("Unknown option " + args[i]);
+				return;
+			}
+		}
+		ChessServer server = socket == null ? onPort(port, max) : onSocket(socket, max);
+		server.setGraceMillis(grace);
+		Runtime.getRuntime().addShutdownHook(new Thread(server::close, "chess-shutdown"));
+		System.out.println("Listening on " + server.getAddress() + " for up to " + max + " sessions");
+		server.join();
+	}
+}
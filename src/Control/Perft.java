@@ -0,0 +1,184 @@
+package Control;
+
+import Model.Move;
+import Model.MoveGenerator;
+import Model.Position;
+
+/**
+ * The Perft class counts the leaf nodes of the legal move tree of a position up to a depth (performance test).
+ *
+ * <p>
+ * The counts of the reference positions below are known exactly, so running them checks the move generator,
+ * castling, en passant, promotions and the moves themselves, and the time taken gives the throughput of the rules
+ * engine in nodes per second. The "divide" mode prints the count below every root move, which narrows a wrong total
+ * down to a single move.
+ * </p>
+ *
+ * <p>
+ * Usage: {@code java Control.Perft} runs every reference position,
+ * {@code java Control.Perft <depth> [fen]} counts one position, and
+ * {@code java Control.Perft divide <depth> [fen]} divides one position.
+ * </p>
+ *
+ * @author Yiming Huang
+ * @author Zihao Zheng
+ */
+public class Perft {
+	/**
+	 * The reference positions: start position, Kiwipete (castling and pins), an en passant endgame, and two
+	 * promotion heavy middlegames.
+	 * */
+	static final String[] REFERENCE_FENS = {
+			"rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+			"r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+			"8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+			"r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+			"rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8" };
+
+	/**
+	 * The known node counts of the reference positions, starting at depth 1
+	 * */
+	static final long[][] REFERENCE_COUNTS = {
+			{ 20, 400, 8902, 197281, 4865609 },
+			{ 48, 2039, 97862, 4085603 },
+			{ 14, 191, 2812, 43238, 674624, 11030083 },
+			{ 6, 264, 9467, 422333, 15833292 },
+			{ 44, 1486, 62379, 2103487 } };
+
+	/**
+	 * The position the moves are made and unmade on
+	 * */
+	private final Position position = new Position();
+
+	/**
+	 * One move buffer per ply
+	 * */
+	private final int[][] moves;
+
+	/**
+	 * Constructs a perft counter with the buffers for a maximum depth, so that counting never allocates
+	 * @param maxDepth the maximum depth that can be counted
+	 */
+	public Perft(int maxDepth) {
+		moves = new int[maxDepth + 1][MoveGenerator.MAX_MOVES];
+	}
+
+	/**
+	 * Counts the leaf nodes of the legal move tree of a position
+	 * @param root the root position, which is not modified
+	 * @param depth the depth in plies
+	 * @return the number of leaf nodes
+	 */
+	public long perft(Position root, int depth) {
+		position.copyFrom(root);
+		return count(0, depth);
+	}
+
+	/**
+	 * Counts the leaf nodes below every root move, printing one line per move and the total
+	 * @param root the root position, which is not modified
+	 * @param depth the depth in plies, at least 1
+	 * @return the number of leaf nodes
+	 */
+	public long divide(Position root, int depth) {
+		position.copyFrom(root);
+		int count = MoveGenerator.generateLegalMoves(position, moves[0]);
+		long total = 0;
+		for (int i = 0; i < count; i++) {
+			position.makeMove(moves[0][i]);
+			long nodes = count(1, depth - 1);
+			position.unmakeMove(moves[0][i]);
+			System.out.println(Move.toString(moves[0][i]) + ": " + nodes);
+			total += nodes;
+		}
+		System.out.println();
+		System.out.println("Nodes searched: " + total);
+		return total;
+	}
+
+	/**
+	 * Counts the leaf nodes below the current position
+	 * @param ply the ply of the position, which selects its move buffer
+	 * @param depth the remaining depth
+	 * @return the number of leaf nodes
+	 */
+	private long count(int ply, int depth) {
+		if (depth == 0) {
+			return 1;
+		}
+		int[] buffer = moves[ply];
+		int count = MoveGenerator.generateLegalMoves(position, buffer);
+		if (depth == 1) {
+			// bulk counting: the leaves are the legal moves themselves
+			return count;
+		}
+		long nodes = 0;
+		for (int i = 0; i < count; i++) {
+			position.makeMove(buffer[i]);
+			nodes += count(ply + 1, depth - 1);
+			position.unmakeMove(buffer[i]);
+		}
+		return nodes;
+	}
+
+	/**
+	 * Runs every reference position up to its deepest known count, and prints the counts, the time taken and the
+	 * nodes per second. A wrong count is reported as FAILED.
+	 * @return true if every count matched
+	 */
+	public static boolean runReference() {
+		boolean passed = true;
+		long totalNodes = 0;
+		long totalNanos = 0;
+		Position position = new Position();
+		for (int i = 0; i < REFERENCE_FENS.length; i++) {
+			position.setFen(REFERENCE_FENS[i]);
+			System.out.println(REFERENCE_FENS[i]);
+			Perft perft = new Perft(REFERENCE_COUNTS[i].length);
+			for (int depth = 1; depth <= REFERENCE_COUNTS[i].length; depth++) {
+				long start = System.nanoTime();
+				long nodes = perft.perft(position, depth);
+				long nanos = System.nanoTime() - start;
+				long expected = REFERENCE_COUNTS[i][depth - 1];
+				totalNodes += nodes;
+				totalNanos += nanos;
+				System.out.println("  depth " + depth + ": " + nodes + (nodes == expected ? "" : " FAILED, expected " + expected)
+						+ " (" + nanos / 1000000 + " ms)");
+				passed &= nodes == expected;
+			}
+		}
+		System.out.println(totalNodes + " nodes in " + totalNanos / 1000000 + " ms, "
+				+ (long) (totalNodes * 1e9 / Math.max(1, totalNanos)) + " nodes/second");
+		System.out.println(passed ? "All counts match" : "Some counts FAILED");
+		return passed;
+	}
+
+	/**
+	 * This is the main method of the perft harness.
+	 *
+	 * @param args nothing to run the reference positions, "[divide] depth [fen]" to count one position
+	 */
+	public static void main(String[] args) {
+		if (args.length == 0) {
+			if (!runReference()) {
+				System.exit(1);
+			}
+			return;
+		}
+		boolean divide = args[0].equals("divide");
+		int first = divide ? 1 : 0;
+		int depth = Integer.parseInt(args[first]);
+		Position position = new Position();
+		if (args.length > first + 1) {
+			position.setFen(String.join(" ", java.util.Arrays.copyOfRange(args, first + 1, args.length)));
+		} else {
+			position.setStartPosition();
+		}
+		Perft perft = new Perft(depth);
+		long start = System.nanoTime();
+		long nodes = divide ? perft.divide(position, depth) : perft.perft(position, depth);
+		long nanos = System.nanoTime() - start;
+		System.out.println(nodes + " nodes in " + nanos / 1000000 + " ms, "
+				+ (long) (nodes * 1e9 / Math.max(1, nanos)) + " nodes/second");
+	}
+}
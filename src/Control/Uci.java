@@ -0,0 +1,556 @@
+package Control;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Scanner;
+import java.util.concurrent.CountDownLatch;
+
+import Engine.ParallelSearch;
+import Engine.SearchLimits;
+import Engine.SearchResult;
+import Engine.TranspositionTable;
+import Model.Move;
+import Model.MoveGenerator;
+import Model.Position;
+
+/**
+ * The Uci class lets a chess GUI or a tournament manager play against the engine with the UCI (Universal Chess
+ * Interface) protocol, read from the input and written to the output of a session.
+ *
+ * <p>
+ * The commands understood are "uci", "isready", "setoption name Hash|Threads value n", "ucinewgame",
+ * "position startpos|fen ... [moves ...]", "go [depth n] [movetime ms] [nodes n] [wtime ms] [btime ms] [winc ms]
+ * [binc ms] [movestogo n] [infinite]", "stop" and "quit". The search runs on a thread of its own, so "stop" and
+ * "isready" are answered while it runs. Every completed depth is reported with an "info" line, and the search ends
+ * with "bestmove". After "go infinite" the "bestmove" waits for "stop" or "quit", even if the search ended by itself
+ * on a mate or at the maximum depth, as the protocol asks.
+ * </p>
+ *
+ * <p>
+ * A GUI sends the whole game with every "position" command. The position is kept between commands with the moves
+ * made on it, so a command repeating the moves already made only makes the new ones: the moves are compared with
+ * the ones made, the moves after the first difference are taken back, and the rest of the command is made in place.
+ * A game therefore costs one move per command instead of a replay of the whole game, and the moves made keep the
+ * history the search needs to see repetitions.
+ * </p>
+ *
+ * @author Yiming Huang
+ * @author Zihao Zheng
+ */
+public class Uci {
+	/**
+	 * The size of the transposition table in megabytes used when the GUI does not set one
+	 * */
+	static final int DEFAULT_HASH = 16;
+
+	/**
+	 * The largest number of search threads the GUI can ask for
+	 * */
+	static final int MAX_THREADS = 256;
+
+	/**
+	 * The time kept aside for the GUI to receive the move, in milliseconds
+	 * */
+	static final long MOVE_OVERHEAD = 30;
+
+	/**
+	 * The number of moves the remaining time is shared out between when the GUI does not tell it
+	 * */
+	static final int DEFAULT_MOVES_TO_GO = 30;
+
+	/**
+	 * The commands of the GUI
+	 * */
+	private final Scanner input;
+
+	/**
+	 * The answers to the GUI
+	 * */
+	private final PrintStream out;
+
+	/**
+	 * The table shared by the search threads, kept between searches
+	 * */
+	private final TranspositionTable table = new TranspositionTable(DEFAULT_HASH);
+
+	/**
+	 * The search
+	 * */
+	private final ParallelSearch search = new ParallelSearch(table);
+
+	/**
+	 * The position of the last "position" command
+	 * */
+	private final Position position = new Position();
+
+	/**
+	 * The FEN record the moves were made from, empty for the starting position
+	 * */
+	private final StringBuilder baseFen = new StringBuilder();
+
+	/**
+	 * The moves made on the position since it was set up
+	 * */
+	private int[] played = new int[256];
+
+	/**
+	 * Number of moves made on the position
+	 * */
+	private int playedCount;
+
+	/**
+	 * The buffer of the legal moves a move of the GUI is looked up in
+	 * */
+	private final int[] legalMoves = new int[MoveGenerator.MAX_MOVES];
+
+	/**
+	 * Number of threads the search runs on
+	 * */
+	private int threads = 1;
+
+	/**
+	 * The thread running the search, or null if none was started
+	 * */
+	private Thread searcher;
+
+	/**
+	 * Counted down by "stop" and "quit" to let the search thread answer, or null if no search was started
+	 * */
+	private CountDownLatch release;
+
+	/**
+	 * Constructs a UCI session starting from the starting position
+	 * @param input the commands of the GUI
+	 * @param out the answers to the GUI
+	 */
+	public Uci(Scanner input, PrintStream out) {
+		this.input = input;
+		this.out = out;
+		position.setStartPosition();
+		search.setListener(this::info);
+	}
+
+	/**
+	 * Reads and answers commands until "quit" or the end of the input. A running search is stopped and answered
+	 * before returning.
+	 */
+	public void run() {
+		while (input.hasNextLine()) {
+			String line = input.nextLine().trim();
+			int end = tokenEnd(line, 0);
+			if (isToken(line, 0, end, "quit")) {
+				break;
+			}
+			execute(line, end);
+		}
+		stopSearch();
+	}
+
+	/**
+	 * Answers one command, ignoring the commands it does not know as the protocol asks
+	 * @param line the command, without surrounding spaces
+	 * @param end the end of the first word of the command
+	 */
+	private void execute(String line, int end) {
+		if (isToken(line, 0, end, "uci")) {
+			out.println("id name Chess");
+			out.println("id author Yiming Huang, Zihao Zheng");
+			out.println("option name Hash type spin default " + DEFAULT_HASH + " min 1 max 65536");
+			out.println("option name Threads type spin default 1 min 1 max " + MAX_THREADS);
+			out.println("uciok");
+		} else if (isToken(line, 0, end, "isready")) {
+			out.println("readyok");
+		} else if (isToken(line, 0, end, "setoption")) {
+			stopSearch();
+			setOption(line);
+		} else if (isToken(line, 0, end, "ucinewgame")) {
+			stopSearch();
+			table.clear();
+		} else if (isToken(line, 0, end, "position")) {
+			stopSearch();
+			setPosition(line, end);
+		} else if (isToken(line, 0, end, "go")) {
+			stopSearch();
+			go(line, end);
+		} else if (isToken(line, 0, end, "stop")) {
+			stopSearch();
+		}
+		out.flush();
+	}
+
+	/**
+	 * Answers "setoption name Hash value n" and "setoption name Threads value n"
+	 * @param line the command
+	 */
+	private void setOption(String line) {
+		int name = line.indexOf(" name ");
+		int value = line.indexOf(" value ");
+		if (name < 0 || value < name) {
+			return;
+		}
+		String option = line.substring(name + 6, value).trim();
+		try {
+			int number = Integer.parseInt(line.substring(value + 7).trim());
+			if (option.equalsIgnoreCase("Hash")) {
+				table.resize(number);
+			} else if (option.equalsIgnoreCase("Threads")) {
+				threads = Math.max(1, Math.min(MAX_THREADS, number));
+			}
+		} catch (IllegalArgumentException e) {
+			out.println("info string invalid value for " + option);
+		}
+	}
+
+	/**
+	 * Answers "position startpos [moves ...]" and "position fen ... [moves ...]". The moves already made on the
+	 * position are kept, see the class description.
+	 * @param line the command
+	 * @param index the end of the word "position"
+	 */
+	private void setPosition(String line, int index) {
+		int start = skipSpaces(line, index);
+		int end = tokenEnd(line, start);
+		int fenStart = end;
+		int fenEnd = end;
+		if (isToken(line, start, end, "fen")) {
+			fenStart = skipSpaces(line, end);
+			int moves = line.indexOf(" moves", fenStart);
+			end = moves < 0 ? line.length() : moves;
+			fenEnd = end;
+			while (fenEnd > fenStart && Character.isWhitespace(line.charAt(fenEnd - 1))) {
+				fenEnd--;
+			}
+		} else if (!isToken(line, start, end, "startpos")) {
+			out.println("info string expected startpos or fen");
+			return;
+		}
+		// the FEN record is read in place, and only when it changed
+		if (!isSameText(line, fenStart, fenEnd, baseFen)) {
+			baseFen.setLength(0);
+			try {
+				if (fenStart == fenEnd) {
+					position.setStartPosition();
+				} else {
+					position.setFen(line, fenStart, fenEnd);
+					baseFen.append(line, fenStart, fenEnd);
+				}
+			} catch (IllegalArgumentException e) {
+				out.println("info string invalid fen " + line.substring(fenStart, fenEnd));
+				position.setStartPosition();
+			}
+			playedCount = 0;
+		}
+
+		start = skipSpaces(line, end);
+		end = tokenEnd(line, start);
+		int ply = 0;
+		if (isToken(line, start, end, "moves")) {
+			for (start = skipSpaces(line, end); start < line.length(); start = skipSpaces(line, end)) {
+				end = tokenEnd(line, start);
+				if (ply < playedCount && matches(played[ply], line, start, end)) {
+					ply++;
+					continue;
+				}
+				takeBack(ply);
+				int move = parseMove(line, start, end);
+				if (move == Move.NONE) {
+					out.println("info string illegal move " + line.substring(start, end));
+					break;
+				}
+				position.makeMove(move);
+				if (playedCount == played.length) {
+					played = Arrays.copyOf(played, played.length * 2);
+				}
+				played[playedCount++] = move;
+				ply++;
+			}
+		}
+		takeBack(ply);
+	}
+
+	/**
+	 * Takes back the moves made on the position after a number of moves
+	 * @param count the number of moves to keep
+	 */
+	private void takeBack(int count) {
+		while (playedCount > count) {
+			position.unmakeMove(played[--playedCount]);
+		}
+	}
+
+	/**
+	 * Checks if a word of a command is a move in coordinate notation, such as "e2e4" or "e7e8q"
+	 * @param move the move
+	 * @param line the command
+	 * @param start the start of the word
+	 * @param end the end of the word
+	 * @return true if the word names the move
+	 */
+	private static boolean matches(int move, String line, int start, int end) {
+		int promotion = Move.promotion(move);
+		if (end - start != (promotion == 0 ? 4 : 5)) {
+			return false;
+		}
+		return square(line, start) == Move.from(move) && square(line, start + 2) == Move.to(move)
+				&& (promotion == 0 || promotionType(line.charAt(start + 4)) == promotion);
+	}
+
+	/**
+	 * Finds the legal move of the position named by a word of a command in coordinate notation
+	 * @param line the command
+	 * @param start the start of the word
+	 * @param end the end of the word
+	 * @return the move, or Move.NONE if the word is not a legal move
+	 */
+	private int parseMove(String line, int start, int end) {
+		if (end - start != 4 && end - start != 5) {
+			return Move.NONE;
+		}
+		int from = square(line, start);
+		int to = square(line, start + 2);
+		int promotion = end - start == 5 ? promotionType(line.charAt(start + 4)) : 0;
+		if (from < 0 || to < 0 || promotion < 0) {
+			return Move.NONE;
+		}
+		int count = MoveGenerator.generateLegalMoves(position, legalMoves);
+		for (int i = 0; i < count; i++) {
+			int move = legalMoves[i];
+			if (Move.from(move) == from && Move.to(move) == to && Move.promotion(move) == promotion) {
+				return move;
+			}
+		}
+		return Move.NONE;
+	}
+
+	/**
+	 * Method for getting the square named by two characters, such as "e4"
+	 * @param line the text
+	 * @param index the index of the file letter
+	 * @return the square, or -1 if the characters do not name one
+	 */
+	private static int square(String line, int index) {
+		int file = line.charAt(index) - 'a';
+		int rank = line.charAt(index + 1) - '1';
+		return file < 0 || file > 7 || rank < 0 || rank > 7 ? -1 : rank * 8 + file;
+	}
+
+	/**
+	 * Method for getting the piece type named by a promotion letter
+	 * @param letter n, b, r or q
+	 * @return the piece type, or -1 for another letter
+	 */
+	private static int promotionType(char letter) {
+		switch (Character.toLowerCase(letter)) {
+		case 'n':
+			return Position.KNIGHT;
+		case 'b':
+			return Position.BISHOP;
+		case 'r':
+			return Position.ROOK;
+		case 'q':
+			return Position.QUEEN;
+		default:
+			return -1;
+		}
+	}
+
+	/**
+	 * Answers "go" by starting a search of the position on the search thread
+	 * @param line the command
+	 * @param index the end of the word "go"
+	 */
+	private void go(String line, int index) {
+		SearchLimits limits = new SearchLimits();
+		limits.setThreads(threads);
+		long time = 0;
+		long increment = 0;
+		long movesToGo = 0;
+		boolean white = position.getSideToMove() == Position.WHITE;
+		try {
+			for (int start = skipSpaces(line, index); start < line.length();) {
+				int end = tokenEnd(line, start);
+				int valueStart = skipSpaces(line, end);
+				int valueEnd = tokenEnd(line, valueStart);
+				boolean hasValue = valueStart < valueEnd && Character.isDigit(line.charAt(valueEnd - 1));
+				long value = hasValue ? Long.parseLong(line, valueStart, valueEnd, 10) : 0;
+				if (isToken(line, start, end, "depth")) {
+					limits.setDepth((int) Math.min(value, Integer.MAX_VALUE));
+				} else if (isToken(line, start, end, "nodes")) {
+					limits.setNodes(value);
+				} else if (isToken(line, start, end, "movetime")) {
+					limits.setMoveTime(Math.max(1, value - MOVE_OVERHEAD));
+				} else if (isToken(line, start, end, white ? "wtime" : "btime")) {
+					time = Math.max(1, value);
+				} else if (isToken(line, start, end, white ? "winc" : "binc")) {
+					increment = value;
+				} else if (isToken(line, start, end, "movestogo")) {
+					movesToGo = value;
+				} else if (isToken(line, start, end, "infinite")) {
+					limits.setInfinite(true);
+					hasValue = false;
+				} else {
+					// "ponder" and the clock of the opponent take no part in the limits
+					hasValue = false;
+				}
+				start = hasValue ? skipSpaces(line, valueEnd) : valueStart;
+			}
+		} catch (NumberFormatException e) {
+			out.println("info string invalid go command");
+			return;
+		}
+		if (time > 0 && limits.getMoveTime() == 0) {
+			long share = time / (movesToGo > 0 ? movesToGo : DEFAULT_MOVES_TO_GO) + increment * 3 / 4;
+			limits.setMoveTime(Math.max(1, Math.min(share, time - MOVE_OVERHEAD)));
+		}
+		search.restart();
+		CountDownLatch release = new CountDownLatch(1);
+		this.release = release;
+		searcher = new Thread(() -> {
+			SearchResult result = search.search(position, limits);
+			if (limits.isInfinite()) {
+				awaitRelease(release);
+			}
+			bestMove(result);
+		}, "uci-search");
+		searcher.start();
+	}
+
+	/**
+	 * Waits on the search thread until "stop" or "quit" lets it answer
+	 * @param release the latch counted down by stopSearch
+	 */
+	private static void awaitRelease(CountDownLatch release) {
+		boolean interrupted = false;
+		while (true) {
+			try {
+				release.await();
+				break;
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Stops the running search and waits for its "bestmove", so that the position can be changed safely
+	 */
+	private void stopSearch() {
+		if (searcher == null) {
+			return;
+		}
+		search.stop();
+		release.countDown();
+		boolean interrupted = false;
+		while (true) {
+			try {
+				searcher.join();
+				break;
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		searcher = null;
+		release = null;
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Reports a completed depth of the search with an "info" line
+	 * @param result the result of the depth
+	 */
+	private void info(SearchResult result) {
+		StringBuilder text = new StringBuilder("info depth ").append(result.getDepth());
+		if (result.isMate()) {
+			text.append(" score mate ").append(result.getMateIn());
+		} else {
+			text.append(" score cp ").append(result.getScore());
+		}
+		text.append(" nodes ").append(result.getNodes());
+		text.append(" nps ").append(result.getNodes() * 1000 / Math.max(1, result.getTime()));
+		text.append(" time ").append(result.getTime());
+		text.append(" hashfull ").append(table.getHashfull());
+		text.append(" pv");
+		for (int move : result.getPv()) {
+			text.append(' ').append(Move.toString(move));
+		}
+		out.println(text);
+		out.flush();
+	}
+
+	/**
+	 * Answers the search with "bestmove", and the reply expected after it if the search found one
+	 * @param result the result of the search
+	 */
+	private void bestMove(SearchResult result) {
+		int[] pv = result.getPv();
+		String text = "bestmove " + Move.toString(result.getBestMove());
+		if (pv.length > 1 && pv[0] == result.getBestMove()) {
+			text += " ponder " + Move.toString(pv[1]);
+		}
+		out.println(text);
+		out.flush();
+	}
+
+	/**
+	 * Method for getting the index of the first character after the spaces starting at an index
+	 * @param line the text
+	 * @param index the index
+	 * @return the index of the next character that is not a space, or the length of the text
+	 */
+	private static int skipSpaces(String line, int index) {
+		while (index < line.length() && Character.isWhitespace(line.charAt(index))) {
+			index++;
+		}
+		return index;
+	}
+
+	/**
+	 * Method for getting the end of the word starting at an index
+	 * @param line the text
+	 * @param index the start of the word
+	 * @return the index of the first space after the word, or the length of the text
+	 */
+	private static int tokenEnd(String line, int index) {
+		while (index < line.length() && !Character.isWhitespace(line.charAt(index))) {
+			index++;
+		}
+		return index;
+	}
+
+	/**
+	 * Checks if the word between two indices is a given word
+	 * @param line the text
+	 * @param start the start of the word
+	 * @param end the end of the word
+	 * @param word the word to compare with
+	 * @return true if the word is the given word
+	 */
+	private static boolean isToken(String line, int start, int end, String word) {
+		return end - start == word.length() && line.startsWith(word, start);
+	}
+
+	/**
+	 * Checks if the text between two indices is the same as another text
+	 * @param line the text
+	 * @param start the start of the text
+	 * @param end the end of the text
+	 * @param other the text to compare with
+	 * @return true if both texts have the same characters
+	 */
+	private static boolean isSameText(String line, int start, int end, CharSequence other) {
+		if (end - start != other.length()) {
+			return false;
+		}
+		for (int i = 0; i < other.length(); i++) {
+			if (line.charAt(start + i) != other.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,233 @@
+package Engine;
+
+import Model.PieceSquareTables;
+import Model.Position;
+
+/**
+ * The Evaluator class scores a position without searching it, in centipawns from the point of view of the side to
+ * move.
+ *
+ * <p>
+ * The score is the material and the placement of the pieces from {@link PieceSquareTables}, blended between the
+ * middlegame and the endgame values by the game phase. The position keeps both sums and the phase up to date as moves
+ * are made, so this part takes the same few operations whatever is on the board.
+ * </p>
+ *
+ * <p>
+ * The pawn structure adds penalties for doubled and isolated pawns, bonuses for passed pawns growing as they advance,
+ * and a middlegame bonus for the pawns sheltering each king. These terms depend on the pawns alone, so they are
+ * cached in a {@link PawnHashTable}. Only passed pawns with a free path to promotion get a bonus outside the cache,
+ * since that depends on the other pieces.
+ * </p>
+ *
+ * @author Yiming Huang
+ * @author Zihao Zheng
+ */
+public final class Evaluator {
+	/** Value of each piece type in centipawns, indexed by piece type, used to compare captures */
+	public static final int[] PIECE_VALUES = { 100, 320, 330, 500, 900, 0 };
+
+	/** Middlegame penalty of each extra pawn on a file */
+	private static final int DOUBLED_MIDGAME = -10;
+
+	/** Endgame penalty of each extra pawn on a file */
+	private static final int DOUBLED_ENDGAME = -20;
+
+	/** Middlegame penalty of a pawn without friendly pawns on the files next to it */
+	private static final int ISOLATED_MIDGAME = -10;
+
+	/** Endgame penalty of a pawn without friendly pawns on the files next to it */
+	private static final int ISOLATED_ENDGAME = -15;
+
+	/** Middlegame bonus of a passed pawn, indexed by its rank counted from its own side */
+	private static final int[] PASSED_MIDGAME = { 0, 5, 5, 10, 20, 35, 60, 0 };
+
+	/** Endgame bonus of a passed pawn, indexed by its rank counted from its own side */
+	private static final int[] PASSED_ENDGAME = { 0, 10, 15, 25, 45, 75, 120, 0 };
+
+	/** Endgame bonus of a passed pawn with no piece in front of it, per rank counted from its own side */
+	private static final int FREE_PASSED_ENDGAME = 5;
+
+	/** Bonus of a shield pawn that has not moved */
+	private static final int SHIELD_CLOSE = 12;
+
+	/** Bonus of a shield pawn that moved one square */
+	private static final int SHIELD_FAR = 6;
+
+	/** Penalty of a file of the shield without a pawn close to the king */
+	private static final int SHIELD_MISSING = -12;
+
+	/** Entries of the pawn table of each thread calling {@link #evaluate(Position)} */
+	private static final int THREAD_PAWN_ENTRIES = 1 << 12;
+
+	/** The pawn table of each thread calling {@link #evaluate(Position)}, kept between calls */
+	private static final ThreadLocal<PawnHashTable> PAWN_TABLES = ThreadLocal
+			.withInitial(() -> new PawnHashTable(THREAD_PAWN_ENTRIES));
+
+	/** Bitboard of each file */
+	private static final long[] FILES = new long[8];
+
+	/** Bitboard of the files next to each file */
+	private static final long[] ADJACENT_FILES = new long[8];
+
+	/** Bitboard of the files of each place of the king: queenside, center and kingside */
+	private static final long[] PLACE_FILES = new long[3];
+
+	/** The squares in front of a pawn of each color on each square, on its file and the files next to it */
+	private static final long[][] PASSED_MASKS = new long[2][64];
+
+	/** The squares in front of a pawn of each color on each square, on its file */
+	private static final long[][] FRONT_SPANS = new long[2][64];
+
+	static {
+		for (int file = 0; file < 8; file++) {
+			FILES[file] = 0x0101010101010101L << file;
+		}
+		for (int file = 0; file < 8; file++) {
+			ADJACENT_FILES[file] = (file > 0 ? FILES[file - 1] : 0L) | (file < 7 ? FILES[file + 1] : 0L);
+		}
+		PLACE_FILES[0] = FILES[0] | FILES[1] | FILES[2];
+		PLACE_FILES[1] = FILES[3] | FILES[4];
+		PLACE_FILES[2] = FILES[5] | FILES[6] | FILES[7];
+		for (int square = 0; square < 64; square++) {
+			int file = square & 7;
+			// the ranks above the square for white, and below it for black
+			long above = square < 56 ? -1L << (square + 8 - file) : 0L;
+			long below = square >= 8 ? (1L << (square - file)) - 1 : 0L;
+			FRONT_SPANS[Position.WHITE][square] = above & FILES[file];
+			FRONT_SPANS[Position.BLACK][square] = below & FILES[file];
+			PASSED_MASKS[Position.WHITE][square] = above & (FILES[file] | ADJACENT_FILES[file]);
+			PASSED_MASKS[Position.BLACK][square] = below & (FILES[file] | ADJACENT_FILES[file]);
+		}
+	}
+
+	/**
+	 * This class only has static methods
+	 */
+	private Evaluator() {
+	}
+
+	/**
+	 * Scores a position, using a pawn table of the calling thread. The search calls
+	 * {@link #evaluate(Position, PawnHashTable)} with its own table instead.
+	 * @param position the position
+	 * @return the score in centipawns, positive if the side to move is better
+	 */
+	public static int evaluate(Position position) {
+		return evaluate(position, PAWN_TABLES.get());
+	}
+
+	/**
+	 * Scores a position, looking up its pawn structure in a table
+	 * @param position the position
+	 * @param pawnTable the cache of pawn structures
+	 * @return the score in centipawns, positive if the side to move is better
+	 */
+	public static int evaluate(Position position, PawnHashTable pawnTable) {
+		int entry = pawnTable.find(position.getPawnKey());
+		if (entry < 0) {
+			entry = evaluatePawns(position, pawnTable);
+		}
+		int midgame = position.getMidgameScore() + pawnTable.getMidgame(entry);
+		int endgame = position.getEndgameScore() + pawnTable.getEndgame(entry);
+		midgame += shield(position, pawnTable, entry, Position.WHITE)
+				- shield(position, pawnTable, entry, Position.BLACK);
+
+		long passed = pawnTable.getPassedPawns(entry);
+		long occupied = position.occupancy();
+		while (passed != 0L) {
+			int square = Long.numberOfTrailingZeros(passed);
+			passed &= passed - 1;
+			int color = position.colorAt(square);
+			if ((FRONT_SPANS[color][square] & occupied) == 0L) {
+				int rank = color == Position.WHITE ? square >>> 3 : 7 - (square >>> 3);
+				endgame += color == Position.WHITE ? FREE_PASSED_ENDGAME * rank : -FREE_PASSED_ENDGAME * rank;
+			}
+		}
+
+		int phase = Math.min(position.getPhase(), PieceSquareTables.TOTAL_PHASE);
+		int score = (midgame * phase + endgame * (PieceSquareTables.TOTAL_PHASE - phase))
+				/ PieceSquareTables.TOTAL_PHASE;
+		return position.getSideToMove() == Position.WHITE ? score : -score;
+	}
+
+	/**
+	 * Method for getting the shield score of a king from the cached pawn structure
+	 * @param position the position
+	 * @param pawnTable the cache of pawn structures
+	 * @param entry the entry of the pawn structure
+	 * @param color the color of the king
+	 * @return the shield score, or 0 if there is no such king
+	 */
+	private static int shield(Position position, PawnHashTable pawnTable, int entry, int color) {
+		int king = position.kingSquare(color);
+		if (king == Position.EMPTY) {
+			return 0;
+		}
+		int file = king & 7;
+		return pawnTable.getShield(entry, color, file < 3 ? 0 : file < 5 ? 1 : 2);
+	}
+
+	/**
+	 * Evaluates the pawn structure of a position and stores it in the table
+	 * @param position the position
+	 * @param pawnTable the cache of pawn structures
+	 * @return the entry the structure was stored in
+	 */
+	private static int evaluatePawns(Position position, PawnHashTable pawnTable) {
+		int midgame = 0;
+		int endgame = 0;
+		long passed = 0L;
+		for (int color = Position.WHITE; color <= Position.BLACK; color++) {
+			int sign = color == Position.WHITE ? 1 : -1;
+			long own = position.pieces(color, Position.PAWN);
+			long enemy = position.pieces(1 - color, Position.PAWN);
+			for (int file = 0; file < 8; file++) {
+				int count = Long.bitCount(own & FILES[file]);
+				if (count > 1) {
+					midgame += sign * DOUBLED_MIDGAME * (count - 1);
+					endgame += sign * DOUBLED_ENDGAME * (count - 1);
+				}
+			}
+			long pawns = own;
+			while (pawns != 0L) {
+				int square = Long.numberOfTrailingZeros(pawns);
+				pawns &= pawns - 1;
+				if ((own & ADJACENT_FILES[square & 7]) == 0L) {
+					midgame += sign * ISOLATED_MIDGAME;
+					endgame += sign * ISOLATED_ENDGAME;
+				}
+				if ((PASSED_MASKS[color][square] & enemy) == 0L) {
+					int rank = color == Position.WHITE ? square >>> 3 : 7 - (square >>> 3);
+					passed |= 1L << square;
+					midgame += sign * PASSED_MIDGAME[rank];
+					endgame += sign * PASSED_ENDGAME[rank];
+				}
+			}
+		}
+		int entry = pawnTable.store(position.getPawnKey(), midgame, endgame, passed);
+		for (int color = Position.WHITE; color <= Position.BLACK; color++) {
+			long own = position.pieces(color, Position.PAWN);
+			long close = 0xFFL << (color == Position.WHITE ? 8 : 48);
+			long far = 0xFFL << (color == Position.WHITE ? 16 : 40);
+			for (int place = 0; place < 3; place++) {
+				int score = 0;
+				for (int file = 0; file < 8; file++) {
+					if ((PLACE_FILES[place] & FILES[file]) == 0L) {
+						continue;
+					}
+					long shieldPawns = own & FILES[file];
+					if ((shieldPawns & close) != 0L) {
+						score += SHIELD_CLOSE;
+					} else if ((shieldPawns & far) != 0L) {
+						score += SHIELD_FAR;
+					} else {
+						score += SHIELD_MISSING;
+					}
+				}
+				pawnTable.setShield(entry, color, place, score);
+			}
+		}
+		return entry;
+	}
+}
@@ -0,0 +1,231 @@
+package Engine;
+
+import Model.Move;
+import Model.MoveGenerator;
+import Model.Position;
+
+/**
+ * The MovePicker class hands out the moves of a position one at a time, best guesses first, so that the search cuts
+ * off as early as possible.
+ *
+ * <p>
+ * The order is: the best move stored in the transposition table, then captures and promotions by MVV-LVA (most
+ * valuable victim first, and of those, least valuable attacker first), then the two killer moves of the ply (quiet
+ * moves that cut off at the same ply elsewhere in the tree), then the other quiet moves by their butterfly history
+ * score. Each stage only scores its own moves when it is reached, and moves are picked by a selection step instead
+ * of being sorted, so a node that cuts off on its first moves never pays for ordering the rest.
+ * </p>
+ *
+ * <p>
+ * A picker works on the move buffer of one ply and is reused for every node of that ply, so picking never allocates.
+ * </p>
+ *
+ * @author Yiming Huang
+ * @author Zihao Zheng
+ */
+class MovePicker {
+	/** Stage handing out the move of the transposition table */
+	private static final int TABLE_MOVE = 0;
+
+	/** Stage scoring the captures and promotions */
+	private static final int INIT_CAPTURES = 1;
+
+	/** Stage handing out the captures and promotions */
+	private static final int CAPTURES = 2;
+
+	/** Stage handing out the first killer move */
+	private static final int FIRST_KILLER = 3;
+
+	/** Stage handing out the second killer move */
+	private static final int SECOND_KILLER = 4;
+
+	/** Stage scoring the quiet moves */
+	private static final int INIT_QUIETS = 5;
+
+	/** Stage handing out the quiet moves */
+	private static final int QUIETS = 6;
+
+	/** Stage after the last move */
+	private static final int DONE = 7;
+
+	/** The score of each move of the buffer, for the stage being picked */
+	private final int[] scores = new int[MoveGenerator.MAX_MOVES];
+
+	/** The position the moves belong to */
+	private Position position;
+
+	/** The legal moves of the position, reordered while picking */
+	private int[] moves;
+
+	/** Number of moves still in the buffer */
+	private int count;
+
+	/** Index of the next move to pick */
+	private int index;
+
+	/** Index after the last capture, once the captures are moved to the front */
+	private int capturesEnd;
+
+	/** The current stage */
+	private int stage;
+
+	/** The move of the transposition table, or Move.NONE */
+	private int tableMove;
+
+	/** The first killer move of the ply */
+	private int killer1;
+
+	/** The second killer move of the ply */
+	private int killer2;
+
+	/** The history scores of the side to move, indexed by source then destination square */
+	private int[][] history;
+
+	/**
+	 * Starts picking the moves of a position
+	 * @param position the position
+	 * @param moves the legal moves of the position, which are reordered
+	 * @param count the number of moves
+	 * @param tableMove the move of the transposition table, or Move.NONE
+	 * @param killer1 the first killer move of the ply, or Move.NONE
+	 * @param killer2 the second killer move of the ply, or Move.NONE
+	 * @param history the history scores of the side to move
+	 */
+	void init(Position position, int[] moves, int count, int tableMove, int killer1, int killer2, int[][] history) {
+		this.position = position;
+		this.moves = moves;
+		this.count = count;
+		this.tableMove = Move.NONE;
+		this.killer1 = killer1;
+		this.killer2 = killer2;
+		this.history = history;
+		index = 0;
+		stage = TABLE_MOVE;
+		if (tableMove != Move.NONE && remove(tableMove, 0)) {
+			this.tableMove = tableMove;
+		}
+	}
+
+	/**
+	 * Method for getting the next move
+	 * @return the next best move, or Move.NONE when every move has been picked
+	 */
+	// each stage falls through to the next one once it has no move left
+	@SuppressWarnings("fallthrough")
+	int next() {
+		switch (stage) {
+		case TABLE_MOVE:
+			stage = INIT_CAPTURES;
+			if (tableMove != Move.NONE) {
+				return tableMove;
+			}
+			// fall through
+		case INIT_CAPTURES:
+			capturesEnd = 0;
+			for (int i = 0; i < count; i++) {
+				int move = moves[i];
+				if (isTactical(move)) {
+					moves[i] = moves[capturesEnd];
+					moves[capturesEnd] = move;
+					scores[capturesEnd++] = mvvLva(move);
+				}
+			}
+			stage = CAPTURES;
+			// fall through
+		case CAPTURES:
+			if (index < capturesEnd) {
+				return pickBest(capturesEnd);
+			}
+			stage = FIRST_KILLER;
+			// fall through
+		case FIRST_KILLER:
+			stage = SECOND_KILLER;
+			if (killer1 != tableMove && remove(killer1, capturesEnd)) {
+				return killer1;
+			}
+			// fall through
+		case SECOND_KILLER:
+			stage = INIT_QUIETS;
+			if (killer2 != tableMove && remove(killer2, capturesEnd)) {
+				return killer2;
+			}
+			// fall through
+		case INIT_QUIETS:
+			for (int i = index; i < count; i++) {
+				scores[i] = history[Move.from(moves[i])][Move.to(moves[i])];
+			}
+			stage = QUIETS;
+			// fall through
+		case QUIETS:
+			if (index < count) {
+				return pickBest(count);
+			}
+			stage = DONE;
+			// fall through
+		default:
+			return Move.NONE;
+		}
+	}
+
+	/**
+	 * Checks if a move is a capture or a promotion
+	 * @param move the move
+	 * @return true if the move changes the material
+	 */
+	boolean isTactical(int move) {
+		return Move.promotion(move) != 0 || position.captured(move) != Position.EMPTY;
+	}
+
+	/**
+	 * Scores a capture or promotion by MVV-LVA
+	 * @param move the move
+	 * @return the score, higher for a more valuable victim and then for a less valuable attacker
+	 */
+	private int mvvLva(int move) {
+		int captured = position.captured(move);
+		int victim = captured == Position.EMPTY ? 0 : Evaluator.PIECE_VALUES[Position.typeOf(captured)];
+		if (Move.promotion(move) != 0) {
+			victim += Evaluator.PIECE_VALUES[Move.promotion(move)];
+		}
+		return victim * 8 - position.typeAt(Move.from(move));
+	}
+
+	/**
+	 * Moves the best scored move between the next index and an end to the next index, and hands it out
+	 * @param end the index after the last candidate
+	 * @return the best move
+	 */
+	private int pickBest(int end) {
+		int best = index;
+		for (int i = index + 1; i < end; i++) {
+			if (scores[i] > scores[best]) {
+				best = i;
+			}
+		}
+		int move = moves[best];
+		moves[best] = moves[index];
+		scores[best] = scores[index];
+		moves[index] = move;
+		index++;
+		return move;
+	}
+
+	/**
+	 * Takes a move out of the part of the buffer not picked yet, so that it is not handed out twice
+	 * @param move the move
+	 * @param from the index to search from
+	 * @return true if the move was found and removed
+	 */
+	private boolean remove(int move, int from) {
+		if (move == Move.NONE) {
+			return false;
+		}
+		for (int i = Math.max(from, index); i < count; i++) {
+			if (moves[i] == move) {
+				moves[i] = moves[--count];
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,161 @@
+package Engine;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import Model.Position;
+
+/**
+ * The ParallelSearch class searches a position on several threads at once (Lazy SMP).
+ *
+ * <p>
+ * Every thread runs its own {@link Search} on its own copy of the root position, and all of them share one
+ * {@link TranspositionTable}. The threads do not divide the tree between them: each one searches the whole tree, and
+ * they help each other only through the table, where every position one thread finishes is a position the others
+ * can skip. The helper threads search and skip depths in different patterns, so they run ahead of the main thread and
+ * fill the table with the results it is about to need.
+ * </p>
+ *
+ * <p>
+ * The main thread follows the limits of the request and stops the helpers when it finishes. The answer is the result
+ * of the thread that completed the deepest iteration, the main thread winning ties, with the nodes of all threads
+ * added up. The node limit is shared out evenly between the threads. The number of threads is taken from
+ * {@link SearchLimits#getThreads()}, so every request can use a different number.
+ * </p>
+ *
+ * @author Yiming Huang
+ * @author Zihao Zheng
+ */
+public class ParallelSearch {
+	/** The table shared by every thread */
+	private final TranspositionTable table;
+
+	/** The search of each thread, the main thread first, kept between requests */
+	private final List<Search> searches = new CopyOnWriteArrayList<>();
+
+	/** Told the result of every completed iteration of the main thread, or null */
+	private volatile Consumer<SearchResult> listener;
+
+	/** Set by {@link #stop()}, and cleared by {@link #restart()} and when a search ends */
+	private volatile boolean stopped;
+
+	/**
+	 * Constructs a parallel search
+	 * @param table the transposition table shared by the threads
+	 */
+	public ParallelSearch(TranspositionTable table) {
+		this.table = table;
+	}
+
+	/**
+	 * Searches a position until the main thread reaches a limit or the search is stopped. Requests to the same
+	 * ParallelSearch run one after the other. A front-end that runs the search on a thread of its own calls
+	 * {@link #restart()} before starting that thread, so that a stop coming before the search begins stops it.
+	 * @param root the position to search, which is not modified while the threads copy it
+	 * @param limits the limits of the search, and the number of threads
+	 * @return the result of the deepest completed iteration of any thread
+	 */
+	public synchronized SearchResult search(Position root, SearchLimits limits) {
+		int threads = limits.getThreads();
+		while (searches.size() < threads) {
+			searches.add(new Search(table));
+		}
+		table.newSearch();
+
+		SearchResult[] results = new SearchResult[threads];
+		SearchLimits helperLimits = new SearchLimits(limits.getDepth(), 0, 0);
+		SearchLimits mainLimits = new SearchLimits(limits.getDepth(),
+				limits.getNodes() > 0 ? Math.max(1, limits.getNodes() / threads) : 0, limits.getMoveTime());
+		Thread[] helpers = new Thread[threads - 1];
+		for (int i = 1; i < threads; i++) {
+			int helper = i;
+			Search search = searches.get(i);
+			search.restart();
+			helpers[i - 1] = new Thread(() -> results[helper] = search.search(root, helperLimits, helper),
+					"search-helper-" + i);
+			helpers[i - 1].setDaemon(true);
+			helpers[i - 1].start();
+		}
+		Search main = searches.get(0);
+		Consumer<SearchResult> listener = this.listener;
+		main.setListener(listener == null ? null : result -> listener.accept(new SearchResult(result.getBestMove(),
+				result.getScore(), result.getDepth(), getNodes(threads), result.getTime(), result.getPv())));
+		main.restart();
+		// a stop that came before the main thread was restarted still counts
+		if (stopped) {
+			main.stop();
+		}
+		results[0] = main.search(root, mainLimits, 0);
+
+		for (int i = 1; i < threads; i++) {
+			searches.get(i).stop();
+		}
+		boolean interrupted = false;
+		for (Thread helper : helpers) {
+			while (true) {
+				try {
+					helper.join();
+					break;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		stopped = false;
+
+		SearchResult best = results[0];
+		long nodes = getNodes(threads);
+		for (int i = 0; i < threads; i++) {
+			if (results[i] != null && results[i].getDepth() > best.getDepth()) {
+				best = results[i];
+			}
+		}
+		return new SearchResult(best.getBestMove(), best.getScore(), best.getDepth(), nodes, results[0].getTime(),
+				best.getPv());
+	}
+
+	/**
+	 * Method for setting the listener told of every completed iteration of the main thread, with the nodes of all
+	 * threads added up
+	 * @param listener the listener, or null for none
+	 */
+	public void setListener(Consumer<SearchResult> listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Method for getting the number of nodes searched so far by the threads of the running search
+	 * @param threads the number of threads of the search
+	 * @return the nodes of all threads added up
+	 */
+	private long getNodes(int threads) {
+		long nodes = 0;
+		for (int i = 0; i < threads; i++) {
+			nodes += searches.get(i).getNodes();
+		}
+		return nodes;
+	}
+
+	/**
+	 * Stops every thread of the running search, or of the next search if it comes after {@link #restart()} and
+	 * before the search begins. Can be called from any thread.
+	 */
+	public void stop() {
+		stopped = true;
+		for (Search search : searches) {
+			search.stop();
+		}
+	}
+
+	/**
+	 * Clears the stop of an earlier request. Called on the thread of the front-end before the thread running the
+	 * search is started, so that a stop coming in between is not lost.
+	 */
+	public void restart() {
+		stopped = false;
+	}
+}
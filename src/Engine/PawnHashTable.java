@@ -0,0 +1,191 @@
+package Engine;
+
+import java.util.Arrays;
+
+/**
+ * The PawnHashTable class caches the evaluation of pawn structures, keyed by the pawn key of the position (see
+ * {@link Model.Position#getPawnKey()}).
+ *
+ * <p>
+ * Doubled, isolated and passed pawns and the pawn shields in front of the king take a pass over every pawn to work
+ * out, but moves of pieces other than pawns leave them unchanged, so most positions of a search share their pawn
+ * structure with the positions around them. Each entry keeps the middlegame and endgame scores of the structure, the
+ * passed pawns, and the shield of each color in front of the three places a king usually stands: the queenside, the
+ * center and the kingside. The shields are cached per place so that the key does not depend on where the kings are.
+ * </p>
+ *
+ * <p>
+ * The table has a fixed number of entries, and a new structure simply replaces the one in its slot. A table belongs
+ * to one search thread, so it needs no synchronization.
+ * </p>
+ *
+ * @author Yiming Huang
+ * @author Zihao Zheng
+ */
+public class PawnHashTable {
+	/** Number of shield scores of an entry: three places for each color */
+	private static final int SHIELDS = 6;
+
+	/** The pawn key of each entry */
+	private final long[] keys;
+
+	/** Whether each entry holds a structure, since 0 is also the key of a board without pawns */
+	private final boolean[] used;
+
+	/** The middlegame score of each entry, white minus black */
+	private final int[] midgame;
+
+	/** The endgame score of each entry, white minus black */
+	private final int[] endgame;
+
+	/** The passed pawns of both colors of each entry */
+	private final long[] passedPawns;
+
+	/** The shield scores of each entry, indexed by entry * SHIELDS + color * 3 + place */
+	private final int[] shields;
+
+	/** Number of lookups that found their structure */
+	private long hits;
+
+	/** Number of lookups that did not find their structure */
+	private long misses;
+
+	/**
+	 * Constructs an empty table
+	 * @param entries the number of entries, rounded down to a power of two
+	 */
+	public PawnHashTable(int entries) {
+		int size = Integer.highestOneBit(Math.max(1, entries));
+		keys = new long[size];
+		used = new boolean[size];
+		midgame = new int[size];
+		endgame = new int[size];
+		passedPawns = new long[size];
+		shields = new int[size * SHIELDS];
+	}
+
+	/**
+	 * Looks up a pawn structure
+	 * @param pawnKey the pawn key of the position
+	 * @return the entry of the structure, or -1 if the structure is not in the table
+	 */
+	public int find(long pawnKey) {
+		int entry = (int) pawnKey & (keys.length - 1);
+		if (used[entry] && keys[entry] == pawnKey) {
+			hits++;
+			return entry;
+		}
+		misses++;
+		return -1;
+	}
+
+	/**
+	 * Stores the evaluation of a pawn structure, replacing the structure in its slot. The shield scores are set
+	 * afterwards with {@link #setShield(int, int, int, int)}.
+	 * @param pawnKey the pawn key of the position
+	 * @param midgameScore the middlegame score, white minus black
+	 * @param endgameScore the endgame score, white minus black
+	 * @param passed the passed pawns of both colors
+	 * @return the entry the structure was stored in
+	 */
+	public int store(long pawnKey, int midgameScore, int endgameScore, long passed) {
+		int entry = (int) pawnKey & (keys.length - 1);
+		keys[entry] = pawnKey;
+		used[entry] = true;
+		midgame[entry] = midgameScore;
+		endgame[entry] = endgameScore;
+		passedPawns[entry] = passed;
+		return entry;
+	}
+
+	/**
+	 * Method for setting the shield score of a color in front of a place of the king
+	 * @param entry the entry
+	 * @param color the color of the king
+	 * @param place 0 for the queenside (files a to c), 1 for the center (d and e) and 2 for the kingside (f to h)
+	 * @param score the shield score
+	 */
+	public void setShield(int entry, int color, int place, int score) {
+		shields[entry * SHIELDS + color * 3 + place] = score;
+	}
+
+	/**
+	 * Removes every entry and resets the counters
+	 */
+	public void clear() {
+		Arrays.fill(used, false);
+		hits = 0;
+		misses = 0;
+	}
+
+	/**
+	 * Method for getting the middlegame score of an entry
+	 * @param entry the entry
+	 * @return the middlegame score, white minus black
+	 */
+	public int getMidgame(int entry) {
+		return midgame[entry];
+	}
+
+	/**
+	 * Method for getting the endgame score of an entry
+	 * @param entry the entry
+	 * @return the endgame score, white minus black
+	 */
+	public int getEndgame(int entry) {
+		return endgame[entry];
+	}
+
+	/**
+	 * Method for getting the passed pawns of an entry
+	 * @param entry the entry
+	 * @return the bitboard of the passed pawns of both colors
+	 */
+	public long getPassedPawns(int entry) {
+		return passedPawns[entry];
+	}
+
+	/**
+	 * Method for getting the shield score of a color in front of a place of the king
+	 * @param entry the entry
+	 * @param color the color of the king
+	 * @param place 0 for the queenside (files a to c), 1 for the center (d and e) and 2 for the kingside (f to h)
+	 * @return the shield score
+	 */
+	public int getShield(int entry, int color, int place) {
+		return shields[entry * SHIELDS + color * 3 + place];
+	}
+
+	/**
+	 * Method for getting the number of entries
+	 * @return the number of entries
+	 */
+	public int getCapacity() {
+		return keys.length;
+	}
+
+	/**
+	 * Method for getting the number of lookups that found their structure
+	 * @return the number of hits since the last clear
+	 */
+	public long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Method for getting the number of lookups that did not find their structure
+	 * @return the number of misses since the last clear
+	 */
+	public long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Method for getting the share of lookups that found their structure
+	 * @return the hit rate between 0 and 1, or 0 before the first lookup
+	 */
+	public double getHitRate() {
+		long lookups = hits + misses;
+		return lookups == 0 ? 0.0 : (double) hits / lookups;
+	}
+}
@@ -0,0 +1,470 @@
+package Engine;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import Model.Move;
+import Model.MoveGenerator;
+import Model.Position;
+
+/**
+ * The Search class looks for the best move of a position with a negamax alpha-beta search.
+ *
+ * <p>
+ * The search deepens one ply at a time (iterative deepening) until a limit from {@link SearchLimits} is reached or
+ * {@link #stop()} is called. Only completed iterations count, so whenever the search stops it answers with the best
+ * move of the deepest iteration it finished. The earlier iterations are not wasted: their results stay in the
+ * {@link TranspositionTable}, and the best move stored for a position is searched first the next time round, which
+ * makes the later iterations cut off much earlier.
+ * </p>
+ *
+ * <p>
+ * A search works on its own copy of the root position, making and unmaking moves in place with one move buffer per
+ * ply, so it never allocates while searching. One Search must only be used by one thread at a time, and
+ * {@link ParallelSearch} runs several of them on one shared table.
+ * </p>
+ *
+ * @author Yiming Huang
+ * @author Zihao Zheng
+ */
+public class Search {
+	/** The maximum depth of the search in plies */
+	public static final int MAX_PLY = 128;
+
+	/** The score of mating at the root. Mating in n plies scores MATE - n, and getting mated scores -MATE + n. */
+	public static final int MATE = 32000;
+
+	/** A score beyond every real score */
+	private static final int INFINITY = 32500;
+
+	/** Number of nodes between two checks of the time */
+	private static final int CHECK_INTERVAL = 1024;
+
+	/** Number of entries of the pawn hash table of each search */
+	private static final int PAWN_TABLE_ENTRIES = 16384;
+
+	/** The bound of the history scores */
+	private static final int MAX_HISTORY = 16384;
+
+	/** How many depths in a row a helper thread searches, then skips, see {@link #skipDepth(int, int)} */
+	private static final int[] SKIP_SIZE = { 1, 1, 2, 2, 2, 2, 3, 3, 3, 3, 3, 3, 4, 4, 4, 4, 4, 4, 4, 4 };
+
+	/** The offset of the searched and skipped depths of each helper thread */
+	private static final int[] SKIP_PHASE = { 0, 1, 0, 1, 2, 3, 0, 1, 2, 3, 4, 5, 0, 1, 2, 3, 4, 5, 6, 7 };
+
+	/** The table shared with other searches */
+	private final TranspositionTable table;
+
+	/** The position moves are made and unmade on */
+	private final Position position = new Position();
+
+	/** One move buffer per ply */
+	private final int[][] moves = new int[MAX_PLY][MoveGenerator.MAX_MOVES];
+
+	/** One move picker per ply */
+	private final MovePicker[] pickers = new MovePicker[MAX_PLY];
+
+	/** The quiet moves searched at each ply, which lose history when another move cuts off */
+	private final int[][] quietsSearched = new int[MAX_PLY][MoveGenerator.MAX_MOVES];
+
+	/** The two killer moves of each ply: the last quiet moves that cut off at that ply */
+	private final int[][] killers = new int[MAX_PLY][2];
+
+	/** The butterfly history of quiet moves, indexed by the side to move, then source, then destination square */
+	private final int[][][] history = new int[2][64][64];
+
+	/** The cache of pawn structures of this search */
+	private final PawnHashTable pawnTable = new PawnHashTable(PAWN_TABLE_ENTRIES);
+
+	/** The buffer of the static exchange evaluations */
+	private final int[] exchangeGains = new int[32];
+
+	/** The principal variation found below each ply */
+	private final int[][] pv = new int[MAX_PLY + 1][MAX_PLY + 1];
+
+	/** The length of the principal variation below each ply */
+	private final int[] pvLength = new int[MAX_PLY + 1];
+
+	/** Set to stop the search, possibly from another thread */
+	private volatile boolean stopped;
+
+	/** Number of nodes searched */
+	private long nodes;
+
+	/** The maximum number of nodes, or 0 */
+	private long nodeLimit;
+
+	/** The System.nanoTime() at which the search stops, or 0 */
+	private long deadline;
+
+	/** Told the result of every completed iteration of the main thread, or null */
+	private volatile Consumer<SearchResult> listener;
+
+	/**
+	 * Constructs a search
+	 * @param table the transposition table, which may be shared with other searches
+	 */
+	public Search(TranspositionTable table) {
+		this.table = table;
+		for (int ply = 0; ply < MAX_PLY; ply++) {
+			pickers[ply] = new MovePicker();
+		}
+	}
+
+	/**
+	 * Searches a position until a limit is reached or the search is stopped
+	 * @param root the position to search, which is not modified. The moves made to reach it are used to detect
+	 *            repetitions.
+	 * @param limits the limits of the search
+	 * @return the result of the deepest completed iteration
+	 */
+	public SearchResult search(Position root, SearchLimits limits) {
+		stopped = false;
+		table.newSearch();
+		return search(root, limits, 0);
+	}
+
+	/**
+	 * Searches a position as one of the threads of a {@link ParallelSearch}. The caller advances the age of the
+	 * table and clears the stop flag with {@link #restart()} before starting the thread, so that a stop coming
+	 * before the thread runs is not lost.
+	 * @param root the position to search, which is not modified
+	 * @param limits the limits of the search
+	 * @param helper 0 for the main thread, or the number of a helper thread
+	 * @return the result of the deepest completed iteration
+	 */
+	SearchResult search(Position root, SearchLimits limits, int helper) {
+		long start = System.nanoTime();
+		position.copyFrom(root);
+		nodes = 0;
+		nodeLimit = limits.getNodes();
+		deadline = limits.getMoveTime() > 0 ? start + limits.getMoveTime() * 1000000 : 0;
+		int maxDepth = limits.getDepth() > 0 ? Math.min(limits.getDepth(), MAX_PLY - 1) : MAX_PLY - 1;
+		// killers belong to the tree of one position, the history of the last search is still a fair guess
+		for (int ply = 0; ply < MAX_PLY; ply++) {
+			killers[ply][0] = Move.NONE;
+			killers[ply][1] = Move.NONE;
+		}
+		for (int[][] side : history) {
+			for (int[] from : side) {
+				for (int to = 0; to < 64; to++) {
+					from[to] /= 2;
+				}
+			}
+		}
+
+		SearchResult result = null;
+		for (int depth = 1; depth <= maxDepth; depth++) {
+			if (helper > 0 && skipDepth(depth, helper)) {
+				continue;
+			}
+			int score = alphaBeta(depth, -INFINITY, INFINITY, 0);
+			if (stopped) {
+				break;
+			}
+			long now = System.nanoTime();
+			int bestMove = pvLength[0] > 0 ? pv[0][0] : Move.NONE;
+			result = new SearchResult(bestMove, score, depth, nodes, (now - start) / 1000000,
+					Arrays.copyOf(pv[0], pvLength[0]));
+			Consumer<SearchResult> listener = this.listener;
+			if (helper == 0 && listener != null) {
+				listener.accept(result);
+			}
+			// a mate found within the depth will not change, and no move means nothing to search
+			if (bestMove == Move.NONE || Math.abs(score) >= MATE - depth) {
+				break;
+			}
+			// the next iteration takes longer than all the earlier ones together
+			if (deadline != 0 && now - start > (deadline - start) / 2) {
+				break;
+			}
+		}
+		if (result == null) {
+			// stopped before the first iteration finished: any legal move is better than none
+			int count = MoveGenerator.generateLegalMoves(position, moves[0]);
+			int move = count > 0 ? moves[0][0] : Move.NONE;
+			result = new SearchResult(move, 0, 0, nodes, (System.nanoTime() - start) / 1000000,
+					count > 0 ? new int[] { move } : new int[0]);
+		}
+		return result;
+	}
+
+	/**
+	 * Stops the search. Can be called from any thread.
+	 */
+	public void stop() {
+		stopped = true;
+	}
+
+	/**
+	 * Method for setting the listener told of every completed iteration, such as a front-end printing the progress.
+	 * The listener runs on the searching thread, between two iterations.
+	 * @param listener the listener, or null for none
+	 */
+	public void setListener(Consumer<SearchResult> listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Clears the stop flag before the search is started on another thread
+	 */
+	void restart() {
+		stopped = false;
+	}
+
+	/**
+	 * Method for getting the cache of pawn structures, for its hit rate
+	 * @return the pawn hash table of this search
+	 */
+	public PawnHashTable getPawnTable() {
+		return pawnTable;
+	}
+
+	/**
+	 * Method for getting the number of nodes searched so far
+	 * @return the number of nodes
+	 */
+	public long getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * Searches the current position with an alpha-beta window
+	 * @param depth the remaining depth
+	 * @param alpha the score the side to move is already sure of
+	 * @param beta the score the opponent is already sure of
+	 * @param ply the distance from the root
+	 * @return the score of the position, or 0 if the search was stopped
+	 */
+	private int alphaBeta(int depth, int alpha, int beta, int ply) {
+		if (depth <= 0) {
+			return quiescence(alpha, beta, ply);
+		}
+		pvLength[ply] = 0;
+		if (++nodes % CHECK_INTERVAL == 0) {
+			checkLimits();
+		}
+		if (stopped) {
+			return 0;
+		}
+		if (ply > 0 && (position.getHalfmoveClock() >= 100 || position.isRepetition())) {
+			return 0;
+		}
+		if (ply >= MAX_PLY - 1) {
+			return Evaluator.evaluate(position, pawnTable);
+		}
+
+		long key = position.getKey();
+		long entry = table.probe(key);
+		int tableMove = Move.NONE;
+		if (entry != 0L) {
+			tableMove = TranspositionTable.move(entry);
+			if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+				int score = scoreFromTable(TranspositionTable.score(entry), ply);
+				int bound = TranspositionTable.bound(entry);
+				if (bound == TranspositionTable.EXACT || (bound == TranspositionTable.LOWER && score >= beta)
+						|| (bound == TranspositionTable.UPPER && score <= alpha)) {
+					return score;
+				}
+			}
+		}
+
+		int[] buffer = moves[ply];
+		int count = MoveGenerator.generateLegalMoves(position, buffer);
+		if (count == 0) {
+			return MoveGenerator.isInCheck(position) ? -MATE + ply : 0;
+		}
+		int[][] sideHistory = history[position.getSideToMove()];
+		MovePicker picker = pickers[ply];
+		picker.init(position, buffer, count, tableMove, killers[ply][0], killers[ply][1], sideHistory);
+
+		int originalAlpha = alpha;
+		int bestScore = -INFINITY;
+		int bestMove = Move.NONE;
+		int quiets = 0;
+		for (int move = picker.next(); move != Move.NONE; move = picker.next()) {
+			boolean quiet = !picker.isTactical(move);
+			position.makeMove(move);
+			int score = -alphaBeta(depth - 1, -beta, -alpha, ply + 1);
+			position.unmakeMove(move);
+			if (stopped) {
+				return 0;
+			}
+			if (score > bestScore) {
+				bestScore = score;
+				bestMove = move;
+				if (score > alpha) {
+					alpha = score;
+					pv[ply][0] = move;
+					System.arraycopy(pv[ply + 1], 0, pv[ply], 1, pvLength[ply + 1]);
+					pvLength[ply] = pvLength[ply + 1] + 1;
+					if (score >= beta) {
+						if (quiet) {
+							updateQuietHistory(sideHistory, ply, depth, move, quiets);
+						}
+						break;
+					}
+				}
+			}
+			if (quiet) {
+				quietsSearched[ply][quiets++] = move;
+			}
+		}
+
+		int bound = bestScore >= beta ? TranspositionTable.LOWER
+				: bestScore > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+		table.store(key, bestMove, scoreToTable(bestScore, ply), depth, bound);
+		return bestScore;
+	}
+
+	/**
+	 * Searches only the captures and promotions of the current position, until the position is quiet, so that the
+	 * evaluation is never taken in the middle of an exchange. The side to move may also stand pat, keeping the
+	 * evaluation, since it does not have to capture. Captures that lose material by static exchange evaluation are
+	 * skipped. In check, every move is searched instead, and having no move is mate.
+	 * @param alpha the score the side to move is already sure of
+	 * @param beta the score the opponent is already sure of
+	 * @param ply the distance from the root
+	 * @return the score of the position, or 0 if the search was stopped
+	 */
+	private int quiescence(int alpha, int beta, int ply) {
+		pvLength[ply] = 0;
+		if (++nodes % CHECK_INTERVAL == 0) {
+			checkLimits();
+		}
+		if (stopped) {
+			return 0;
+		}
+		if (ply >= MAX_PLY - 1) {
+			return Evaluator.evaluate(position, pawnTable);
+		}
+
+		boolean inCheck = MoveGenerator.isInCheck(position);
+		int bestScore = -INFINITY;
+		int[] buffer = moves[ply];
+		int count;
+		if (inCheck) {
+			count = MoveGenerator.generateLegalMoves(position, buffer);
+			if (count == 0) {
+				return -MATE + ply;
+			}
+		} else {
+			bestScore = Evaluator.evaluate(position, pawnTable);
+			if (bestScore >= beta) {
+				return bestScore;
+			}
+			alpha = Math.max(alpha, bestScore);
+			count = MoveGenerator.generateLegalCaptures(position, buffer, 0);
+		}
+
+		MovePicker picker = pickers[ply];
+		picker.init(position, buffer, count, Move.NONE, Move.NONE, Move.NONE, history[position.getSideToMove()]);
+		for (int move = picker.next(); move != Move.NONE; move = picker.next()) {
+			if (!inCheck && StaticExchange.evaluate(position, move, exchangeGains) < 0) {
+				continue;
+			}
+			position.makeMove(move);
+			int score = -quiescence(-beta, -alpha, ply + 1);
+			position.unmakeMove(move);
+			if (stopped) {
+				return 0;
+			}
+			if (score > bestScore) {
+				bestScore = score;
+				if (score > alpha) {
+					alpha = score;
+					pv[ply][0] = move;
+					System.arraycopy(pv[ply + 1], 0, pv[ply], 1, pvLength[ply + 1]);
+					pvLength[ply] = pvLength[ply + 1] + 1;
+					if (score >= beta) {
+						break;
+					}
+				}
+			}
+		}
+		return bestScore;
+	}
+
+	/**
+	 * Rewards a quiet move that cut off: it becomes the first killer of the ply, and its history score rises while
+	 * the scores of the quiet moves searched before it fall, by more for deeper cutoffs
+	 * @param sideHistory the history scores of the side to move
+	 * @param ply the distance from the root
+	 * @param depth the remaining depth
+	 * @param move the move that cut off
+	 * @param quiets the number of quiet moves searched before it
+	 */
+	private void updateQuietHistory(int[][] sideHistory, int ply, int depth, int move, int quiets) {
+		if (killers[ply][0] != move) {
+			killers[ply][1] = killers[ply][0];
+			killers[ply][0] = move;
+		}
+		int bonus = Math.min(depth * depth, 400);
+		addHistory(sideHistory, move, bonus);
+		for (int i = 0; i < quiets; i++) {
+			addHistory(sideHistory, quietsSearched[ply][i], -bonus);
+		}
+	}
+
+	/**
+	 * Adds to the history score of a move. The score is pulled back towards 0 as it grows, so it stays between
+	 * -MAX_HISTORY and MAX_HISTORY and recent results weigh more than old ones.
+	 * @param sideHistory the history scores of the side to move
+	 * @param move the move
+	 * @param bonus the amount to add, negative to subtract
+	 */
+	private static void addHistory(int[][] sideHistory, int move, int bonus) {
+		int[] entry = sideHistory[Move.from(move)];
+		int to = Move.to(move);
+		entry[to] += bonus - entry[to] * Math.abs(bonus) / MAX_HISTORY;
+	}
+
+	/**
+	 * Checks if a helper thread skips a depth. Each helper searches and skips depths in a different pattern, so that
+	 * at any time the threads are spread over the current depth and the next ones instead of all searching the same
+	 * tree in the same order.
+	 * @param depth the depth
+	 * @param helper the number of the helper thread, from 1
+	 * @return true if the helper skips the depth
+	 */
+	private static boolean skipDepth(int depth, int helper) {
+		int i = (helper - 1) % SKIP_SIZE.length;
+		return ((depth + SKIP_PHASE[i]) / SKIP_SIZE[i]) % 2 != 0;
+	}
+
+	/**
+	 * Stops the search if the node limit or the deadline is reached
+	 */
+	private void checkLimits() {
+		if ((nodeLimit > 0 && nodes >= nodeLimit) || (deadline != 0 && System.nanoTime() >= deadline)) {
+			stopped = true;
+		}
+	}
+
+	/**
+	 * Converts a mate score from distance to the root into distance to the position, which is how the table stores
+	 * it, since the same position can be reached at different plies
+	 * @param score the score
+	 * @param ply the distance from the root
+	 * @return the score to store
+	 */
+	private static int scoreToTable(int score, int ply) {
+		if (score >= MATE - MAX_PLY) {
+			return score + ply;
+		}
+		return score <= -MATE + MAX_PLY ? score - ply : score;
+	}
+
+	/**
+	 * Converts a mate score read from the table back into distance to the root
+	 * @param score the stored score
+	 * @param ply the distance from the root
+	 * @return the score
+	 */
+	private static int scoreFromTable(int score, int ply) {
+		if (score >= MATE - MAX_PLY) {
+			return score - ply;
+		}
+		return score <= -MATE + MAX_PLY ? score + ply : score;
+	}
+}
@@ -0,0 +1,125 @@
+package Engine;
+
+/**
+ * The SearchLimits class tells a search when to stop: after a depth, after a number of nodes, or after some time,
+ * whichever comes first. A limit of 0 means no limit, but the depth is always capped at {@link Search#MAX_PLY}.
+ * The limits also give the number of threads a {@link ParallelSearch} searches with.
+ *
+ * @author Yiming Huang
+ * @author Zihao Zheng
+ */
+public class SearchLimits {
+	/** The maximum depth in plies, or 0 */
+	private int depth;
+
+	/** The maximum number of nodes, or 0 */
+	private long nodes;
+
+	/** The maximum time in milliseconds, or 0 */
+	private long moveTime;
+
+	/** Number of threads searching */
+	private int threads = 1;
+
+	/** True if the answer is held until the search is stopped */
+	private boolean infinite;
+
+	/**
+	 * Constructs limits that never stop the search, which then runs until it is stopped
+	 */
+	public SearchLimits() {
+	}
+
+	/**
+	 * Constructs limits with a maximum depth, number of nodes and time
+	 * @param depth the maximum depth in plies, or 0
+	 * @param nodes the maximum number of nodes, or 0
+	 * @param moveTime the maximum time in milliseconds, or 0
+	 */
+	public SearchLimits(int depth, long nodes, long moveTime) {
+		this.depth = depth;
+		this.nodes = nodes;
+		this.moveTime = moveTime;
+	}
+
+	/**
+	 * Method for getting the maximum depth
+	 * @return the maximum depth in plies, or 0
+	 */
+	public int getDepth() {
+		return depth;
+	}
+
+	/**
+	 * Method for setting the maximum depth
+	 * @param depth the maximum depth in plies, or 0
+	 */
+	public void setDepth(int depth) {
+		this.depth = depth;
+	}
+
+	/**
+	 * Method for getting the maximum number of nodes
+	 * @return the maximum number of nodes, or 0
+	 */
+	public long getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * Method for setting the maximum number of nodes
+	 * @param nodes the maximum number of nodes, or 0
+	 */
+	public void setNodes(long nodes) {
+		this.nodes = nodes;
+	}
+
+	/**
+	 * Method for getting the maximum time
+	 * @return the maximum time in milliseconds, or 0
+	 */
+	public long getMoveTime() {
+		return moveTime;
+	}
+
+	/**
+	 * Method for setting the maximum time
+	 * @param moveTime the maximum time in milliseconds, or 0
+	 */
+	public void setMoveTime(long moveTime) {
+		this.moveTime = moveTime;
+	}
+
+	/**
+	 * Method for getting the number of threads
+	 * @return the number of threads searching, at least 1
+	 */
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * Method for setting the number of threads
+	 * @param threads the number of threads searching, at least 1
+	 */
+	public void setThreads(int threads) {
+		this.threads = Math.max(1, threads);
+	}
+
+	/**
+	 * Method for checking if the search was asked to run until it is stopped. Such a search may still end by itself,
+	 * on a mate or at the maximum depth, so a front-end holds its answer until the stop comes.
+	 * @return true if the answer is held until the search is stopped
+	 */
+	public boolean isInfinite() {
+		return infinite;
+	}
+
+	/**
+	 * Method for setting if the search runs until it is stopped
+	 * @param infinite true if the answer is held until the search is stopped
+	 */
+	public void setInfinite(boolean infinite) {
+		this.infinite = infinite;
+	}
+}
@@ -0,0 +1,124 @@
+package Engine;
+
+import Model.Move;
+
+/**
+ * The SearchResult class holds the outcome of the deepest completed iteration of a search: the best move, its score,
+ * and the principal variation, which is the line both sides are expected to play.
+ *
+ * @author Yiming Huang
+ * @author Zihao Zheng
+ */
+public class SearchResult {
+	/** The best move, or Move.NONE if the side to move has no legal move */
+	private final int bestMove;
+
+	/** The score in centipawns from the side to move, see {@link Search#MATE} for mate scores */
+	private final int score;
+
+	/** The depth of the iteration the result comes from */
+	private final int depth;
+
+	/** Number of nodes searched */
+	private final long nodes;
+
+	/** The time the search took in milliseconds */
+	private final long time;
+
+	/** The principal variation, starting with the best move */
+	private final int[] pv;
+
+	/**
+	 * Constructs a search result
+	 * @param bestMove the best move, or Move.NONE
+	 * @param score the score in centipawns
+	 * @param depth the depth searched
+	 * @param nodes the number of nodes searched
+	 * @param time the time taken in milliseconds
+	 * @param pv the principal variation
+	 */
+	public SearchResult(int bestMove, int score, int depth, long nodes, long time, int[] pv) {
+		this.bestMove = bestMove;
+		this.score = score;
+		this.depth = depth;
+		this.nodes = nodes;
+		this.time = time;
+		this.pv = pv;
+	}
+
+	/**
+	 * Method for getting the best move
+	 * @return the best move, or Move.NONE if the side to move has no legal move
+	 */
+	public int getBestMove() {
+		return bestMove;
+	}
+
+	/**
+	 * Method for getting the score
+	 * @return the score in centipawns from the side to move
+	 */
+	public int getScore() {
+		return score;
+	}
+
+	/**
+	 * Method for getting the depth
+	 * @return the depth of the deepest completed iteration
+	 */
+	public int getDepth() {
+		return depth;
+	}
+
+	/**
+	 * Method for getting the number of nodes
+	 * @return the number of nodes searched
+	 */
+	public long getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * Method for getting the time
+	 * @return the time taken in milliseconds
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	/**
+	 * Method for getting the principal variation
+	 * @return the moves of the principal variation, starting with the best move
+	 */
+	public int[] getPv() {
+		return pv.clone();
+	}
+
+	/**
+	 * Checks if the score is a forced mate
+	 * @return true if one side mates within the principal variation
+	 */
+	public boolean isMate() {
+		return Math.abs(score) >= Search.MATE - Search.MAX_PLY;
+	}
+
+	/**
+	 * Method for getting the number of moves to mate
+	 * @return the number of full moves to mate, negative if the side to move gets mated
+	 */
+	public int getMateIn() {
+		return score > 0 ? (Search.MATE - score + 1) / 2 : -(Search.MATE + score) / 2;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder text = new StringBuilder();
+		text.append("depth ").append(depth);
+		text.append(isMate() ? " mate " + getMateIn() : " cp " + score);
+		text.append(" nodes ").append(nodes).append(" time ").append(time).append(" pv");
+		for (int move : pv) {
+			text.append(' ').append(Move.toString(move));
+		}
+		return text.toString();
+	}
+}
@@ -0,0 +1,124 @@
+package Engine;
+
+import Model.Move;
+import Model.MoveGenerator;
+import Model.Position;
+
+/**
+ * The StaticExchange class works out what a capture wins or loses once every recapture on its square has been
+ * played out (static exchange evaluation, SEE), without searching.
+ *
+ * <p>
+ * Both sides take turns recapturing on the square with their least valuable attacker, and each side may stop taking
+ * when going on would lose more. Pieces behind a capturing slider (x-rays) join in as the slider leaves. Pins and
+ * checks are ignored, except that a king never captures onto a square the other side still attacks.
+ * </p>
+ *
+ * <p>
+ * The search uses it to skip losing captures in its quiescence search, and it can be called on its own to ask
+ * whether a capture loses material.
+ * </p>
+ *
+ * @author Yiming Huang
+ * @author Zihao Zheng
+ */
+public final class StaticExchange {
+	/** The value of a king in an exchange, more than anything it could capture */
+	private static final int KING_VALUE = 20000;
+
+	/**
+	 * This class only has static methods
+	 */
+	private StaticExchange() {
+	}
+
+	/**
+	 * Evaluates the exchange started by a move
+	 * @param position the position, which is not modified
+	 * @param move a legal move of the side to move
+	 * @return the material the side to move wins in centipawns, negative if it loses material
+	 */
+	public static int evaluate(Position position, int move) {
+		return evaluate(position, move, new int[32]);
+	}
+
+	/**
+	 * Evaluates the exchange started by a move, using a buffer of the caller so that the search does not allocate
+	 * @param position the position, which is not modified
+	 * @param move a legal move of the side to move
+	 * @param gains a buffer of at least 32 entries
+	 * @return the material the side to move wins in centipawns, negative if it loses material
+	 */
+	static int evaluate(Position position, int move, int[] gains) {
+		int from = Move.from(move);
+		int to = Move.to(move);
+		int us = position.getSideToMove();
+		int captured = position.captured(move);
+		long occupied = position.occupancy() ^ (1L << from);
+		if (Move.flag(move) == Move.EN_PASSANT) {
+			occupied ^= 1L << (to + (us == Position.WHITE ? -8 : 8));
+		}
+
+		// gains[d] is what the side making capture d wins if the exchange stops after it
+		gains[0] = captured == Position.EMPTY ? 0 : value(Position.typeOf(captured));
+		int onSquare = value(position.typeAt(from));
+		if (Move.promotion(move) != 0) {
+			onSquare = value(Move.promotion(move));
+			gains[0] += onSquare - value(Position.PAWN);
+		}
+
+		long attackers = (MoveGenerator.attackers(position, to, Position.WHITE, occupied)
+				| MoveGenerator.attackers(position, to, Position.BLACK, occupied)) & occupied;
+		int side = 1 - us;
+		int depth = 0;
+		while (true) {
+			long own = attackers & position.occupancy(side);
+			if (own == 0L) {
+				break;
+			}
+			int type = Position.PAWN;
+			long attacker = 0L;
+			for (; type <= Position.KING; type++) {
+				attacker = own & position.pieces(side, type);
+				if (attacker != 0L) {
+					break;
+				}
+			}
+			if (type == Position.KING && (attackers & position.occupancy(1 - side)) != 0L) {
+				break;
+			}
+			depth++;
+			gains[depth] = onSquare - gains[depth - 1];
+			onSquare = value(type);
+			occupied ^= Long.lowestOneBit(attacker);
+			// sliders behind the piece that just captured can now see the square
+			attackers = (MoveGenerator.attackers(position, to, Position.WHITE, occupied)
+					| MoveGenerator.attackers(position, to, Position.BLACK, occupied)) & occupied;
+			side = 1 - side;
+		}
+		while (depth > 0) {
+			gains[depth - 1] = -Math.max(-gains[depth - 1], gains[depth]);
+			depth--;
+		}
+		return gains[0];
+	}
+
+	/**
+	 * Checks if a move loses material once every recapture has been played out
+	 * @param position the position, which is not modified
+	 * @param move a legal move of the side to move
+	 * @return true if the exchange started by the move loses material
+	 */
+	public static boolean losesMaterial(Position position, int move) {
+		return evaluate(position, move) < 0;
+	}
+
+	/**
+	 * Method for getting the value of a piece type in an exchange
+	 * @param type the piece type
+	 * @return the value in centipawns
+	 */
+	private static int value(int type) {
+		return type == Position.KING ? KING_VALUE : Evaluator.PIECE_VALUES[type];
+	}
+}
@@ -0,0 +1,270 @@
+package Engine;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The TranspositionTable class remembers the results of searched positions, keyed by their Zobrist key (see
+ * {@link Model.Position#getKey()}), so that a position reached again through another move order or another game is
+ * not searched twice.
+ *
+ * <p>
+ * The table is one long array shared by every search thread without locks. Each entry is two longs: the data (best
+ * move, score, depth, bound and age packed into one long) and the key exclusive or'ed with the data. A thread reading
+ * an entry accepts it only if the exclusive or of the two longs gives back its key, so an entry torn by two threads
+ * writing at once simply reads as a miss. Entries are grouped in buckets of four, laid out next to each other.
+ * </p>
+ *
+ * <p>
+ * When a bucket is full, the entry replaced is the one that is worth the least: shallow entries and entries left
+ * from older searches go first. {@link #newSearch()} advances the age at the start of every search.
+ * </p>
+ *
+ * @author Yiming Huang
+ * @author Zihao Zheng
+ */
+public final class TranspositionTable {
+	/** Bound of a score that is exact */
+	public static final int EXACT = 1;
+
+	/** Bound of a score that is at least the stored score, from a search that failed high */
+	public static final int LOWER = 2;
+
+	/** Bound of a score that is at most the stored score, from a search that failed low */
+	public static final int UPPER = 3;
+
+	/** Number of entries in a bucket */
+	private static final int BUCKET_SIZE = 4;
+
+	/** Number of bytes taken by an entry */
+	private static final int ENTRY_BYTES = 16;
+
+	/** Two longs per entry: the key exclusive or'ed with the data, then the data */
+	private long[] table;
+
+	/** The age of the current search, from 0 to 255, advanced by the thread starting a search and read by all */
+	private volatile int age;
+
+	/** Number of probes that found their position */
+	private final LongAdder hits = new LongAdder();
+
+	/** Number of probes that did not find their position */
+	private final LongAdder misses = new LongAdder();
+
+	/** Number of stores that replaced an entry of another position from the current search */
+	private final LongAdder collisions = new LongAdder();
+
+	/**
+	 * Constructs an empty table
+	 * @param megabytes the size of the table in megabytes, rounded down to a power of two
+	 */
+	public TranspositionTable(int megabytes) {
+		resize(megabytes);
+	}
+
+	/**
+	 * Replaces the table with an empty table of another size
+	 * @param megabytes the size of the table in megabytes, rounded down to a power of two
+	 * @throws IllegalArgumentException if the size is not between 1 and 65536 megabytes
+	 */
+	public void resize(int megabytes) {
+		if (megabytes < 1 || megabytes > 65536) {
+			throw new IllegalArgumentException("Invalid transposition table size: " + megabytes + " MB");
+		}
+		long buckets = Long.highestOneBit((long) megabytes * 1024 * 1024 / (ENTRY_BYTES * BUCKET_SIZE));
+		// a Java array holds fewer than 2^31 longs
+		buckets = Math.min(buckets, 1L << 27);
+		table = new long[(int) buckets * BUCKET_SIZE * 2];
+		clear();
+	}
+
+	/**
+	 * Removes every entry and resets the age and the counters
+	 */
+	public void clear() {
+		Arrays.fill(table, 0L);
+		age = 0;
+		hits.reset();
+		misses.reset();
+		collisions.reset();
+	}
+
+	/**
+	 * Advances the age, so that the entries of earlier searches are replaced first
+	 */
+	public void newSearch() {
+		age = (age + 1) & 255;
+	}
+
+	/**
+	 * Looks up a position
+	 * @param key the Zobrist key of the position
+	 * @return the data of the entry, to be read with {@link #move(long)}, {@link #score(long)},
+	 *         {@link #depth(long)} and {@link #bound(long)}, or 0 if the position is not in the table
+	 */
+	public long probe(long key) {
+		long[] entries = table;
+		int index = bucketIndex(key, entries);
+		for (int i = 0; i < BUCKET_SIZE; i++, index += 2) {
+			long data = entries[index + 1];
+			if (data != 0L && (entries[index] ^ data) == key) {
+				hits.increment();
+				return data;
+			}
+		}
+		misses.increment();
+		return 0L;
+	}
+
+	/**
+	 * Stores the result of a search. An entry of the same position is overwritten unless it is deeper and the new
+	 * score is not exact, and keeps its best move if the new result has none.
+	 * @param key the Zobrist key of the position
+	 * @param move the best move, or Move.NONE
+	 * @param score the score, between -32767 and 32767
+	 * @param depth the depth searched, between 0 and 255
+	 * @param bound EXACT, LOWER or UPPER
+	 */
+	public void store(long key, int move, int score, int depth, int bound) {
+		long[] entries = table;
+		int age = this.age;
+		int first = bucketIndex(key, entries);
+		int replace = first;
+		int worst = Integer.MAX_VALUE;
+		for (int i = 0, index = first; i < BUCKET_SIZE; i++, index += 2) {
+			long data = entries[index + 1];
+			if (data != 0L && (entries[index] ^ data) == key) {
+				if (depth < depth(data) && bound != EXACT && age(data) == age) {
+					return;
+				}
+				if (move == 0) {
+					move = move(data);
+				}
+				replace = index;
+				break;
+			}
+			// empty entries go first, and older entries lose 8 plies of depth for every search they are behind
+			int value = data == 0L ? Integer.MIN_VALUE : depth(data) - 8 * ((age - age(data)) & 255);
+			if (value < worst) {
+				replace = index;
+				worst = value;
+			}
+		}
+		long old = entries[replace + 1];
+		if (old != 0L && age(old) == age && (entries[replace] ^ old) != key) {
+			collisions.increment();
+		}
+		long data = (move & 0xFFFFFL) | ((long) (score & 0xFFFF) << 20) | ((long) depth << 36)
+				| ((long) bound << 44) | ((long) age << 46);
+		entries[replace] = key ^ data;
+		entries[replace + 1] = data;
+	}
+
+	/**
+	 * Method for getting the index of the first entry of the bucket of a key. The mask comes from the array passed
+	 * in, so a thread still holding the array from before a resize stays inside it.
+	 * @param key the key
+	 * @param entries the table
+	 * @return the index of the first long of the bucket
+	 */
+	private int bucketIndex(long key, long[] entries) {
+		// the low bits of the key pick the bucket, and the whole key is still checked
+		int buckets = entries.length / (BUCKET_SIZE * 2);
+		return ((int) key & (buckets - 1)) * BUCKET_SIZE * 2;
+	}
+
+	/**
+	 * Method for getting the best move of an entry
+	 * @param data the data of the entry
+	 * @return the best move, or Move.NONE
+	 */
+	public static int move(long data) {
+		return (int) (data & 0xFFFFF);
+	}
+
+	/**
+	 * Method for getting the score of an entry
+	 * @param data the data of the entry
+	 * @return the score
+	 */
+	public static int score(long data) {
+		return (short) (data >>> 20);
+	}
+
+	/**
+	 * Method for getting the depth of an entry
+	 * @param data the data of the entry
+	 * @return the depth searched
+	 */
+	public static int depth(long data) {
+		return (int) (data >>> 36) & 255;
+	}
+
+	/**
+	 * Method for getting the bound of an entry
+	 * @param data the data of the entry
+	 * @return EXACT, LOWER or UPPER
+	 */
+	public static int bound(long data) {
+		return (int) (data >>> 44) & 3;
+	}
+
+	/**
+	 * Method for getting the age of an entry
+	 * @param data the data of the entry
+	 * @return the age of the search that stored it
+	 */
+	private static int age(long data) {
+		return (int) (data >>> 46) & 255;
+	}
+
+	/**
+	 * Method for getting the size of the table
+	 * @return the number of entries
+	 */
+	public int getCapacity() {
+		return table.length / 2;
+	}
+
+	/**
+	 * Method for getting how full the table is, sampled from the first thousand entries
+	 * @return the number of entries of the current search per thousand entries
+	 */
+	public int getHashfull() {
+		long[] entries = table;
+		int age = this.age;
+		int sample = Math.min(1000, entries.length / 2);
+		int used = 0;
+		for (int i = 0; i < sample; i++) {
+			long data = entries[2 * i + 1];
+			if (data != 0L && age(data) == age) {
+				used++;
+			}
+		}
+		return used * 1000 / sample;
+	}
+
+	/**
+	 * Method for getting the number of probes that found their position
+	 * @return the number of hits since the last clear
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * Method for getting the number of probes that did not find their position
+	 * @return the number of misses since the last clear
+	 */
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * Method for getting the number of stores that replaced an entry of another position from the current search
+	 * @return the number of collisions since the last clear
+	 */
+	public long getCollisions() {
+		return collisions.sum();
+	}
+}
@@ -0,0 +1,317 @@
+package Model;
+
+/**
+ * The Attacks class holds the precomputed attack tables of the chess pieces, as bitboards of the squares a piece
+ * attacks from a square.
+ *
+ * <p>
+ * Rooks, bishops and queens use magic bitboards: for every square, the occupancy of the squares on its lines (the
+ * relevant occupancy) is multiplied by a magic number, and the top bits of the product index a table holding the
+ * attacks for that occupancy. The tables are filled once when the class is loaded, so a slider attack for any
+ * occupancy is a single mask, multiply, shift and lookup.
+ * </p>
+ *
+ * <p>
+ * Knights, kings and pawns (the leapers) do not depend on the occupancy, so their attacks are simply one 64-entry
+ * table per piece (and per color for pawns), built when the class is loaded.
+ * </p>
+ *
+ * @author Yiming Huang
+ * @author Zihao Zheng
+ */
+public final class Attacks {
+	/** Rank and file steps of a rook */
+	private static final int[][] ROOK_DIRECTIONS = { { 1, 0 }, { -1, 0 }, { 0, 1 }, { 0, -1 } };
+
+	/** Rank and file steps of a bishop */
+	private static final int[][] BISHOP_DIRECTIONS = { { 1, 1 }, { 1, -1 }, { -1, 1 }, { -1, -1 } };
+
+	/** Rank and file steps of a knight */
+	private static final int[][] KNIGHT_STEPS = { { 2, 1 }, { 2, -1 }, { -2, 1 }, { -2, -1 }, { 1, 2 }, { 1, -2 },
+			{ -1, 2 }, { -1, -2 } };
+
+	/** Rank and file steps of a king */
+	private static final int[][] KING_STEPS = { { 1, 0 }, { -1, 0 }, { 0, 1 }, { 0, -1 }, { 1, 1 }, { 1, -1 },
+			{ -1, 1 }, { -1, -1 } };
+
+	/** Rank and file steps of a white pawn capturing */
+	private static final int[][] WHITE_PAWN_STEPS = { { 1, 1 }, { 1, -1 } };
+
+	/** Rank and file steps of a black pawn capturing */
+	private static final int[][] BLACK_PAWN_STEPS = { { -1, 1 }, { -1, -1 } };
+
+	/** Attacks of a knight on each square */
+	private static final long[] KNIGHT_ATTACKS = new long[64];
+
+	/** Attacks of a king on each square */
+	private static final long[] KING_ATTACKS = new long[64];
+
+	/** Capture squares of a pawn of each color on each square */
+	private static final long[][] PAWN_ATTACKS = new long[2][64];
+
+	/** Relevant occupancy mask of a rook on each square */
+	private static final long[] ROOK_MASKS = new long[64];
+
+	/** Magic number of a rook on each square, found by a search over sparse random numbers */
+	private static final long[] ROOK_MAGICS = {
+			0x2080002080400010L, 0x00C0002001401000L, 0x2100110008402002L, 0x0880080081041000L,
+			0x0200020020041008L, 0x2300040008010012L, 0x0C00283004008201L, 0x0180010000407A80L,
+			0x0168800080400020L, 0x0010400040201000L, 0x1001002001001048L, 0x1001002408100100L,
+			0x0801000408010012L, 0x4001000209000400L, 0x08A20004C8020001L, 0x2002801145002280L,
+			0x0080860021004200L, 0x001000C009402002L, 0x00B0002004002800L, 0x100A808010020800L,
+			0x8101010008000410L, 0x0244008002000480L, 0x0000040010810208L, 0x2000020000448534L,
+			0x4104400480008033L, 0x0000810100204000L, 0x0440430900200010L, 0x4600240900100100L,
+			0x0060080080040080L, 0x0001000300080400L, 0x0004084400011002L, 0x0023040200008041L,
+			0x0580050043002080L, 0x0400804002802008L, 0x0001002001004010L, 0x1000200901001000L,
+			0x4410800801800C00L, 0xA012003806001004L, 0x0020100104008802L, 0x0004808402000041L,
+			0x0010400170898000L, 0x0080500020004004L, 0x1040408012020020L, 0x8010040008004040L,
+			0x2001080100110004L, 0x0000020004008080L, 0x0021010810040002L, 0x0800008C43020024L,
+			0x0000800021005100L, 0x0070201040008080L, 0x0000D04282006A00L, 0x0010014400080240L,
+			0x0001080110050100L, 0x0012000810240600L, 0x0402000801040200L, 0x028100108A004100L,
+			0x0050800300102045L, 0x8208210040120882L, 0x8010600101183441L, 0x020B000910006045L,
+			0x0241001002480005L, 0x0081000400880241L, 0x0000009008024124L, 0x0048122980410402L
+	};
+
+	/** Shift of the magic product of a rook on each square */
+	private static final int[] ROOK_SHIFTS = new int[64];
+
+	/** Offset of the attacks of a rook on each square in the rook table */
+	private static final int[] ROOK_OFFSETS = new int[64];
+
+	/** Attacks of rooks for every square and relevant occupancy */
+	private static final long[] ROOK_TABLE = new long[102400];
+
+	/** Relevant occupancy mask of a bishop on each square */
+	private static final long[] BISHOP_MASKS = new long[64];
+
+	/** Magic number of a bishop on each square, found by a search over sparse random numbers */
+	private static final long[] BISHOP_MAGICS = {
+			0x8008029802002200L, 0x4291040808802804L, 0x0008180040800300L, 0x00088A0202AA1050L,
+			0x000410A800000000L, 0x0009100804040009L, 0x0801140121080011L, 0xA040808400824000L,
+			0x000008A004040048L, 0x0600200440808114L, 0x2020410401204403L, 0x000404106200C001L,
+			0x0100011040800026L, 0x00080088200A0820L, 0x0008004804642080L, 0x4000004402981800L,
+			0x0710002220020088L, 0x2010808202020402L, 0x8010080844002820L, 0x800C000124028000L,
+			0x0002000422010040L, 0x6438402200422000L, 0x0010A1004C0C2000L, 0x000A00E109010190L,
+			0x08022010400414C0L, 0x8428022220240101L, 0x0008088004040010L, 0x0008080000220020L,
+			0x0421010000104000L, 0x219102082500A000L, 0x0018008042120150L, 0x02108020A09C0402L,
+			0x301C202000890208L, 0xA004022000080100L, 0x100C024100881200L, 0x8000080800460A00L,
+			0x1004010804440040L, 0x420C920080041000L, 0x05018C0114440100L, 0x00040100308A0080L,
+			0x0020821042801000L, 0x0202026120001C02L, 0x0002001044000800L, 0x20AA844200800801L,
+			0x0000012011001200L, 0x0860209008808042L, 0x0008100080A80200L, 0x0808020050420201L,
+			0x00051C0104C00000L, 0x0000840108820022L, 0x000A461842080004L, 0x2400400914880002L,
+			0x00040040102481B4L, 0x2104A14202020060L, 0x0004081041020060L, 0x00A0840082005100L,
+			0x0000412210101482L, 0x0108504208042210L, 0x000020044C040405L, 0x4140050206051401L,
+			0x0122008051820200L, 0x0082800428109100L, 0x9104042454440401L, 0x141E200C00820848L
+	};
+
+	/** Shift of the magic product of a bishop on each square */
+	private static final int[] BISHOP_SHIFTS = new int[64];
+
+	/** Offset of the attacks of a bishop on each square in the bishop table */
+	private static final int[] BISHOP_OFFSETS = new int[64];
+
+	/** Attacks of bishops for every square and relevant occupancy */
+	private static final long[] BISHOP_TABLE = new long[5248];
+
+	/** The squares strictly between two squares on a common rank, file or diagonal, indexed by both squares */
+	private static final long[][] BETWEEN = new long[64][64];
+
+	/** The whole line through two squares on a common rank, file or diagonal, indexed by both squares */
+	private static final long[][] LINE = new long[64][64];
+
+	static {
+		for (int square = 0; square < 64; square++) {
+			KNIGHT_ATTACKS[square] = leaperAttacks(square, KNIGHT_STEPS);
+			KING_ATTACKS[square] = leaperAttacks(square, KING_STEPS);
+			PAWN_ATTACKS[Position.WHITE][square] = leaperAttacks(square, WHITE_PAWN_STEPS);
+			PAWN_ATTACKS[Position.BLACK][square] = leaperAttacks(square, BLACK_PAWN_STEPS);
+		}
+		initMagics(ROOK_DIRECTIONS, ROOK_MASKS, ROOK_MAGICS, ROOK_SHIFTS, ROOK_OFFSETS, ROOK_TABLE);
+		initMagics(BISHOP_DIRECTIONS, BISHOP_MASKS, BISHOP_MAGICS, BISHOP_SHIFTS, BISHOP_OFFSETS, BISHOP_TABLE);
+		for (int from = 0; from < 64; from++) {
+			for (int to = 0; to < 64; to++) {
+				long ends = (1L << from) | (1L << to);
+				if (from == to) {
+					continue;
+				}
+				if ((rookAttacks(from, 0L) & (1L << to)) != 0) {
+					BETWEEN[from][to] = rookAttacks(from, 1L << to) & rookAttacks(to, 1L << from);
+					LINE[from][to] = (rookAttacks(from, 0L) & rookAttacks(to, 0L)) | ends;
+				} else if ((bishopAttacks(from, 0L) & (1L << to)) != 0) {
+					BETWEEN[from][to] = bishopAttacks(from, 1L << to) & bishopAttacks(to, 1L << from);
+					LINE[from][to] = (bishopAttacks(from, 0L) & bishopAttacks(to, 0L)) | ends;
+				}
+			}
+		}
+	}
+
+	/**
+	 * This class only has static methods
+	 */
+	private Attacks() {
+	}
+
+	/**
+	 * Method for getting the squares attacked by a knight
+	 * @param square the square of the knight
+	 * @return the attacked squares
+	 */
+	public static long knightAttacks(int square) {
+		return KNIGHT_ATTACKS[square];
+	}
+
+	/**
+	 * Method for getting the squares attacked by a king
+	 * @param square the square of the king
+	 * @return the attacked squares, which are the squares the king can step to
+	 */
+	public static long kingAttacks(int square) {
+		return KING_ATTACKS[square];
+	}
+
+	/**
+	 * Method for getting the squares attacked by a pawn, which are the squares it can capture on
+	 * @param color the color of the pawn
+	 * @param square the square of the pawn
+	 * @return the attacked squares
+	 */
+	public static long pawnAttacks(int color, int square) {
+		return PAWN_ATTACKS[color][square];
+	}
+
+	/**
+	 * Method for getting the squares attacked by a rook
+	 * @param square the square of the rook
+	 * @param occupied the occupancy of the board
+	 * @return the attacked squares, up to and including the first blocker in each direction
+	 */
+	public static long rookAttacks(int square, long occupied) {
+		int index = (int) (((occupied & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square]);
+		return ROOK_TABLE[ROOK_OFFSETS[square] + index];
+	}
+
+	/**
+	 * Method for getting the squares attacked by a bishop
+	 * @param square the square of the bishop
+	 * @param occupied the occupancy of the board
+	 * @return the attacked squares, up to and including the first blocker in each direction
+	 */
+	public static long bishopAttacks(int square, long occupied) {
+		int index = (int) (((occupied & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square]);
+		return BISHOP_TABLE[BISHOP_OFFSETS[square] + index];
+	}
+
+	/**
+	 * Method for getting the squares attacked by a queen
+	 * @param square the square of the queen
+	 * @param occupied the occupancy of the board
+	 * @return the union of the rook and bishop attacks from the square
+	 */
+	public static long queenAttacks(int square, long occupied) {
+		return rookAttacks(square, occupied) | bishopAttacks(square, occupied);
+	}
+
+	/**
+	 * Method for getting the squares between two squares, which a piece has to block to stop a slider on one of them
+	 * from reaching the other
+	 * @param from the first square
+	 * @param to the second square
+	 * @return the squares strictly between them, or 0 if they are not on a common rank, file or diagonal
+	 */
+	public static long between(int from, int to) {
+		return BETWEEN[from][to];
+	}
+
+	/**
+	 * Method for getting the line through two squares, which a piece pinned on one of them to a king on the other
+	 * can still move along
+	 * @param from the first square
+	 * @param to the second square
+	 * @return the rank, file or diagonal through both squares, from edge to edge, or 0 if there is none
+	 */
+	public static long line(int from, int to) {
+		return LINE[from][to];
+	}
+
+	/**
+	 * Computes the attacks of a leaper from its steps. This is only used to fill the tables.
+	 * @param square the square of the leaper
+	 * @param steps the rank and file steps of the leaper
+	 * @return the attacked squares
+	 */
+	private static long leaperAttacks(int square, int[][] steps) {
+		long attacks = 0L;
+		int rank = square >>> 3;
+		int file = square & 7;
+		for (int[] step : steps) {
+			int r = rank + step[0];
+			int f = file + step[1];
+			if (r >= 0 && r <= 7 && f >= 0 && f <= 7) {
+				attacks |= 1L << (r * 8 + f);
+			}
+		}
+		return attacks;
+	}
+
+	/**
+	 * Computes the attacks of a slider by walking its rays square by square. This is only used to fill the tables.
+	 * @param square the square of the slider
+	 * @param occupied the occupancy of the board
+	 * @param directions the rank and file steps of the slider
+	 * @param edges if true, the last square of each ray is left out, which gives the relevant occupancy mask
+	 * @return the attacked squares
+	 */
+	private static long slidingAttacks(int square, long occupied, int[][] directions, boolean edges) {
+		long attacks = 0L;
+		int rank = square >>> 3;
+		int file = square & 7;
+		for (int[] direction : directions) {
+			int r = rank + direction[0];
+			int f = file + direction[1];
+			while (r >= 0 && r <= 7 && f >= 0 && f <= 7) {
+				if (edges && (r + direction[0] < 0 || r + direction[0] > 7 || f + direction[1] < 0
+						|| f + direction[1] > 7)) {
+					break;
+				}
+				long bit = 1L << (r * 8 + f);
+				attacks |= bit;
+				if ((occupied & bit) != 0) {
+					break;
+				}
+				r += direction[0];
+				f += direction[1];
+			}
+		}
+		return attacks;
+	}
+
+	/**
+	 * Fills the attack table of a slider: for every square, every subset of the relevant occupancy mask is
+	 * enumerated (Carry-Rippler) and its attacks are stored at the index given by the magic number of the square.
+	 * @param directions the rank and file steps of the slider
+	 * @param masks the relevant occupancy masks to fill
+	 * @param magics the magic numbers of the slider
+	 * @param shifts the shifts to fill
+	 * @param offsets the table offsets to fill
+	 * @param table the attack table to fill
+	 */
+	private static void initMagics(int[][] directions, long[] masks, long[] magics, int[] shifts, int[] offsets,
+			long[] table) {
+		int offset = 0;
+		for (int square = 0; square < 64; square++) {
+			long mask = slidingAttacks(square, 0L, directions, true);
+			int bits = Long.bitCount(mask);
+			masks[square] = mask;
+			shifts[square] = 64 - bits;
+			offsets[square] = offset;
+
+			long subset = 0L;
+			do {
+				int index = (int) ((subset * magics[square]) >>> shifts[square]);
+				table[offset + index] = slidingAttacks(square, subset, directions, false);
+				subset = (subset - mask) & mask;
+			} while (subset != 0L);
+			offset += 1 << bits;
+		}
+	}
+}
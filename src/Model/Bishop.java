@@ -23,98 +23,34 @@ public class Bishop extends ChessPiece {
     
     /**
      * Checks if the bishop can move to the specified position on the chess board.
+     * @param state the game the bishop is on
      * @param newRow The row of the destination position.
      * @param newCol The column of the destination position.
      * @return true if the bishop can move to the specified position, false otherwise.
      */
     @Override
-    public boolean isValidMove(int newRow, int newCol) {
-        int curRow = getRow()-1;
-        int curCol = getColumn()-1;
-        
-        if(newRow == curRow && newCol == curCol) {
-        	// cannot eat itself
-    		return false;
-    	}
-
-        // Check if bishop is moving diagonally
-        if (Math.abs(newRow - curRow) != Math.abs(newCol - curCol)) {
-//        	System.out.println("false1");
-            return false;
-        }
-
-        // Check if there are any pieces in the way
-        int rowDir = newRow > curRow ? 1 : -1;
-        int colDir = newCol > curCol ? 1 : -1;
-        int i = curRow + rowDir;
-        int j = curCol + colDir;
-        while (i != newRow && j != newCol) {
-            if (i>=0&&i<=7&&j>=0&&j<=7&&board[i][j] != null) {
-//            	System.out.println("false2");
-                return false;
-            }
-            i += rowDir;
-            j += colDir;
-        }
-
-        // Check if destination is occupied by an enemy piece
-        if (board[newRow][newCol] != null && !board[newRow][newCol].getColor().equals(getColor())) {
-            return true;
-        }
-
-        // If there's no piece in the destination or if it's occupied by a piece of the same color, return true
-        if(board[newRow][newCol] !=null) {
-//        	System.out.println("false3");
-        }
-        return board[newRow][newCol] == null;
+    public boolean isValidMove(GameState state, int newRow, int newCol) {
+        return isValidMove(state, getRow()-1, getColumn()-1, newRow, newCol);
     }
 
     
     /**
     Determines if a move is valid for a bishop piece.
+    @param state the game the bishop is on
     @param fromRow the current row position of the bishop
     @param fromCol the current column position of the bishop
     @param newRow the row position the bishop is attempting to move to
     @param newCol the column position the bishop is attempting to move to
     @return true if the move is valid, false otherwise
     */
-    public boolean isValidMove(int fromRow, int fromCol, int newRow, int newCol) {
-        int curRow = fromRow;
-        int curCol = fromCol;
-        if(newRow == curRow && newCol == curCol) {
-        	// cannot eat itself
+    public boolean isValidMove(GameState state, int fromRow, int fromCol, int newRow, int newCol) {
+    	Position position = state.getPosition();
+    	if(!Position.onBoard(fromRow, fromCol) || !Position.onBoard(newRow, newCol)) {
     		return false;
     	}
-        // Check if bishop is moving diagonally
-        if (Math.abs(newRow - curRow) != Math.abs(newCol - curCol)) {
-//        	System.out.println("false1");
-            return false;
-        }
-
-        // Check if there are any pieces in the way
-        int rowDir = newRow > curRow ? 1 : -1;
-        int colDir = newCol > curCol ? 1 : -1;
-        int i = curRow + rowDir;
-        int j = curCol + colDir;
-        while (i != newRow && j != newCol) {
-            if (board[i][j] != null) {
-//            	System.out.println("false2");
-                return false;
-            }
-            i += rowDir;
-            j += colDir;
-        }
-
-        // Check if destination is occupied by an enemy piece
-        if (board[newRow][newCol] != null && !board[newRow][newCol].getColor().equals(getColor())) {
-            return true;
-        }
-
-        // If there's no piece in the destination or if it's occupied by a piece of the same color, return true
-        if(board[newRow][newCol] !=null) {
-//        	System.out.println("false3");
-        }
-        return board[newRow][newCol] == null;
+        // the destination must be attacked along an unblocked diagonal, and must not hold a piece of the same color
+        long attacks = Attacks.bishopAttacks(Position.square(fromRow, fromCol), position.occupancy());
+        return (attacks & ~position.occupancy(getSide()) & (1L << Position.square(newRow, newCol))) != 0;
     }
     
     /**
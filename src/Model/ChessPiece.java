@@ -3,7 +3,10 @@ package Model;
  * A abstract class / base for the chess pieces
  *
  * <p>
- * This class stores information such as the piece color, row, column, and a static reference to the board.
+ * This class stores information such as the piece color, row and column.
+ * The pieces are views over the bitboard {@link Position} of a {@link GameState}, which is the authoritative state of
+ * the game: the rule checks of the subclasses take the game as a parameter and read the occupancy of the squares from
+ * its position instead of the board array, so a piece holds no reference to any game.
  * </p>
  *
  * <p>
@@ -19,6 +22,11 @@ public abstract class ChessPiece {
 	 * */
     private String color;
     
+    /**
+     * Color of the piece as a color index of the position
+     * */
+    private int side;
+    
     /**
      *row of the piece on the board
      * */
@@ -29,11 +37,6 @@ public abstract class ChessPiece {
      * */
     private int column;
     
-    /**
-     * static reference to the field
-     * */
-    public static ChessPiece[][] board;
-
     /**
      * The constructor of chess piece
      * @param color the color of the chess piece
@@ -42,6 +45,7 @@ public abstract class ChessPiece {
      */
     public ChessPiece(String color, int row, int column) {
         this.color = color;
+        this.side = Position.color(color);
         this.row = row;
         this.column = column;
     }
@@ -54,6 +58,14 @@ public abstract class ChessPiece {
         return color;
     }
 
+    /**
+     * Method for getting the color of the piece as a color index of the position
+     * @return Position.WHITE or Position.BLACK
+     * */
+    public int getSide() {
+        return side;
+    }
+
     /**
      * Method for getting the row of the piece
      * @return the row of the piece
@@ -87,21 +99,23 @@ public abstract class ChessPiece {
     
     /**
      * Checks if the given move is valid
+     * @param state the game the piece is on
      * @param rowthe destination row
      * @param column the destination column
      * @return true or false
      * */
-    public abstract boolean isValidMove(int row, int column);
+    public abstract boolean isValidMove(GameState state, int row, int column);
     
     /**
      * Checks if the given move is valid
+     * @param state the game the piece is on
      * @param fromRow the source row
      * @param fromCol the source column
      * @param toRow the destination row
      * @param toColumn the destination column
      * @return true or false
      * */
-    public abstract boolean isValidMove(int fromRow, int fromCol,int toRow, int toColumn);
+    public abstract boolean isValidMove(GameState state, int fromRow, int fromCol,int toRow, int toColumn);
     
     /**
      * determine if the piece has moved
@@ -0,0 +1,284 @@
+package Model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The GameArchive class reads a binary archive of games written by {@link GameArchiveWriter}, mapped into memory so
+ * that millions of games can be scanned without parsing text or allocating per game.
+ *
+ * <p>
+ * The archive starts with a header of {@link #HEADER_SIZE} bytes: the magic number, the version, the number of games,
+ * the offset of the index and the total number of moves. The games follow, each one as the number of its moves (16
+ * bits), its result (8 bits), the length of its FEN record (8 bits, 0 for the starting position), the FEN record, and
+ * its moves. Every move takes 16 bits, as packed by {@link Move#toCompact(int)}: the source square, the destination
+ * square and the promotion. The index at the end gives the offset of every game (64 bits each), so any game can be
+ * read directly. All numbers are little-endian.
+ * </p>
+ *
+ * <p>
+ * The games are mapped in regions of up to {@link #REGION_SIZE} bytes, each one starting at a game, so archives
+ * larger than one mapping can hold are read the same way. The mappings are only read, so one archive can be read by
+ * many threads at once.
+ * </p>
+ *
+ * @author Yiming Huang
+ * @author Zihao Zheng
+ */
+public class GameArchive implements AutoCloseable {
+	/** The magic number the archive starts with, "CGA1" */
+	public static final int MAGIC = 0x31414743;
+
+	/** The version of the format */
+	public static final int VERSION = 1;
+
+	/** The size of the header in bytes */
+	public static final int HEADER_SIZE = 32;
+
+	/** The largest region of games mapped at once */
+	static final long REGION_SIZE = 1L << 30;
+
+	/** The results as stored in the archive, indexed by their code */
+	private static final String[] RESULTS = { PgnGame.UNKNOWN, PgnGame.WHITE_WINS, PgnGame.BLACK_WINS, PgnGame.DRAW };
+
+	/** The number of games */
+	private final int gameCount;
+
+	/** The total number of moves */
+	private final long moveCount;
+
+	/** The mapped index */
+	private final ByteBuffer index;
+
+	/** The mapped regions of games */
+	private final ByteBuffer[] regions;
+
+	/** The offset in the file of each region */
+	private final long[] regionStarts;
+
+	/** The first game of each region */
+	private final int[] regionFirstGames;
+
+	/**
+	 * Opens an archive and maps it into memory
+	 * @param path the archive
+	 * @throws IOException if the file cannot be read or is not an archive
+	 */
+	public GameArchive(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size < HEADER_SIZE) {
+				throw new IOException(path + " is not a game archive");
+			}
+			ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE)
+					.order(ByteOrder.LITTLE_ENDIAN);
+			if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+				throw new IOException(path + " is not a game archive of version " + VERSION);
+			}
+			long games = header.getLong(8);
+			long indexOffset = header.getLong(16);
+			moveCount = header.getLong(24);
+			if (games < 0 || games * 8 > Integer.MAX_VALUE || indexOffset < HEADER_SIZE
+					|| indexOffset + games * 8 > size) {
+				throw new IOException(path + " has an invalid header");
+			}
+			gameCount = (int) games;
+			index = channel.map(FileChannel.MapMode.READ_ONLY, indexOffset, games * 8).order(ByteOrder.LITTLE_ENDIAN);
+
+			List<ByteBuffer> mapped = new ArrayList<>();
+			List<long[]> starts = new ArrayList<>();
+			long start = HEADER_SIZE;
+			int first = 0;
+			for (int game = 0; game < gameCount; game++) {
+				long end = game + 1 < gameCount ? index.getLong((game + 1) * 8) : indexOffset;
+				if (end - start > REGION_SIZE) {
+					long cut = index.getLong(game * 8);
+					mapped.add(channel.map(FileChannel.MapMode.READ_ONLY, start, cut - start));
+					starts.add(new long[] { start, first });
+					start = cut;
+					first = game;
+				}
+			}
+			mapped.add(channel.map(FileChannel.MapMode.READ_ONLY, start, indexOffset - start));
+			starts.add(new long[] { start, first });
+			regions = new ByteBuffer[mapped.size()];
+			regionStarts = new long[mapped.size()];
+			regionFirstGames = new int[mapped.size()];
+			for (int i = 0; i < regions.length; i++) {
+				regions[i] = mapped.get(i).order(ByteOrder.LITTLE_ENDIAN);
+				regionStarts[i] = starts.get(i)[0];
+				regionFirstGames[i] = (int) starts.get(i)[1];
+			}
+		}
+	}
+
+	/**
+	 * Method for getting the code a result is stored as
+	 * @param result WHITE_WINS, BLACK_WINS, DRAW or UNKNOWN of PgnGame
+	 * @return the code of the result
+	 */
+	static int resultCode(String result) {
+		for (int code = 1; code < RESULTS.length; code++) {
+			if (RESULTS[code].equals(result)) {
+				return code;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Method for getting the number of games
+	 * @return the number of games in the archive
+	 */
+	public int getGameCount() {
+		return gameCount;
+	}
+
+	/**
+	 * Method for getting the total number of moves
+	 * @return the number of moves of all the games
+	 */
+	public long getTotalMoves() {
+		return moveCount;
+	}
+
+	/**
+	 * Method for getting the number of moves of a game
+	 * @param game the index of the game, 0 for the first game
+	 * @return the number of moves
+	 */
+	public int getMoveCount(int game) {
+		int region = region(game);
+		return regions[region].getShort(offset(game, region)) & 0xFFFF;
+	}
+
+	/**
+	 * Method for getting the result of a game
+	 * @param game the index of the game
+	 * @return WHITE_WINS, BLACK_WINS, DRAW or UNKNOWN of PgnGame
+	 */
+	public String getResult(int game) {
+		int region = region(game);
+		return RESULTS[regions[region].get(offset(game, region) + 2) & 3];
+	}
+
+	/**
+	 * Method for getting the FEN record of the position a game starts from
+	 * @param game the index of the game
+	 * @return the FEN record, or null if the game starts from the starting position
+	 */
+	public String getFen(int game) {
+		int region = region(game);
+		ByteBuffer buffer = regions[region];
+		int offset = offset(game, region);
+		int length = buffer.get(offset + 3) & 0xFF;
+		if (length == 0) {
+			return null;
+		}
+		byte[] fen = new byte[length];
+		buffer.get(offset + 4, fen);
+		return new String(fen, StandardCharsets.ISO_8859_1);
+	}
+
+	/**
+	 * Sets a position up at the start of a game, reading its FEN record in place
+	 * @param game the index of the game
+	 * @param position the position to set up
+	 */
+	public void setUp(int game, Position position) {
+		int region = region(game);
+		ByteBuffer buffer = regions[region];
+		int offset = offset(game, region);
+		int length = buffer.get(offset + 3) & 0xFF;
+		if (length == 0) {
+			position.setStartPosition();
+		} else {
+			position.setFen(buffer, offset + 4, offset + 4 + length);
+		}
+	}
+
+	/**
+	 * Method for getting a move of a game, packed in 16 bits
+	 * @param game the index of the game
+	 * @param ply the index of the move, 0 for the first move
+	 * @return the move as packed by Move.toCompact, to be unpacked with Move.fromCompact in the position it is
+	 *         played in
+	 */
+	public int getMove(int game, int ply) {
+		int region = region(game);
+		ByteBuffer buffer = regions[region];
+		int offset = offset(game, region);
+		int count = buffer.getShort(offset) & 0xFFFF;
+		if (ply < 0 || ply >= count) {
+			throw new IndexOutOfBoundsException("move " + ply + " of " + count);
+		}
+		return buffer.getShort(offset + 4 + (buffer.get(offset + 3) & 0xFF) + ply * 2) & 0xFFFF;
+	}
+
+	/**
+	 * Copies the moves of a game, packed in 16 bits, into a buffer
+	 * @param game the index of the game
+	 * @param moves the buffer, which must hold at least getMoveCount(game) moves
+	 * @return the number of moves
+	 */
+	public int getMoves(int game, int[] moves) {
+		int region = region(game);
+		ByteBuffer buffer = regions[region];
+		int offset = offset(game, region);
+		int count = buffer.getShort(offset) & 0xFFFF;
+		int position = offset + 4 + (buffer.get(offset + 3) & 0xFF);
+		for (int i = 0; i < count; i++) {
+			moves[i] = buffer.getShort(position + i * 2) & 0xFFFF;
+		}
+		return count;
+	}
+
+	/**
+	 * Method for getting the region holding a game
+	 * @param game the index of the game
+	 * @return the index of the region
+	 */
+	private int region(int game) {
+		if (game < 0 || game >= gameCount) {
+			throw new IndexOutOfBoundsException("game " + game + " of " + gameCount);
+		}
+		int low = 0;
+		int high = regions.length - 1;
+		while (low < high) {
+			int middle = (low + high + 1) >>> 1;
+			if (regionFirstGames[middle] <= game) {
+				low = middle;
+			} else {
+				high = middle - 1;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Method for getting the offset of a game in its region
+	 * @param game the index of the game
+	 * @param region the index of its region
+	 * @return the offset of the game in the mapped region
+	 */
+	private int offset(int game, int region) {
+		return (int) (index.getLong(game * 8) - regionStarts[region]);
+	}
+
+	/**
+	 * Releases the archive. The mappings are freed once they are no longer referenced.
+	 */
+	@Override
+	public void close() {
+		for (int i = 0; i < regions.length; i++) {
+			regions[i] = null;
+		}
+	}
+}
@@ -0,0 +1,155 @@
+package Model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * The GameArchiveWriter class writes games into a binary archive, in the format described by {@link GameArchive}.
+ *
+ * <p>
+ * The games are written through a file channel from one direct buffer, and the offset of every game is kept for the
+ * index. Closing the writer writes the index after the games and then the header at the start of the file, so an
+ * archive whose writer was not closed is not mistaken for a complete one.
+ * </p>
+ *
+ * @author Yiming Huang
+ * @author Zihao Zheng
+ */
+public class GameArchiveWriter implements AutoCloseable {
+	/** Size of the buffer the games are written from */
+	private static final int BUFFER_SIZE = 1 << 20;
+
+	/** The most moves a game can have, since the count is stored in 16 bits */
+	public static final int MAX_MOVES = 0xFFFF;
+
+	/** The channel of the archive */
+	private final FileChannel channel;
+
+	/** The buffer of the bytes not written yet */
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+	/** The offset of every game */
+	private long[] offsets = new long[1024];
+
+	/** Number of games written */
+	private int gameCount;
+
+	/** Total number of moves written */
+	private long moveCount;
+
+	/** The offset the next game is written at */
+	private long offset = GameArchive.HEADER_SIZE;
+
+	/**
+	 * Creates an archive, replacing the file if it exists
+	 * @param path the archive
+	 * @throws IOException if the file cannot be created
+	 */
+	public GameArchiveWriter(Path path) throws IOException {
+		channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.WRITE);
+		channel.position(GameArchive.HEADER_SIZE);
+	}
+
+	/**
+	 * Adds a game: its starting position, its moves and its result
+	 * @param game the game, whose moves must all be legal
+	 * @throws IOException if the archive cannot be written
+	 * @throws IllegalArgumentException if the game has more than MAX_MOVES moves or its FEN record is longer than
+	 *         255 characters
+	 */
+	public void add(PgnGame game) throws IOException {
+		String fen = game.getFen();
+		byte[] fenBytes = fen == null ? null : fen.getBytes(StandardCharsets.ISO_8859_1);
+		int fenLength = fenBytes == null ? 0 : fenBytes.length;
+		int count = game.getMoveCount();
+		if (count > MAX_MOVES || fenLength > 255) {
+			throw new IllegalArgumentException("game " + game.getNumber() + " cannot be archived: " + count
+					+ " moves, FEN of " + fenLength + " characters");
+		}
+		int size = 4 + fenLength + count * 2;
+		if (buffer.remaining() < size) {
+			flush();
+		}
+		if (gameCount == offsets.length) {
+			offsets = Arrays.copyOf(offsets, gameCount * 2);
+		}
+		offsets[gameCount++] = offset;
+		buffer.putShort((short) count);
+		buffer.put((byte) GameArchive.resultCode(game.getResult()));
+		buffer.put((byte) fenLength);
+		if (fenBytes != null) {
+			buffer.put(fenBytes);
+		}
+		for (int i = 0; i < count; i++) {
+			buffer.putShort((short) Move.toCompact(game.getMove(i)));
+		}
+		offset += size;
+		moveCount += count;
+	}
+
+	/**
+	 * Method for getting the number of games written
+	 * @return the number of games
+	 */
+	public int getGameCount() {
+		return gameCount;
+	}
+
+	/**
+	 * Method for getting the number of bytes written so far
+	 * @return the size of the archive without its index
+	 */
+	public long getSize() {
+		return offset;
+	}
+
+	/**
+	 * Writes the bytes of the buffer to the channel
+	 * @throws IOException if the archive cannot be written
+	 */
+	private void flush() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Writes the index and the header, and closes the archive
+	 * @throws IOException if the archive cannot be written
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			long indexOffset = offset;
+			for (int game = 0; game < gameCount; game++) {
+				if (buffer.remaining() < 8) {
+					flush();
+				}
+				buffer.putLong(offsets[game]);
+			}
+			flush();
+			buffer.putInt(GameArchive.MAGIC);
+			buffer.putInt(GameArchive.VERSION);
+			buffer.putLong(gameCount);
+			buffer.putLong(indexOffset);
+			buffer.putLong(moveCount);
+			buffer.flip();
+			long position = 0;
+			while (buffer.hasRemaining()) {
+				position += channel.write(buffer, position);
+			}
+			buffer.clear();
+		} finally {
+			channel.close();
+		}
+	}
+}
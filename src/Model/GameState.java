@@ -0,0 +1,349 @@
+package Model;
+
+import java.util.Arrays;
+
+/**
+ * The GameState class holds everything about one game of chess: the bitboard {@link Position} (with the side to move,
+ * the castling rights and the en passant square), the board array of pieces viewing it, the moves played so far, and
+ * whether the game has ended.
+ *
+ * <p>
+ * The pieces and the rule checks take the game they work on as a parameter instead of reading shared static fields,
+ * so one program can hold any number of games at once, each touched by one thread at a time.
+ * </p>
+ *
+ * @author Yiming Huang
+ * @author Zihao Zheng
+ */
+public final class GameState {
+	/** The position of the game, which is the authoritative state */
+	private final Position position = new Position();
+
+	/** The board array of pieces viewing the position, indexed by row (0 is rank 8) then column */
+	private final ChessPiece[][] board = new ChessPiece[8][8];
+
+	/** The moves played since the game was set up, see {@link Move} for the encoding */
+	private int[] history = new int[256];
+
+	/** Number of moves in the history */
+	private int historyCount;
+
+	/** Whether the game has ended */
+	private boolean gameEnd;
+
+	/**
+	 * Constructs a game with the pieces in their starting positions
+	 */
+	public GameState() {
+		setStartPosition();
+	}
+
+	/**
+	 * Constructs a game starting from the position described by a FEN record
+	 * @param fen the FEN record
+	 * @throws IllegalArgumentException if the record cannot be read
+	 */
+	public GameState(String fen) {
+		setFen(fen);
+	}
+
+	/**
+	 * Sets the pieces up in their starting positions and starts a new game
+	 */
+	public void setStartPosition() {
+		position.setStartPosition();
+		reset();
+	}
+
+	/**
+	 * Sets up the position described by a FEN record, such as
+	 * "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1", and starts a new game from it
+	 * @param fen the FEN record
+	 * @throws IllegalArgumentException if the record cannot be read
+	 */
+	public void setFen(CharSequence fen) {
+		position.setFen(fen);
+		reset();
+	}
+
+	/**
+	 * Makes this game a copy of another one. The pieces of the board array stay separate objects, but a piece that
+	 * matches the piece of the other game on its square is reused instead of created again.
+	 * @param other the game to copy
+	 */
+	public void copyFrom(GameState other) {
+		position.copyFrom(other.position);
+		if (history.length < other.historyCount) {
+			history = new int[other.history.length];
+		}
+		System.arraycopy(other.history, 0, history, 0, other.historyCount);
+		historyCount = other.historyCount;
+		gameEnd = other.gameEnd;
+		for (int row = 0; row < 8; row++) {
+			for (int col = 0; col < 8; col++) {
+				ChessPiece piece = other.board[row][col];
+				ChessPiece current = board[row][col];
+				if (piece == null) {
+					board[row][col] = null;
+					continue;
+				}
+				if (current == null || current.getClass() != piece.getClass() || current.getSide() != piece.getSide()) {
+					current = createPiece(position.pieceAt(Position.square(row, col)), row + 1, col + 1);
+					board[row][col] = current;
+				}
+				current.setPosition(row + 1, col + 1);
+				current.setHasMoved(piece.hasMoved());
+			}
+		}
+	}
+
+	/**
+	 * Creates the pieces of the board array from the position, and clears the history
+	 */
+	private void reset() {
+		for (int row = 0; row < 8; row++) {
+			for (int col = 0; col < 8; col++) {
+				int piece = position.pieceAt(Position.square(row, col));
+				board[row][col] = piece == Position.EMPTY ? null : createPiece(piece, row + 1, col + 1);
+			}
+		}
+		historyCount = 0;
+		gameEnd = false;
+	}
+
+	/**
+	 * Creates the chess piece viewing a piece of the position
+	 * @param piece the piece of the position, as returned by Position.piece
+	 * @param row the row of the piece (between 1 and 8)
+	 * @param column the column of the piece (between 1 and 8)
+	 * @return the chess piece
+	 */
+	private static ChessPiece createPiece(int piece, int row, int column) {
+		String color = Position.colorName(Position.colorOf(piece));
+		switch (Position.typeOf(piece)) {
+		case Position.PAWN:
+			return new Pawn(color, row, column);
+		case Position.KNIGHT:
+			return new Knight(color, row, column);
+		case Position.BISHOP:
+			return new Bishop(color, row, column);
+		case Position.ROOK:
+			return new Rook(color, row, column);
+		case Position.QUEEN:
+			return new Queen(color, row, column);
+		default:
+			return new King(color, row, column);
+		}
+	}
+
+	/**
+	 * Method for getting the position of the game
+	 * @return the position, which moves must be made through {@link #move(int, int, int, int, int)} to keep the
+	 *         board array in step
+	 */
+	public Position getPosition() {
+		return position;
+	}
+
+	/**
+	 * Method for getting the board array of the game
+	 * @return the pieces, indexed by row (0 is rank 8) then column, with null for an empty square
+	 */
+	public ChessPiece[][] getBoard() {
+		return board;
+	}
+
+	/**
+	 * Method for getting the piece on a square of the board array
+	 * @param row the row (0 is rank 8)
+	 * @param column the column (0 is file a)
+	 * @return the piece, or null if the square is empty
+	 */
+	public ChessPiece getPiece(int row, int column) {
+		return board[row][column];
+	}
+
+	/**
+	 * Method for getting the side to move
+	 * @return Position.WHITE or Position.BLACK
+	 */
+	public int getSideToMove() {
+		return position.getSideToMove();
+	}
+
+	/**
+	 * Checks if it is white to move
+	 * @return true if white moves next
+	 */
+	public boolean isWhiteMove() {
+		return position.getSideToMove() == Position.WHITE;
+	}
+
+	/**
+	 * Method for getting the castling rights
+	 * @return the castling rights, as a combination of the castling flags of Position
+	 */
+	public int getCastlingRights() {
+		return position.getCastlingRights();
+	}
+
+	/**
+	 * Method for getting the en passant square
+	 * @return the square a pawn can capture en passant on, or Position.EMPTY
+	 */
+	public int getEnPassantSquare() {
+		return position.getEnPassantSquare();
+	}
+
+	/**
+	 * Method for getting the FEN record of the current position
+	 * @return the FEN record, with all six fields
+	 */
+	public String getFen() {
+		return position.toFen();
+	}
+
+	/**
+	 * Creates the move of the position for a move between two squares of the board array, marking double pawn
+	 * pushes, en passant captures and castling
+	 * @param fromRow the row index of the starting square (0-7)
+	 * @param fromColumn the column index of the starting square (0-7)
+	 * @param toRow the row index of the ending square (0-7)
+	 * @param toColumn the column index of the ending square (0-7)
+	 * @param promotion the piece type the pawn promotes to, or 0
+	 * @return the move, as encoded by Move
+	 */
+	public int createMove(int fromRow, int fromColumn, int toRow, int toColumn, int promotion) {
+		int from = Position.square(fromRow, fromColumn);
+		int to = Position.square(toRow, toColumn);
+		int type = position.typeAt(from);
+		int flag = Move.NORMAL;
+		if (type == Position.PAWN && to == position.getEnPassantSquare()) {
+			flag = Move.EN_PASSANT;
+		} else if (type == Position.PAWN && Math.abs(toRow - fromRow) == 2) {
+			flag = Move.DOUBLE_PUSH;
+		} else if (type == Position.KING && Math.abs(toColumn - fromColumn) == 2) {
+			flag = Move.CASTLING;
+		}
+		return Move.create(from, to, promotion, flag);
+	}
+
+	/**
+	 * Checks if a move that the piece on its source square can make by its own rules is legal, see
+	 * {@link MoveGenerator#isLegalMove(Position, int)}
+	 * @param move the move
+	 * @return true if the move does not leave the king in check
+	 */
+	public boolean isLegalMove(int move) {
+		return MoveGenerator.isLegalMove(position, move);
+	}
+
+	/**
+	 * Moves a piece between two squares of the board array, promoting it if it is a pawn reaching the last row. The
+	 * move is made in place on the position with Position.makeMove and added to the history, and the pieces of the
+	 * board array follow it without being recreated: a king moving two columns also moves its rook (castling), and a
+	 * pawn moving onto the en passant square captures the pawn beside it. Only a promotion creates a new piece, since
+	 * the piece changes its type.
+	 * @param fromRow the row index of the starting square (0-7)
+	 * @param fromColumn the column index of the starting square (0-7)
+	 * @param toRow the row index of the ending square (0-7)
+	 * @param toColumn the column index of the ending square (0-7)
+	 * @param promotion the piece type the pawn promotes to, or 0
+	 */
+	public void move(int fromRow, int fromColumn, int toRow, int toColumn, int promotion) {
+		int move = createMove(fromRow, fromColumn, toRow, toColumn, promotion);
+		position.makeMove(move);
+		if (historyCount == history.length) {
+			history = Arrays.copyOf(history, history.length * 2);
+		}
+		history[historyCount++] = move;
+
+		if (Move.flag(move) == Move.EN_PASSANT) {
+			// the captured pawn stands beside the starting square
+			board[fromRow][toColumn] = null;
+		} else if (Move.flag(move) == Move.CASTLING) {
+			// move the rook to the other side of the king
+			int rookFrom = toColumn == 6 ? 7 : 0;
+			int rookTo = toColumn == 6 ? 5 : 3;
+			board[toRow][rookTo] = board[toRow][rookFrom];
+			board[toRow][rookFrom] = null;
+			board[toRow][rookTo].setPosition(toRow + 1, rookTo + 1);
+			board[toRow][rookTo].setHasMoved(true);
+		}
+		board[toRow][toColumn] = board[fromRow][fromColumn];
+		board[fromRow][fromColumn] = null;
+		board[toRow][toColumn].setPosition(toRow + 1, toColumn + 1);
+		board[toRow][toColumn].setHasMoved(true);
+		if (promotion != 0) {
+			board[toRow][toColumn] = createPiece(position.pieceAt(Move.to(move)), toRow + 1, toColumn + 1);
+		}
+	}
+
+	/**
+	 * Turns the pawn on a square into another piece of the same color, without making a move
+	 * @param row the row of the pawn (0-7)
+	 * @param column the column of the pawn (0-7)
+	 * @param type the piece type to turn the pawn into
+	 */
+	public void promote(int row, int column, int type) {
+		ChessPiece pawn = board[row][column];
+		int square = Position.square(row, column);
+		int piece = Position.piece(pawn.getSide(), type);
+		position.remove(square);
+		position.put(square, piece);
+		board[row][column] = createPiece(piece, pawn.getRow(), pawn.getColumn());
+	}
+
+	/**
+	 * Checks if the king of a color is in check
+	 * @param color Position.WHITE or Position.BLACK
+	 * @return true if the king is attacked
+	 */
+	public boolean isInCheck(int color) {
+		return position.isInCheck(color);
+	}
+
+	/**
+	 * Method for getting the status of the game for the side to move
+	 * @return ONGOING, CHECKMATE or STALEMATE
+	 */
+	public GameStatus getStatus() {
+		return MoveGenerator.status(position);
+	}
+
+	/**
+	 * Method for getting the number of moves played since the game was set up
+	 * @return the number of moves
+	 */
+	public int getMoveCount() {
+		return historyCount;
+	}
+
+	/**
+	 * Method for getting a move of the history
+	 * @param index the index of the move, 0 for the first move played
+	 * @return the move, as encoded by Move
+	 */
+	public int getMove(int index) {
+		if (index < 0 || index >= historyCount) {
+			throw new IndexOutOfBoundsException("move " + index + " of " + historyCount);
+		}
+		return history[index];
+	}
+
+	/**
+	 * Checks if the game has ended
+	 * @return true after a checkmate, a stalemate, a resignation or an agreed draw
+	 */
+	public boolean isGameEnd() {
+		return gameEnd;
+	}
+
+	/**
+	 * Method for setting whether the game has ended
+	 * @param gameEnd true if the game has ended
+	 */
+	public void setGameEnd(boolean gameEnd) {
+		this.gameEnd = gameEnd;
+	}
+}
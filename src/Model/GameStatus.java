@@ -0,0 +1,18 @@
+package Model;
+
+/**
+ * The GameStatus enum tells whether the side to move can still play, see {@link MoveGenerator#status(Position)}.
+ *
+ * @author Yiming Huang
+ * @author Zihao Zheng
+ */
+public enum GameStatus {
+	/** The side to move has at least one legal move */
+	ONGOING,
+
+	/** The side to move is in check and has no legal move, so it lost */
+	CHECKMATE,
+
+	/** The side to move is not in check and has no legal move, so the game is drawn */
+	STALEMATE
+}
@@ -19,139 +19,81 @@ public class King extends ChessPiece {
 
     /**
     Checks if a move is valid for a chess piece.
+    @param state the game the king is on
     @param newRow the row index of the piece's intended new position
     @param newColumn the column index of the piece's intended new position
     @return true if the move is valid, false otherwise
     */
     @Override
-    public boolean isValidMove(int newRow, int newColumn) {
-    	if(newRow==-1||newColumn==-1) {
-    		return false;
-    	}
-    	if(newRow == (getRow()-1) && newColumn == (getColumn()-1)) {
-        	// cannot eat itself
-    		return false;
-    	}
-
-        // check if new position is out of board bounds
-        if (newRow < 0 || newRow > 7 || newColumn < 0 || newColumn > 7) {
-            return false;
-        }
-
-        // check if the new position is not occupied by a friendly piece
-        if (board[newRow][newColumn] != null && board[newRow][newColumn].getColor().equals(getColor())) {
-            return false;
-        }
-
-        // calculate the absolute distance between the current and new positions
-        int rowDiff = Math.abs(newRow - (getRow()-1));
-        int colDiff = Math.abs(newColumn - (getColumn()-1));
-
-        // check if the new position is only one square away in any direction
-        if (rowDiff <= 1 && colDiff <= 1) {
-            return true;
-        }
-        
-        
-        // castling
-        if (rowDiff == 0 && colDiff == 2) {
-            // check if the king has already moved
-            if (hasMoved()) {
-                return false;
-            }
-
-            // check if there is a rook in the correct position
-            if (newColumn == 2 && board[newRow][0] instanceof Rook && !board[newRow][0].hasMoved()) {
-                // check if the squares between the king and the rook are empty
-                if (board[newRow][1] == null && board[newRow][2] == null && board[newRow][3] == null) {
-                    // move the rook to the left of the king
-                    board[newRow][3] = board[newRow][0];
-                    board[newRow][0] = null;
-                    board[newRow][3].setHasMoved(true);
-                    return true;
-                }
-            } else if (newColumn == 6 && board[newRow][7] instanceof Rook && !board[newRow][7].hasMoved()) {
-                // check if the squares between the king and the rook are empty
-                if (board[newRow][5] == null && board[newRow][6] == null) {
-                    // move the rook to the right of the king
-                    board[newRow][5] = board[newRow][7];
-                    board[newRow][7] = null;
-                    board[newRow][5].setHasMoved(true);
-                    return true;
-                }
-            }
-        }
-
-        return false;
+    public boolean isValidMove(GameState state, int newRow, int newColumn) {
+        return isValidMove(state, getRow()-1, getColumn()-1, newRow, newColumn);
     }
     
     
     /**
     Checks if a move is valid for a chess piece.
+    @param state the game the king is on
     @param fromRow the row index of the piece's current position
     @param fromCol the column index of the piece's current position
     @param newRow the row index of the piece's intended new position
     @param newColumn the column index of the piece's intended new position
     @return true if the move is valid, false otherwise
     */
-    public boolean isValidMove(int fromRow,int fromCol,int newRow, int newColumn) {
+    public boolean isValidMove(GameState state, int fromRow, int fromCol, int newRow, int newColumn) {
+    	Position position = state.getPosition();
     	if(newRow == fromRow && newColumn == fromCol) {
         	// cannot eat itself
     		return false;
     	}
-    	if(fromRow==-1 || fromCol==-1 || newRow==-1||newColumn==-1) {
-    		return false;
-    	}
-        // check if new position is out of board bounds
-        if (newRow < 0 || newRow > 7 || newColumn < 0 || newColumn > 7) {
+        // check if either position is out of board bounds
+        if (!Position.onBoard(fromRow, fromCol) || !Position.onBoard(newRow, newColumn)) {
             return false;
         }
 
-        // check if the new position is not occupied by a friendly piece
-        if (board[newRow][newColumn] != null && board[newRow][newColumn].getColor().equals(getColor())) {
-            return false;
-        }
-
-        // calculate the absolute distance between the current and new positions
-        int rowDiff = Math.abs(newRow - fromRow);
-        int colDiff = Math.abs(newColumn -fromCol);
-
-        // check if the new position is only one square away in any direction
-        if (rowDiff <= 1 && colDiff <= 1) {
-            return true;
+        // check if the new position is only one square away in any direction, and not occupied by a friendly piece
+        long target = 1L << Position.square(newRow, newColumn);
+        if ((Attacks.kingAttacks(Position.square(fromRow, fromCol)) & target) != 0) {
+            return (position.occupancy(getSide()) & target) == 0;
         }
         
         // check if the new position is 2 squares away in left or right (castling)
-        if (rowDiff == 0 && colDiff == 2) {
-            // check if the king has already moved
-            if (hasMoved()) {
-                return false;
-            }
-
-            // check if there is a rook in the correct position
-            if (newColumn == 2 && board[newRow][0] instanceof Rook && !board[newRow][0].hasMoved()) {
-                // check if the squares between the king and the rook are empty
-                if (board[newRow][1] == null && board[newRow][2] == null && board[newRow][3] == null) {
-                    // move the rook to the left of the king
-                    board[newRow][3] = board[newRow][0];
-                    board[newRow][0] = null;
-                    board[newRow][3].setHasMoved(true);
-                    return true;
-                }
-            } else if (newColumn == 6 && board[newRow][7] instanceof Rook && !board[newRow][7].hasMoved()) {
-                // check if the squares between the king and the rook are empty
-                if (board[newRow][5] == null && board[newRow][6] == null) {
-                    // move the rook to the right of the king
-                    board[newRow][5] = board[newRow][7];
-                    board[newRow][7] = null;
-                    board[newRow][5].setHasMoved(true);
-                    return true;
-                }
-            }
+        if (newRow == fromRow && Math.abs(newColumn - fromCol) == 2) {
+            return canCastle(position, fromRow, fromCol, newColumn);
         }
 
         return false;
     }
+    
+    
+    /**
+    Checks if the king can castle towards a column. The castling right of that side must still be held by the
+    position (neither the king nor that rook has moved), the rook must stand in its corner, and the squares between
+    the king and the rook must be empty. Moving the rook is left to the move itself.
+    @param position the position of the game
+    @param fromRow the row index of the king
+    @param fromCol the column index of the king
+    @param newColumn the column the king moves to, 2 for the queen side and 6 for the king side
+    @return true if castling is allowed, false otherwise
+    */
+    private boolean canCastle(Position position, int fromRow, int fromCol, int newColumn) {
+        int homeRow = getSide() == Position.WHITE ? 7 : 0;
+        if (fromRow != homeRow || fromCol != 4) {
+            return false;
+        }
+        int rook = Position.piece(getSide(), Position.ROOK);
+        int rights = position.getCastlingRights();
+        if (newColumn == 6) {
+            int right = getSide() == Position.WHITE ? Position.WHITE_KINGSIDE : Position.BLACK_KINGSIDE;
+            return (rights & right) != 0 && position.pieceAt(Position.square(homeRow, 7)) == rook
+                    && position.isEmpty(Position.square(homeRow, 5)) && position.isEmpty(Position.square(homeRow, 6));
+        } else if (newColumn == 2) {
+            int right = getSide() == Position.WHITE ? Position.WHITE_QUEENSIDE : Position.BLACK_QUEENSIDE;
+            return (rights & right) != 0 && position.pieceAt(Position.square(homeRow, 0)) == rook
+                    && position.isEmpty(Position.square(homeRow, 1)) && position.isEmpty(Position.square(homeRow, 2))
+                    && position.isEmpty(Position.square(homeRow, 3));
+        }
+        return false;
+    }
 	
     
     /**
@@ -21,58 +21,35 @@ public class Knight extends ChessPiece {
     /**
      * Checks if the given position is a valid move for the knight from its current position.
      * 
+     * @param state the game the knight is on
      * @param newRow the row of the position to move to
      * @param newColumn the column of the position to move to
      * @return true if the move is valid, false otherwise
      */
     @Override
-    public boolean isValidMove(int newRow, int newColumn) {
-        int currentRow = getRow()-1;
-        int currentColumn = getColumn()-1;
-        if(newRow == currentRow && newColumn == currentColumn) {
-        	// cannot eat itself
-    		return false;
-    	}
-        
-        int rowDiff = Math.abs(newRow - currentRow);
-        int colDiff = Math.abs(newColumn - currentColumn);
-        if ((rowDiff == 2 && colDiff == 1) || (rowDiff == 1 && colDiff == 2)) {
-            ChessPiece newPiece = board[newRow][newColumn];
-            if (newPiece == null || newPiece.getColor() != getColor()) {
-                return true;
-            }
-        }
-        return false;
+    public boolean isValidMove(GameState state, int newRow, int newColumn) {
+        return isValidMove(state, getRow()-1, getColumn()-1, newRow, newColumn);
     }
 
     
     /**
      * Checks if the given move is a valid move for the knight from the given starting position.
      * 
+     * @param state the game the knight is on
      * @param fromRow the starting row of the knight
      * @param fromCol the starting column of the knight
      * @param newRow the row of the position to move to
      * @param newColumn the column of the position to move to
      * @return true if the move is valid, false otherwise
      */
-    public boolean isValidMove(int fromRow,int fromCol,int newRow, int newColumn) {
-        int currentRow = fromRow;
-        int currentColumn = fromCol;
-        if(newRow == currentRow && newColumn == currentColumn) {
-        	// cannot eat itself
+    public boolean isValidMove(GameState state, int fromRow, int fromCol, int newRow, int newColumn) {
+    	Position position = state.getPosition();
+    	if(!Position.onBoard(fromRow, fromCol) || !Position.onBoard(newRow, newColumn)) {
     		return false;
     	}
-        
-        
-        int rowDiff = Math.abs(newRow - currentRow);
-        int colDiff = Math.abs(newColumn - currentColumn);
-        if ((rowDiff == 2 && colDiff == 1) || (rowDiff == 1 && colDiff == 2)) {
-            ChessPiece newPiece = board[newRow][newColumn];
-            if (newPiece == null || newPiece.getColor() != getColor()) {
-                return true;
-            }
-        }
-        return false;
+        // the destination must be a knight jump away, and must not hold a piece of the same color
+        long attacks = Attacks.knightAttacks(Position.square(fromRow, fromCol));
+        return (attacks & ~position.occupancy(getSide()) & (1L << Position.square(newRow, newColumn))) != 0;
     }
 
     
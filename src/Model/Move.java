@@ -0,0 +1,162 @@
+package Model;
+
+/**
+ * The Move class packs a chess move into a single int, so that move lists are plain int arrays and generating
+ * moves never allocates.
+ *
+ * <p>
+ * Bits 0-5 hold the source square, bits 6-11 the destination square, bits 12-14 the piece type a pawn promotes to
+ * (0 when the move is not a promotion, since a pawn cannot promote to a pawn), and bits 15-16 mark the special
+ * moves: double pawn pushes, en passant captures and castling. The value 0 (a1 to a1) is never a move and is used as
+ * "no move".
+ * </p>
+ *
+ * @author Yiming Huang
+ * @author Zihao Zheng
+ */
+public final class Move {
+	/** Marks "no move" */
+	public static final int NONE = 0;
+
+	/** Flag of an ordinary move */
+	public static final int NORMAL = 0;
+
+	/** Flag of a pawn moving two squares forward */
+	public static final int DOUBLE_PUSH = 1;
+
+	/** Flag of an en passant capture */
+	public static final int EN_PASSANT = 2;
+
+	/** Flag of castling, encoded as the king moving two squares */
+	public static final int CASTLING = 3;
+
+	/** The bits of a move that {@link #toCompact(int)} keeps: the squares and the promotion */
+	private static final int COMPACT_MASK = 0x7FFF;
+
+	/** Letters of the piece types a pawn can promote to, indexed by piece type */
+	private static final String PROMOTION_LETTERS = " nbrq";
+
+	/**
+	 * This class only has static methods
+	 */
+	private Move() {
+	}
+
+	/**
+	 * Creates an ordinary move
+	 * @param from the source square
+	 * @param to the destination square
+	 * @return the move
+	 */
+	public static int create(int from, int to) {
+		return from | (to << 6);
+	}
+
+	/**
+	 * Creates a move
+	 * @param from the source square
+	 * @param to the destination square
+	 * @param promotion the piece type the pawn promotes to, or 0
+	 * @param flag NORMAL, DOUBLE_PUSH, EN_PASSANT or CASTLING
+	 * @return the move
+	 */
+	public static int create(int from, int to, int promotion, int flag) {
+		return from | (to << 6) | (promotion << 12) | (flag << 15);
+	}
+
+	/**
+	 * Method for getting the source square of a move
+	 * @param move the move
+	 * @return the source square
+	 */
+	public static int from(int move) {
+		return move & 63;
+	}
+
+	/**
+	 * Method for getting the destination square of a move
+	 * @param move the move
+	 * @return the destination square
+	 */
+	public static int to(int move) {
+		return (move >>> 6) & 63;
+	}
+
+	/**
+	 * Method for getting the piece type a move promotes to
+	 * @param move the move
+	 * @return the piece type, or 0 if the move is not a promotion
+	 */
+	public static int promotion(int move) {
+		return (move >>> 12) & 7;
+	}
+
+	/**
+	 * Method for getting the special move flag of a move
+	 * @param move the move
+	 * @return NORMAL, DOUBLE_PUSH, EN_PASSANT or CASTLING
+	 */
+	public static int flag(int move) {
+		return (move >>> 15) & 3;
+	}
+
+	/**
+	 * Packs a move into 16 bits by dropping its special move flag, which the position the move is played in tells
+	 * again, see {@link #fromCompact(Position, int)}
+	 * @param move the move
+	 * @return the source square, destination square and promotion of the move, in bits 0-14
+	 */
+	public static int toCompact(int move) {
+		return move & COMPACT_MASK;
+	}
+
+	/**
+	 * Unpacks a move packed by {@link #toCompact(int)}, adding the special move flag from the piece it moves: a pawn
+	 * moving two ranks is a double push, a pawn moving onto the en passant square captures en passant, and a king
+	 * moving two files castles
+	 * @param position the position the move is played in
+	 * @param compact the packed move
+	 * @return the move
+	 */
+	public static int fromCompact(Position position, int compact) {
+		int from = compact & 63;
+		int to = (compact >>> 6) & 63;
+		int type = position.typeAt(from);
+		int flag = NORMAL;
+		if (type == Position.PAWN) {
+			if (to == position.getEnPassantSquare()) {
+				flag = EN_PASSANT;
+			} else if (Math.abs(to - from) == 16) {
+				flag = DOUBLE_PUSH;
+			}
+		} else if (type == Position.KING && Math.abs(to - from) == 2) {
+			flag = CASTLING;
+		}
+		return (compact & COMPACT_MASK) | (flag << 15);
+	}
+
+	/**
+	 * Method for getting the name of a square in algebraic notation
+	 * @param square the square
+	 * @return the name of the square, such as "e4"
+	 */
+	public static String squareName(int square) {
+		return "" + (char) ('a' + (square & 7)) + (char) ('1' + (square >>> 3));
+	}
+
+	/**
+	 * Converts a move into coordinate notation, such as "e2e4" or "e7e8q"
+	 * @param move the move
+	 * @return the move in coordinate notation, or "0000" for no move
+	 */
+	public static String toString(int move) {
+		if (move == NONE) {
+			return "0000";
+		}
+		String text = squareName(from(move)) + squareName(to(move));
+		if (promotion(move) != 0) {
+			text += PROMOTION_LETTERS.charAt(promotion(move));
+		}
+		return text;
+	}
+}
@@ -0,0 +1,216 @@
+package Model;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The MoveFileReader class reads the game of a move file in the format of runner2, such as ex1.txt: one move per
+ * line written as two squares ("e2 e4"), optionally followed by the letter of the piece a pawn promotes to or by
+ * "draw?", or a line "resign". Blank lines are skipped.
+ *
+ * <p>
+ * The game follows the rules of runner2: a pawn reaching the last rank becomes a queen unless a letter is given, a
+ * promotion letter is only accepted on a pawn reaching the last rank, a third word after a move of another piece is
+ * ignored, a draw offer ends the game as a draw once its move is made, "resign" ends it for the side to move, and a
+ * checkmate or a stalemate ends it. The lines are parsed in place in the bytes of the file, and every move is matched against
+ * the legal moves of the position, so the moves of the {@link PgnGame} filled are legal. The first line that is not a
+ * legal move is recorded as the error of the game, and the lines after it are not read.
+ * </p>
+ *
+ * @author Yiming Huang
+ * @author Zihao Zheng
+ */
+public class MoveFileReader {
+	/** The position the moves are played on */
+	private final Position position = new Position();
+
+	/** The legal moves of the position, a line is looked up in */
+	private final int[] legalMoves = new int[MoveGenerator.MAX_MOVES];
+
+	/**
+	 * Reads the game of a move file
+	 * @param path the move file
+	 * @param game the game to fill, whose earlier content is cleared
+	 * @throws IOException if the file cannot be read
+	 */
+	public void read(Path path, PgnGame game) throws IOException {
+		byte[] text = Files.readAllBytes(path);
+		read(text, text.length, game);
+	}
+
+	/**
+	 * Reads the game of the content of a move file
+	 * @param text the content of the file
+	 * @param length the number of bytes of the content
+	 * @param game the game to fill, whose earlier content is cleared
+	 */
+	public void read(byte[] text, int length, PgnGame game) {
+		game.clear(1);
+		position.setStartPosition();
+		int line = 0;
+		for (int start = 0; start < length;) {
+			int end = start;
+			while (end < length && text[end] != '\n') {
+				end++;
+			}
+			line++;
+			int next = end + 1;
+			while (end > start && text[end - 1] <= ' ') {
+				end--;
+			}
+			while (start < end && text[start] <= ' ') {
+				start++;
+			}
+			if (start == end) {
+				start = next;
+				continue;
+			}
+			if (isWord(text, start, end, "resign")) {
+				game.setResult(position.getSideToMove() == Position.WHITE ? PgnGame.BLACK_WINS : PgnGame.WHITE_WINS);
+				return;
+			}
+			// the squares, then a promotion letter or "draw?"
+			if (end - start < 5 || text[start + 2] != ' ' || (end > start + 5 && text[start + 5] != ' ')) {
+				invalid(game, line, text, start, end);
+				return;
+			}
+			int rest = start + 5;
+			while (rest < end && text[rest] == ' ') {
+				rest++;
+			}
+			boolean draw = rest < end && isWord(text, rest, end, "draw?");
+			int move = findMove(text, start, draw ? end : rest, end);
+			if (move == Move.NONE) {
+				invalid(game, line, text, start, end);
+				return;
+			}
+			position.makeMove(move);
+			game.addMove(move);
+			switch (MoveGenerator.status(position)) {
+			case CHECKMATE:
+				game.setResult(position.getSideToMove() == Position.WHITE ? PgnGame.BLACK_WINS : PgnGame.WHITE_WINS);
+				return;
+			case STALEMATE:
+				game.setResult(PgnGame.DRAW);
+				return;
+			default:
+				break;
+			}
+			if (draw) {
+				game.setResult(PgnGame.DRAW);
+				return;
+			}
+			start = next;
+		}
+	}
+
+	/**
+	 * Finds the legal move of a line. As in runner2, the word after the squares of a pawn move must be a promotion
+	 * letter on a move reaching the last rank, and the word after the squares of another move is ignored.
+	 * @param text the content of the file
+	 * @param start the start of the line
+	 * @param rest the start of the word after the squares, or the end of the line if there is none
+	 * @param end the end of the line
+	 * @return the move, or Move.NONE if the line is not a legal move
+	 */
+	private int findMove(byte[] text, int start, int rest, int end) {
+		int from = square(text, start);
+		int to = square(text, start + 3);
+		if (from < 0 || to < 0) {
+			return Move.NONE;
+		}
+		for (int i = rest; i < end; i++) {
+			if (text[i] == ' ') {
+				// a line has at most three words
+				return Move.NONE;
+			}
+		}
+		int count = MoveGenerator.generateLegalMoves(position, legalMoves);
+		for (int i = 0; i < count; i++) {
+			int move = legalMoves[i];
+			if (Move.from(move) != from || Move.to(move) != to) {
+				continue;
+			}
+			if (position.typeAt(from) != Position.PAWN) {
+				return move;
+			}
+			int wanted;
+			if (rest == end) {
+				wanted = Move.promotion(move) == 0 ? 0 : Position.QUEEN;
+			} else {
+				wanted = rest + 1 == end ? promotionType(text[rest]) : -1;
+			}
+			if (Move.promotion(move) == wanted) {
+				return move;
+			}
+		}
+		return Move.NONE;
+	}
+
+	/**
+	 * Records the first line that is not a legal move as the error of the game
+	 * @param game the game
+	 * @param line the number of the line
+	 * @param text the content of the file
+	 * @param start the start of the line
+	 * @param end the end of the line
+	 */
+	private void invalid(PgnGame game, int line, byte[] text, int start, int end) {
+		game.setError("move \"" + new String(text, start, end - start, StandardCharsets.ISO_8859_1) + "\" on line "
+				+ line + " for " + Position.colorName(position.getSideToMove()));
+	}
+
+	/**
+	 * Method for getting the square named by two characters, such as "e4"
+	 * @param text the text
+	 * @param index the index of the file letter
+	 * @return the square, or -1 if the characters do not name one
+	 */
+	private static int square(byte[] text, int index) {
+		int file = text[index] - 'a';
+		int rank = text[index + 1] - '1';
+		return file < 0 || file > 7 || rank < 0 || rank > 7 ? -1 : rank * 8 + file;
+	}
+
+	/**
+	 * Method for getting the piece type named by a promotion letter of runner2
+	 * @param letter B, N, Q or R
+	 * @return the piece type, or -1 for another letter
+	 */
+	private static int promotionType(byte letter) {
+		switch (letter) {
+		case 'B':
+			return Position.BISHOP;
+		case 'N':
+			return Position.KNIGHT;
+		case 'Q':
+			return Position.QUEEN;
+		case 'R':
+			return Position.ROOK;
+		default:
+			return -1;
+		}
+	}
+
+	/**
+	 * Checks if the text between two indices is a given word
+	 * @param text the text
+	 * @param start the start of the text
+	 * @param end the end of the text
+	 * @param word the word
+	 * @return true if the text is the word
+	 */
+	private static boolean isWord(byte[] text, int start, int end, String word) {
+		if (end - start != word.length()) {
+			return false;
+		}
+		for (int i = 0; i < word.length(); i++) {
+			if (text[start + i] != word.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
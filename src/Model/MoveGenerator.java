@@ -0,0 +1,437 @@
+package Model;
+
+/**
+ * The MoveGenerator class lists every legal move of the side to move in a position.
+ *
+ * <p>
+ * The moves are written into an int array supplied by the caller (see {@link Move} for the encoding), so generating
+ * moves never allocates. A buffer of {@link #MAX_MOVES} entries is enough for any position. Castling, en passant and
+ * promotions (one move per promotion piece) are included.
+ * </p>
+ *
+ * <p>
+ * Only legal moves are generated, without touching the position. The pieces giving check and the pieces pinned to
+ * their king are worked out once per position: in check, the other pieces may only capture the checker or step
+ * between it and the king, and a pinned piece may only move along the line through its king and the pinning slider.
+ * King moves and en passant captures, which these masks cannot judge, are tested instead by probing the king square
+ * for attackers with the occupancy after the move.
+ * </p>
+ *
+ * @author Yiming Huang
+ * @author Zihao Zheng
+ */
+public final class MoveGenerator {
+	/** Size of a move buffer that can hold the moves of any position */
+	public static final int MAX_MOVES = 256;
+
+	/** Bitboard of the first rank */
+	private static final long RANK_1 = 0xFFL;
+
+	/** Bitboard of the eighth rank */
+	private static final long RANK_8 = 0xFFL << 56;
+
+	/**
+	 * This class only has static methods
+	 */
+	private MoveGenerator() {
+	}
+
+	/**
+	 * Fills a buffer with every legal move of the side to move
+	 * @param position the position
+	 * @param moves the buffer to fill, starting at index 0
+	 * @return the number of moves written
+	 */
+	public static int generateLegalMoves(Position position, int[] moves) {
+		return generateLegalMoves(position, moves, 0);
+	}
+
+	/**
+	 * Fills a buffer with every legal move of the side to move, starting at an offset. Searches can share one large
+	 * buffer between plies this way.
+	 * @param position the position
+	 * @param moves the buffer to fill
+	 * @param start the index of the first move written
+	 * @return the index after the last move written
+	 */
+	public static int generateLegalMoves(Position position, int[] moves, int start) {
+		return generate(position, moves, start, false);
+	}
+
+	/**
+	 * Fills a buffer with the legal captures and promotions of the side to move, starting at an offset. These are the
+	 * moves a quiescence search looks at.
+	 * @param position the position
+	 * @param moves the buffer to fill
+	 * @param start the index of the first move written
+	 * @return the index after the last move written
+	 */
+	public static int generateLegalCaptures(Position position, int[] moves, int start) {
+		return generate(position, moves, start, true);
+	}
+
+	/**
+	 * Fills a buffer with the legal moves of the side to move
+	 * @param position the position
+	 * @param moves the buffer to fill
+	 * @param start the index of the first move written
+	 * @param capturesOnly true to generate only captures and promotions
+	 * @return the index after the last move written
+	 */
+	private static int generate(Position position, int[] moves, int start, boolean capturesOnly) {
+		int us = position.getSideToMove();
+		int them = 1 - us;
+		long own = position.occupancy(us);
+		long enemies = position.occupancy(them);
+		long occupied = position.occupancy();
+		long targets = capturesOnly ? enemies : ~own;
+		int king = position.kingSquare(us);
+		long checkers = position.checkers(us);
+		long pinned = position.pinned(us);
+		long evasions = evasions(king, checkers);
+		int count = start;
+
+		// pawns
+		long pawns = position.pieces(us, Position.PAWN);
+		int forward = us == Position.WHITE ? 8 : -8;
+		long lastRank = us == Position.WHITE ? RANK_8 : RANK_1;
+		int startRank = us == Position.WHITE ? 1 : 6;
+		int enPassant = position.getEnPassantSquare();
+		while (pawns != 0) {
+			int from = Long.numberOfTrailingZeros(pawns);
+			pawns &= pawns - 1;
+			long allowed = evasions & pinMask(king, pinned, from);
+			int to = from + forward;
+			if ((occupied & (1L << to)) == 0) {
+				if ((allowed & (1L << to)) != 0 && (!capturesOnly || (lastRank & (1L << to)) != 0)) {
+					count = addPawnMoves(moves, count, from, to, lastRank);
+				}
+				int twoSteps = to + forward;
+				if (!capturesOnly && (from >>> 3) == startRank && (occupied & (1L << twoSteps)) == 0
+						&& (allowed & (1L << twoSteps)) != 0) {
+					moves[count++] = Move.create(from, twoSteps, 0, Move.DOUBLE_PUSH);
+				}
+			}
+			long captures = Attacks.pawnAttacks(us, from) & enemies & allowed;
+			while (captures != 0) {
+				int target = Long.numberOfTrailingZeros(captures);
+				captures &= captures - 1;
+				count = addPawnMoves(moves, count, from, target, lastRank);
+			}
+			// en passant removes two pawns from their rank, which the masks do not see, so it is probed instead
+			if (enPassant != Position.EMPTY && (Attacks.pawnAttacks(us, from) & (1L << enPassant)) != 0) {
+				count = addIfLegal(position, moves, count, Move.create(from, enPassant, 0, Move.EN_PASSANT));
+			}
+		}
+
+		// knights, bishops, rooks and queens
+		for (int type = Position.KNIGHT; type <= Position.QUEEN; type++) {
+			long pieces = position.pieces(us, type);
+			while (pieces != 0) {
+				int from = Long.numberOfTrailingZeros(pieces);
+				pieces &= pieces - 1;
+				long attacks = attacks(type, from, occupied) & targets & evasions & pinMask(king, pinned, from);
+				while (attacks != 0) {
+					int to = Long.numberOfTrailingZeros(attacks);
+					attacks &= attacks - 1;
+					moves[count++] = Move.create(from, to);
+				}
+			}
+		}
+
+		// king
+		if (king != Position.EMPTY) {
+			long attacks = Attacks.kingAttacks(king) & targets;
+			while (attacks != 0) {
+				int to = Long.numberOfTrailingZeros(attacks);
+				attacks &= attacks - 1;
+				count = addIfLegal(position, moves, count, Move.create(king, to));
+			}
+			if (!capturesOnly && checkers == 0) {
+				count = addCastling(position, moves, count, us, king);
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Method for getting the squares a piece other than the king may move to when its king is in check
+	 * @param king the square of the king, or EMPTY
+	 * @param checkers the pieces giving check
+	 * @return every square if there is no check, the checker and the squares between it and the king for a single
+	 *         check, and no square for a double check, which only the king can answer
+	 */
+	private static long evasions(int king, long checkers) {
+		if (checkers == 0) {
+			return -1L;
+		}
+		if ((checkers & (checkers - 1)) != 0) {
+			return 0L;
+		}
+		return checkers | Attacks.between(king, Long.numberOfTrailingZeros(checkers));
+	}
+
+	/**
+	 * Method for getting the squares a piece may move to without exposing its king
+	 * @param king the square of the king
+	 * @param pinned the pinned pieces
+	 * @param from the square of the piece
+	 * @return the line through the king and the piece if the piece is pinned, every square otherwise
+	 */
+	private static long pinMask(int king, long pinned, int from) {
+		return (pinned & (1L << from)) != 0 ? Attacks.line(king, from) : -1L;
+	}
+
+	/**
+	 * Method for getting the status of the game for the side to move
+	 * @param position the position
+	 * @return CHECKMATE or STALEMATE if the side to move has no legal move, ONGOING otherwise
+	 */
+	public static GameStatus status(Position position) {
+		if (hasLegalMove(position)) {
+			return GameStatus.ONGOING;
+		}
+		return isInCheck(position) ? GameStatus.CHECKMATE : GameStatus.STALEMATE;
+	}
+
+	/**
+	 * Checks if the side to move has a legal move. The pieces are tried king first, since a king that can step
+	 * somewhere is the usual answer, and the search stops at the first legal move. Castling is never needed: when
+	 * it is legal, so is the king step towards the rook.
+	 * @param position the position
+	 * @return true if the side to move has at least one legal move
+	 */
+	public static boolean hasLegalMove(Position position) {
+		int us = position.getSideToMove();
+		long own = position.occupancy(us);
+		long enemies = position.occupancy(1 - us);
+		long occupied = position.occupancy();
+
+		int king = position.kingSquare(us);
+		if (king != Position.EMPTY) {
+			long steps = Attacks.kingAttacks(king) & ~own;
+			while (steps != 0) {
+				int to = Long.numberOfTrailingZeros(steps);
+				steps &= steps - 1;
+				if (isLegal(position, Move.create(king, to))) {
+					return true;
+				}
+			}
+		}
+
+		long pinned = position.pinned(us);
+		long evasions = evasions(king, position.checkers(us));
+		if (evasions == 0L) {
+			return false;
+		}
+		for (int type = Position.KNIGHT; type <= Position.QUEEN; type++) {
+			long pieces = position.pieces(us, type);
+			while (pieces != 0) {
+				int from = Long.numberOfTrailingZeros(pieces);
+				pieces &= pieces - 1;
+				if ((attacks(type, from, occupied) & ~own & evasions & pinMask(king, pinned, from)) != 0) {
+					return true;
+				}
+			}
+		}
+
+		long pawns = position.pieces(us, Position.PAWN);
+		int forward = us == Position.WHITE ? 8 : -8;
+		int startRank = us == Position.WHITE ? 1 : 6;
+		int enPassant = position.getEnPassantSquare();
+		while (pawns != 0) {
+			int from = Long.numberOfTrailingZeros(pawns);
+			pawns &= pawns - 1;
+			long targets = Attacks.pawnAttacks(us, from) & enemies;
+			int to = from + forward;
+			if ((occupied & (1L << to)) == 0) {
+				targets |= 1L << to;
+				int twoSteps = to + forward;
+				if ((from >>> 3) == startRank && (occupied & (1L << twoSteps)) == 0) {
+					targets |= 1L << twoSteps;
+				}
+			}
+			if ((targets & evasions & pinMask(king, pinned, from)) != 0) {
+				return true;
+			}
+			if (enPassant != Position.EMPTY && (Attacks.pawnAttacks(us, from) & (1L << enPassant)) != 0
+					&& isLegal(position, Move.create(from, enPassant, 0, Move.EN_PASSANT))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Checks if a move that the piece on its source square can make by its own rules is legal. The move must not
+	 * leave the king in check, and castling must not start from, pass through or land on an attacked square. The
+	 * position is not modified.
+	 * @param position the position
+	 * @param move a move the piece on its source square could make, ignoring checks
+	 * @return true if the move is legal
+	 */
+	public static boolean isLegalMove(Position position, int move) {
+		int us = position.getSideToMove();
+		int from = Move.from(move);
+		int to = Move.to(move);
+		if (Move.flag(move) == Move.CASTLING) {
+			int them = 1 - us;
+			return !position.isSquareAttacked(from, them)
+					&& !position.isSquareAttacked(to > from ? from + 1 : from - 1, them)
+					&& !position.isSquareAttacked(to, them);
+		}
+		int king = position.kingSquare(us);
+		if (king == Position.EMPTY || from == king || Move.flag(move) == Move.EN_PASSANT) {
+			return isLegal(position, move);
+		}
+		long allowed = evasions(king, position.checkers(us)) & pinMask(king, position.pinned(us), from);
+		return (allowed & (1L << to)) != 0;
+	}
+
+	/**
+	 * Checks if a pseudo-legal move of the side to move leaves its own king safe. The position is not modified.
+	 * @param position the position
+	 * @param move a move the piece on its source square could make, ignoring checks
+	 * @return true if the king of the side to move is not attacked after the move
+	 */
+	public static boolean isLegal(Position position, int move) {
+		int us = position.getSideToMove();
+		int them = 1 - us;
+		int from = Move.from(move);
+		int to = Move.to(move);
+		long toBit = 1L << to;
+		long occupied = (position.occupancy() ^ (1L << from)) | toBit;
+		long captured = toBit;
+		if (Move.flag(move) == Move.EN_PASSANT) {
+			long capturedPawn = 1L << (to - (us == Position.WHITE ? 8 : -8));
+			occupied ^= capturedPawn;
+			captured |= capturedPawn;
+		}
+		int king = from == position.kingSquare(us) ? to : position.kingSquare(us);
+		if (king == Position.EMPTY) {
+			return true;
+		}
+		return (attackers(position, king, them, occupied) & ~captured) == 0;
+	}
+
+	/**
+	 * Checks if the king of the side to move is attacked
+	 * @param position the position
+	 * @return true if the side to move is in check
+	 */
+	public static boolean isInCheck(Position position) {
+		return position.isInCheck(position.getSideToMove());
+	}
+
+	/**
+	 * Method for getting the pieces of a color attacking a square, for a given occupancy of the board. Pieces that
+	 * are not in the occupancy are still returned, so callers removing pieces from it have to mask them out.
+	 * @param position the position
+	 * @param square the square
+	 * @param color the color of the attackers
+	 * @param occupied the occupancy the slider attacks are computed with
+	 * @return the bitboard of the attackers
+	 */
+	public static long attackers(Position position, int square, int color, long occupied) {
+		long queens = position.pieces(color, Position.QUEEN);
+		return (Attacks.pawnAttacks(1 - color, square) & position.pieces(color, Position.PAWN))
+				| (Attacks.knightAttacks(square) & position.pieces(color, Position.KNIGHT))
+				| (Attacks.kingAttacks(square) & position.pieces(color, Position.KING))
+				| (Attacks.bishopAttacks(square, occupied) & (position.pieces(color, Position.BISHOP) | queens))
+				| (Attacks.rookAttacks(square, occupied) & (position.pieces(color, Position.ROOK) | queens));
+	}
+
+	/**
+	 * Method for getting the attacks of a knight, bishop, rook or queen
+	 * @param type the piece type
+	 * @param square the square of the piece
+	 * @param occupied the occupancy of the board
+	 * @return the attacked squares
+	 */
+	private static long attacks(int type, int square, long occupied) {
+		switch (type) {
+		case Position.KNIGHT:
+			return Attacks.knightAttacks(square);
+		case Position.BISHOP:
+			return Attacks.bishopAttacks(square, occupied);
+		case Position.ROOK:
+			return Attacks.rookAttacks(square, occupied);
+		default:
+			return Attacks.queenAttacks(square, occupied);
+		}
+	}
+
+	/**
+	 * Adds a legal pawn move, or the four promotions if the pawn reaches the last rank
+	 * @param moves the buffer
+	 * @param count the index of the next move
+	 * @param from the source square
+	 * @param to the destination square
+	 * @param lastRank the bitboard of the promotion rank
+	 * @return the index of the next move
+	 */
+	private static int addPawnMoves(int[] moves, int count, int from, int to, long lastRank) {
+		if ((lastRank & (1L << to)) == 0) {
+			moves[count++] = Move.create(from, to);
+			return count;
+		}
+		for (int type = Position.QUEEN; type >= Position.KNIGHT; type--) {
+			moves[count++] = Move.create(from, to, type, Move.NORMAL);
+		}
+		return count;
+	}
+
+	/**
+	 * Adds the castling moves of a king. The king must not be in check, and must not pass through or land on an
+	 * attacked square.
+	 * @param position the position
+	 * @param moves the buffer
+	 * @param count the index of the next move
+	 * @param us the color of the king
+	 * @param king the square of the king
+	 * @return the index of the next move
+	 */
+	private static int addCastling(Position position, int[] moves, int count, int us, int king) {
+		int rights = position.getCastlingRights();
+		int home = us == Position.WHITE ? 4 : 60;
+		if (king != home || rights == 0) {
+			return count;
+		}
+		int kingside = us == Position.WHITE ? Position.WHITE_KINGSIDE : Position.BLACK_KINGSIDE;
+		int queenside = us == Position.WHITE ? Position.WHITE_QUEENSIDE : Position.BLACK_QUEENSIDE;
+		int rook = Position.piece(us, Position.ROOK);
+		long occupied = position.occupancy();
+		int them = 1 - us;
+		if ((rights & (kingside | queenside)) == 0 || attackers(position, king, them, occupied) != 0) {
+			return count;
+		}
+		if ((rights & kingside) != 0 && position.pieceAt(king + 3) == rook
+				&& (occupied & ((1L << (king + 1)) | (1L << (king + 2)))) == 0
+				&& attackers(position, king + 1, them, occupied) == 0
+				&& attackers(position, king + 2, them, occupied) == 0) {
+			moves[count++] = Move.create(king, king + 2, 0, Move.CASTLING);
+		}
+		if ((rights & queenside) != 0 && position.pieceAt(king - 4) == rook
+				&& (occupied & ((1L << (king - 1)) | (1L << (king - 2)) | (1L << (king - 3)))) == 0
+				&& attackers(position, king - 1, them, occupied) == 0
+				&& attackers(position, king - 2, them, occupied) == 0) {
+			moves[count++] = Move.create(king, king - 2, 0, Move.CASTLING);
+		}
+		return count;
+	}
+
+	/**
+	 * Adds a move to the buffer if it is legal
+	 * @param position the position
+	 * @param moves the buffer
+	 * @param count the index of the next move
+	 * @param move the pseudo-legal move
+	 * @return the index of the next move
+	 */
+	private static int addIfLegal(Position position, int[] moves, int count, int move) {
+		if (isLegal(position, move)) {
+			moves[count++] = move;
+		}
+		return count;
+	}
+}
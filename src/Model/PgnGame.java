@@ -0,0 +1,232 @@
+package Model;
+
+import java.util.Arrays;
+
+/**
+ * The PgnGame class holds one game read by a {@link PgnReader}: the tag pairs of its header, the moves of its main
+ * line, its result, and the first move that could not be read, if any.
+ *
+ * <p>
+ * The moves are stored as encoded by {@link Move}, already checked to be legal, and start from the starting position
+ * or from the position of the FEN tag. A reader fills the same PgnGame again for every game, reusing its arrays, so
+ * a consumer that keeps a game must keep a {@link #copy()} of it.
+ * </p>
+ *
+ * @author Yiming Huang
+ * @author Zihao Zheng
+ */
+public class PgnGame {
+	/** The result of a game won by white */
+	public static final String WHITE_WINS = "1-0";
+
+	/** The result of a game won by black */
+	public static final String BLACK_WINS = "0-1";
+
+	/** The result of a drawn game */
+	public static final String DRAW = "1/2-1/2";
+
+	/** The result of a game still going on, or whose result is unknown */
+	public static final String UNKNOWN = "*";
+
+	/** The names of the tags, in the order they were read */
+	private String[] tagNames = new String[16];
+
+	/** The values of the tags */
+	private String[] tagValues = new String[16];
+
+	/** Number of tags */
+	private int tagCount;
+
+	/** The moves of the main line */
+	private int[] moves = new int[256];
+
+	/** Number of moves */
+	private int moveCount;
+
+	/** The result ending the movetext, or UNKNOWN if there was none */
+	private String result = UNKNOWN;
+
+	/** The first move that could not be read, or null */
+	private String error;
+
+	/** The number of the game in its file, counting from 1 */
+	private long number;
+
+	/**
+	 * Empties the game before another one is read into it
+	 * @param number the number of the game in its file
+	 */
+	void clear(long number) {
+		Arrays.fill(tagNames, 0, tagCount, null);
+		Arrays.fill(tagValues, 0, tagCount, null);
+		tagCount = 0;
+		moveCount = 0;
+		result = UNKNOWN;
+		error = null;
+		this.number = number;
+	}
+
+	/**
+	 * Adds a tag pair
+	 * @param name the name of the tag
+	 * @param value the value of the tag
+	 */
+	void addTag(String name, String value) {
+		if (tagCount == tagNames.length) {
+			tagNames = Arrays.copyOf(tagNames, tagCount * 2);
+			tagValues = Arrays.copyOf(tagValues, tagCount * 2);
+		}
+		tagNames[tagCount] = name;
+		tagValues[tagCount++] = value;
+	}
+
+	/**
+	 * Adds a move to the main line
+	 * @param move the move, legal in the position reached by the moves before it
+	 */
+	void addMove(int move) {
+		if (moveCount == moves.length) {
+			moves = Arrays.copyOf(moves, moveCount * 2);
+		}
+		moves[moveCount++] = move;
+	}
+
+	/**
+	 * Method for setting the result of the game
+	 * @param result WHITE_WINS, BLACK_WINS, DRAW or UNKNOWN
+	 */
+	void setResult(String result) {
+		this.result = result;
+	}
+
+	/**
+	 * Method for setting the first move that could not be read. The moves after it are not read.
+	 * @param error a description of the move
+	 */
+	void setError(String error) {
+		this.error = error;
+	}
+
+	/**
+	 * Method for getting the number of tags
+	 * @return the number of tag pairs of the header
+	 */
+	public int getTagCount() {
+		return tagCount;
+	}
+
+	/**
+	 * Method for getting the name of a tag
+	 * @param index the index of the tag, in the order of the header
+	 * @return the name of the tag, such as "White"
+	 */
+	public String getTagName(int index) {
+		if (index < 0 || index >= tagCount) {
+			throw new IndexOutOfBoundsException("tag " + index + " of " + tagCount);
+		}
+		return tagNames[index];
+	}
+
+	/**
+	 * Method for getting the value of a tag
+	 * @param index the index of the tag, in the order of the header
+	 * @return the value of the tag
+	 */
+	public String getTagValue(int index) {
+		if (index < 0 || index >= tagCount) {
+			throw new IndexOutOfBoundsException("tag " + index + " of " + tagCount);
+		}
+		return tagValues[index];
+	}
+
+	/**
+	 * Method for getting the value of a tag by its name
+	 * @param name the name of the tag, such as "White"
+	 * @return the value of the first tag with that name, or null if there is none
+	 */
+	public String getTag(String name) {
+		for (int i = 0; i < tagCount; i++) {
+			if (tagNames[i].equals(name)) {
+				return tagValues[i];
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Method for getting the FEN record of the position the game starts from
+	 * @return the value of the FEN tag, or null if the game starts from the starting position
+	 */
+	public String getFen() {
+		return getTag("FEN");
+	}
+
+	/**
+	 * Method for getting the number of moves of the main line
+	 * @return the number of moves read
+	 */
+	public int getMoveCount() {
+		return moveCount;
+	}
+
+	/**
+	 * Method for getting a move of the main line
+	 * @param index the index of the move, 0 for the first move
+	 * @return the move, as encoded by Move
+	 */
+	public int getMove(int index) {
+		if (index < 0 || index >= moveCount) {
+			throw new IndexOutOfBoundsException("move " + index + " of " + moveCount);
+		}
+		return moves[index];
+	}
+
+	/**
+	 * Method for getting the result ending the movetext
+	 * @return WHITE_WINS, BLACK_WINS, DRAW or UNKNOWN
+	 */
+	public String getResult() {
+		return result;
+	}
+
+	/**
+	 * Method for getting the first move that could not be read, because it is illegal, ambiguous or not a move
+	 * @return a description of the move and where it was, or null if every move was read
+	 */
+	public String getError() {
+		return error;
+	}
+
+	/**
+	 * Checks if every move of the main line was read
+	 * @return true if there is no error
+	 */
+	public boolean isValid() {
+		return error == null;
+	}
+
+	/**
+	 * Method for getting the number of the game in its file
+	 * @return the number of the game, counting from 1
+	 */
+	public long getNumber() {
+		return number;
+	}
+
+	/**
+	 * Makes a copy of the game that the reader does not reuse
+	 * @return the copy
+	 */
+	public PgnGame copy() {
+		PgnGame copy = new PgnGame();
+		copy.tagNames = Arrays.copyOf(tagNames, Math.max(1, tagCount));
+		copy.tagValues = Arrays.copyOf(tagValues, Math.max(1, tagCount));
+		copy.tagCount = tagCount;
+		copy.moves = Arrays.copyOf(moves, Math.max(1, moveCount));
+		copy.moveCount = moveCount;
+		copy.result = result;
+		copy.error = error;
+		copy.number = number;
+		return copy;
+	}
+}
@@ -0,0 +1,576 @@
+package Model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * The PgnReader class reads the games of a PGN (Portable Game Notation) file one after the other, however large the
+ * file is.
+ *
+ * <p>
+ * The file is read through a channel into one fixed buffer, and parsed byte by byte as it streams past: the tag pairs
+ * of the header, the SAN (Standard Algebraic Notation) moves of the movetext, the move numbers, the comments in
+ * braces or after a semicolon, the numeric annotation glyphs, the variations in parentheses (nested to any depth),
+ * and the result. Comments and variations are skipped without being kept, so the memory used depends on the longest
+ * main line and the longest tag, never on the size of the file or of the comments.
+ * </p>
+ *
+ * <p>
+ * Every SAN move is matched against the legal moves of the position, which is played along the game, so the moves of
+ * a {@link PgnGame} are legal. A move that is illegal, ambiguous or not a move is recorded as the error of the game,
+ * and the rest of its movetext is skipped up to the result.
+ * </p>
+ *
+ * @author Yiming Huang
+ * @author Zihao Zheng
+ */
+public class PgnReader implements AutoCloseable {
+	/** Size of the buffer the file is read into */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/** The longest token of the movetext, longer ones are not moves */
+	private static final int MAX_TOKEN = 32;
+
+	/** The longest tag name or value kept, longer ones are cut */
+	private static final int MAX_TAG = 1024;
+
+	/** The most moves kept for a game, which is more than the longest possible game */
+	private static final int MAX_MOVES = 12000;
+
+	/** The channel the games are read from */
+	private final ReadableByteChannel channel;
+
+	/** The buffer of the bytes read from the channel */
+	private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+	/** The array behind the buffer */
+	private final byte[] bytes = buffer.array();
+
+	/** The index of the next byte to parse */
+	private int index;
+
+	/** The number of bytes in the buffer */
+	private int limit;
+
+	/** The byte parsed before the next one, to find the start of the lines */
+	private int previous = '\n';
+
+	/** Whether the channel has no more bytes */
+	private boolean endOfInput;
+
+	/** The number of bytes read from the channel */
+	private long bytesRead;
+
+	/** The number of games read */
+	private long gamesRead;
+
+	/** The position the moves of the game are played on */
+	private final Position position = new Position();
+
+	/** The legal moves of the position, a SAN move is looked up in */
+	private final int[] legalMoves = new int[MoveGenerator.MAX_MOVES];
+
+	/** The token of the movetext being parsed */
+	private final byte[] token = new byte[MAX_TOKEN];
+
+	/** The tag name or value being parsed */
+	private final byte[] tag = new byte[MAX_TAG];
+
+	/** The game filled by {@link #readAll(Consumer)} */
+	private final PgnGame game = new PgnGame();
+
+	/**
+	 * Constructs a reader of the games of a channel
+	 * @param channel the channel, which is closed with the reader
+	 */
+	public PgnReader(ReadableByteChannel channel) {
+		this.channel = channel;
+	}
+
+	/**
+	 * Opens a reader of the games of a file
+	 * @param path the PGN file
+	 * @return the reader
+	 * @throws IOException if the file cannot be opened
+	 */
+	public static PgnReader open(Path path) throws IOException {
+		return new PgnReader(FileChannel.open(path, StandardOpenOption.READ));
+	}
+
+	/**
+	 * Reads every remaining game, giving them to a consumer one at a time. The same PgnGame is filled again for every
+	 * game, see {@link PgnGame#copy()}.
+	 * @param consumer the consumer of the games
+	 * @return the number of games read
+	 * @throws IOException if the channel cannot be read
+	 */
+	public long readAll(Consumer<PgnGame> consumer) throws IOException {
+		long count = 0;
+		while (next(game)) {
+			consumer.accept(game);
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Reads the next game
+	 * @param game the game to fill, whose earlier content is cleared
+	 * @return true if a game was read, false at the end of the input
+	 * @throws IOException if the channel cannot be read
+	 */
+	public boolean next(PgnGame game) throws IOException {
+		game.clear(gamesRead + 1);
+		boolean started = false;
+		boolean inMovetext = false;
+		while (true) {
+			int c = read();
+			if (c < 0) {
+				if (started) {
+					gamesRead++;
+				}
+				return started;
+			}
+			if (c <= ' ') {
+				continue;
+			}
+			if (c == '%' && previousByte() == '\n') {
+				// escape line, as written by some programs
+				skipLine();
+				continue;
+			}
+			if (c == '[') {
+				if (inMovetext) {
+					// the next game starts without a result for this one
+					index--;
+					gamesRead++;
+					return true;
+				}
+				readTag(game);
+				started = true;
+				continue;
+			}
+			if (c == '{') {
+				skipComment();
+				continue;
+			}
+			if (c == ';') {
+				skipLine();
+				continue;
+			}
+			if (c == '(') {
+				skipVariation();
+				continue;
+			}
+			if (c == ')' || c == '$') {
+				// a stray parenthesis or an annotation glyph, whose digits are skipped as a move number
+				continue;
+			}
+			int length = readToken(c);
+			started = true;
+			if (!inMovetext) {
+				inMovetext = true;
+				setUp(game);
+			}
+			String result = result(length);
+			if (result != null) {
+				game.setResult(result);
+				gamesRead++;
+				return true;
+			}
+			if (game.isValid()) {
+				playToken(game, length);
+			}
+		}
+	}
+
+	/**
+	 * Sets the position up before the first move of a game, from the FEN tag if there is one
+	 * @param game the game
+	 */
+	private void setUp(PgnGame game) {
+		String fen = game.getFen();
+		if (fen == null) {
+			position.setStartPosition();
+			return;
+		}
+		try {
+			position.setFen(fen);
+		} catch (RuntimeException e) {
+			position.setStartPosition();
+			game.setError("invalid FEN \"" + fen + "\"");
+		}
+	}
+
+	/**
+	 * Plays the moves of a token of the movetext, skipping a move number in front of them
+	 * @param game the game the moves are added to
+	 * @param length the length of the token
+	 */
+	private void playToken(PgnGame game, int length) {
+		int start = 0;
+		if (token[0] >= '0' && token[0] <= '9' && !isCastling(0, length)) {
+			// a move number such as "12." or "12...", possibly with the move glued to it
+			while (start < length && (token[start] >= '0' && token[start] <= '9' || token[start] == '.')) {
+				start++;
+			}
+			if (start == length) {
+				return;
+			}
+		}
+		int end = length;
+		while (end > start && isSuffix(token[end - 1])) {
+			end--;
+		}
+		int move = end > start ? parseSan(start, end) : Move.NONE;
+		if (move == Move.NONE || game.getMoveCount() >= MAX_MOVES) {
+			int ply = game.getMoveCount();
+			game.setError("move " + (ply / 2 + 1) + (ply % 2 == 0 ? ". " : "... ")
+					+ new String(token, 0, length, StandardCharsets.ISO_8859_1));
+			return;
+		}
+		position.makeMove(move);
+		game.addMove(move);
+	}
+
+	/**
+	 * Finds the legal move of the position written in SAN in the token, such as "e4", "Nbd7", "exd8=Q" or "O-O"
+	 * @param start the start of the move in the token
+	 * @param end the end of the move, without check signs and annotations
+	 * @return the move, or Move.NONE if it is not the SAN of exactly one legal move
+	 */
+	private int parseSan(int start, int end) {
+		int count = MoveGenerator.generateLegalMoves(position, legalMoves);
+		if (isCastling(start, end)) {
+			boolean kingside = end - start == 3;
+			for (int i = 0; i < count; i++) {
+				int move = legalMoves[i];
+				if (Move.flag(move) == Move.CASTLING && (Move.to(move) > Move.from(move)) == kingside) {
+					return move;
+				}
+			}
+			return Move.NONE;
+		}
+
+		int type = pieceType(token[start]);
+		if (type > Position.PAWN) {
+			start++;
+		} else {
+			type = Position.PAWN;
+		}
+		int promotion = 0;
+		if (end - start >= 3 && pieceType(token[end - 1]) > Position.PAWN) {
+			promotion = pieceType(token[end - 1]);
+			end -= token[end - 2] == '=' ? 2 : 1;
+		}
+		if (end - start < 2) {
+			return Move.NONE;
+		}
+		int toFile = token[end - 2] - 'a';
+		int toRank = token[end - 1] - '1';
+		if (toFile < 0 || toFile > 7 || toRank < 0 || toRank > 7) {
+			return Move.NONE;
+		}
+		int to = toRank * 8 + toFile;
+		// what is left between the piece and the destination is the source file or rank, and the capture sign
+		int fromFile = -1;
+		int fromRank = -1;
+		for (int i = start; i < end - 2; i++) {
+			byte b = token[i];
+			if (b >= 'a' && b <= 'h') {
+				fromFile = b - 'a';
+			} else if (b >= '1' && b <= '8') {
+				fromRank = b - '1';
+			} else if (b != 'x' && b != ':' && b != '-') {
+				return Move.NONE;
+			}
+		}
+
+		int found = Move.NONE;
+		for (int i = 0; i < count; i++) {
+			int move = legalMoves[i];
+			int from = Move.from(move);
+			if (Move.to(move) != to || Move.promotion(move) != promotion || position.typeAt(from) != type
+					|| Move.flag(move) == Move.CASTLING) {
+				continue;
+			}
+			if ((fromFile >= 0 && (from & 7) != fromFile) || (fromRank >= 0 && (from >>> 3) != fromRank)) {
+				continue;
+			}
+			if (found != Move.NONE) {
+				// ambiguous
+				return Move.NONE;
+			}
+			found = move;
+		}
+		return found;
+	}
+
+	/**
+	 * Method for getting the piece type named by a SAN piece letter
+	 * @param letter the letter
+	 * @return the piece type, or -1 if the letter is not N, B, R, Q or K
+	 */
+	private static int pieceType(byte letter) {
+		switch (letter) {
+		case 'N':
+			return Position.KNIGHT;
+		case 'B':
+			return Position.BISHOP;
+		case 'R':
+			return Position.ROOK;
+		case 'Q':
+			return Position.QUEEN;
+		case 'K':
+			return Position.KING;
+		default:
+			return -1;
+		}
+	}
+
+	/**
+	 * Checks if a character may follow a SAN move: a check or mate sign, or an annotation such as "!?"
+	 * @param b the character
+	 * @return true if the character is not part of the move
+	 */
+	private static boolean isSuffix(byte b) {
+		return b == '+' || b == '#' || b == '!' || b == '?';
+	}
+
+	/**
+	 * Checks if a part of the token is castling, "O-O" or "O-O-O" (also written with zeros)
+	 * @param start the start of the part
+	 * @param end the end of the part, without check signs
+	 * @return true if the part is castling
+	 */
+	private boolean isCastling(int start, int end) {
+		while (end > start && isSuffix(token[end - 1])) {
+			end--;
+		}
+		if (end - start != 3 && end - start != 5) {
+			return false;
+		}
+		byte letter = token[start];
+		if (letter != 'O' && letter != '0') {
+			return false;
+		}
+		for (int i = start; i < end; i++) {
+			if (token[i] != ((i - start) % 2 == 0 ? letter : '-')) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Method for getting the result written by a token
+	 * @param length the length of the token
+	 * @return the result, or null if the token is not a result
+	 */
+	private String result(int length) {
+		if (length == 1 && token[0] == '*') {
+			return PgnGame.UNKNOWN;
+		}
+		if (length == 3 && token[1] == '-') {
+			if (token[0] == '1' && token[2] == '0') {
+				return PgnGame.WHITE_WINS;
+			}
+			if (token[0] == '0' && token[2] == '1') {
+				return PgnGame.BLACK_WINS;
+			}
+		}
+		if (length == 7 && token[0] == '1' && token[1] == '/' && token[2] == '2' && token[3] == '-' && token[4] == '1'
+				&& token[5] == '/' && token[6] == '2') {
+			return PgnGame.DRAW;
+		}
+		return null;
+	}
+
+	/**
+	 * Reads a token of the movetext, up to a space or a character that starts something else. The characters after
+	 * the first MAX_TOKEN are dropped, which makes the token an invalid move.
+	 * @param first the first character of the token
+	 * @return the length of the token
+	 * @throws IOException if the channel cannot be read
+	 */
+	private int readToken(int first) throws IOException {
+		token[0] = (byte) first;
+		int length = 1;
+		while (true) {
+			int c = read();
+			if (c < 0) {
+				return length;
+			}
+			if (c <= ' ' || c == '{' || c == '}' || c == '(' || c == ')' || c == ';' || c == '[' || c == '$') {
+				index--;
+				return length;
+			}
+			if (length < MAX_TOKEN) {
+				token[length++] = (byte) c;
+			} else {
+				token[MAX_TOKEN - 1] = '?';
+			}
+		}
+	}
+
+	/**
+	 * Reads a tag pair, such as [White "Kasparov, Garry"], after its opening bracket
+	 * @param game the game the tag is added to
+	 * @throws IOException if the channel cannot be read
+	 */
+	private void readTag(PgnGame game) throws IOException {
+		int c = read();
+		while (c >= 0 && c <= ' ') {
+			c = read();
+		}
+		int length = 0;
+		while (c > ' ' && c != '"' && c != ']') {
+			if (length < MAX_TAG) {
+				tag[length++] = (byte) c;
+			}
+			c = read();
+		}
+		String name = new String(tag, 0, length, StandardCharsets.ISO_8859_1);
+		while (c >= 0 && c != '"' && c != ']' && c != '\n') {
+			c = read();
+		}
+		length = 0;
+		if (c == '"') {
+			c = read();
+			while (c >= 0 && c != '"' && c != '\n') {
+				if (c == '\\') {
+					c = read();
+				}
+				if (length < MAX_TAG && c >= 0) {
+					tag[length++] = (byte) c;
+				}
+				c = read();
+			}
+		}
+		String value = new String(tag, 0, length, StandardCharsets.UTF_8);
+		while (c >= 0 && c != ']' && c != '\n') {
+			c = read();
+		}
+		game.addTag(name, value);
+	}
+
+	/**
+	 * Skips a comment after its opening brace
+	 * @throws IOException if the channel cannot be read
+	 */
+	private void skipComment() throws IOException {
+		int c = read();
+		while (c >= 0 && c != '}') {
+			c = read();
+		}
+	}
+
+	/**
+	 * Skips the rest of the line
+	 * @throws IOException if the channel cannot be read
+	 */
+	private void skipLine() throws IOException {
+		int c = read();
+		while (c >= 0 && c != '\n') {
+			c = read();
+		}
+	}
+
+	/**
+	 * Skips a variation after its opening parenthesis, with the variations and comments inside it
+	 * @throws IOException if the channel cannot be read
+	 */
+	private void skipVariation() throws IOException {
+		int depth = 1;
+		while (depth > 0) {
+			int c = read();
+			if (c < 0) {
+				return;
+			} else if (c == '(') {
+				depth++;
+			} else if (c == ')') {
+				depth--;
+			} else if (c == '{') {
+				skipComment();
+			} else if (c == ';') {
+				skipLine();
+			}
+		}
+	}
+
+	/**
+	 * Method for getting the byte parsed before the last one
+	 * @return the byte, or '\n' at the start of the input
+	 */
+	private int previousByte() {
+		return index >= 2 ? bytes[index - 2] : previous;
+	}
+
+	/**
+	 * Reads the next byte, filling the buffer from the channel when it is empty
+	 * @return the byte, or -1 at the end of the input
+	 * @throws IOException if the channel cannot be read
+	 */
+	private int read() throws IOException {
+		if (index == limit && !fill()) {
+			return -1;
+		}
+		return bytes[index++] & 0xFF;
+	}
+
+	/**
+	 * Fills the buffer with the next bytes of the channel
+	 * @return false at the end of the input
+	 * @throws IOException if the channel cannot be read
+	 */
+	private boolean fill() throws IOException {
+		if (endOfInput) {
+			return false;
+		}
+		if (limit > 0) {
+			previous = bytes[limit - 1];
+		}
+		buffer.clear();
+		int count = 0;
+		while (count == 0) {
+			count = channel.read(buffer);
+		}
+		if (count < 0) {
+			endOfInput = true;
+			limit = 0;
+			index = 0;
+			return false;
+		}
+		bytesRead += count;
+		limit = count;
+		index = 0;
+		return true;
+	}
+
+	/**
+	 * Method for getting the number of bytes read from the channel
+	 * @return the number of bytes
+	 */
+	public long getBytesRead() {
+		return bytesRead;
+	}
+
+	/**
+	 * Method for getting the number of games read
+	 * @return the number of games
+	 */
+	public long getGamesRead() {
+		return gamesRead;
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+}
@@ -0,0 +1,1174 @@
+package Model;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * The Position class is the bitboard representation of a chess position, and the authoritative state of the game.
+ *
+ * <p>
+ * Every piece type of every color is stored as one 64-bit long, where bit n is set when such a piece stands on
+ * square n. Squares are numbered from a1 = 0 to h8 = 63, rank by rank, so a square in the row/column indices used by
+ * the board array of Control.Chess (row 0 is rank 8) is (7 - row) * 8 + column. Occupancy masks for each color and
+ * for the whole board are kept next to the piece bitboards, a 64-entry mailbox answers "what is on this square"
+ * without scanning the bitboards, and the square of each king is tracked as it moves.
+ * </p>
+ *
+ * <p>
+ * Besides the pieces, the position also stores the side to move, the castling rights, the en passant square and the
+ * move clocks, so that the rule checks never need to look at the history of the game.
+ * </p>
+ *
+ * <p>
+ * Moves are played in place with {@link #makeMove(int)} and taken back with {@link #unmakeMove(int)}. What a move
+ * cannot restore by itself (the captured piece, the castling rights, the en passant square and the halfmove clock)
+ * is packed into one long per move on a primitive undo stack, so walking a move tree never allocates.
+ * </p>
+ *
+ * <p>
+ * The position also keeps its {@link Zobrist} key, updated incrementally by every change to the pieces, the side to
+ * move, the castling rights and the en passant square. The keys of the positions before each move are kept next to
+ * the undo stack, which restores the key on unmake and detects repetitions. The middlegame and endgame values of the
+ * pieces from {@link PieceSquareTables} and the game phase are kept up to date the same way, so that evaluating a
+ * position costs the same whatever is on the board.
+ * </p>
+ *
+ * @author Yiming Huang
+ * @author Zihao Zheng
+ */
+public final class Position {
+	/** Index of the white side */
+	public static final int WHITE = 0;
+
+	/** Index of the black side */
+	public static final int BLACK = 1;
+
+	/** Piece type of a pawn */
+	public static final int PAWN = 0;
+
+	/** Piece type of a knight */
+	public static final int KNIGHT = 1;
+
+	/** Piece type of a bishop */
+	public static final int BISHOP = 2;
+
+	/** Piece type of a rook */
+	public static final int ROOK = 3;
+
+	/** Piece type of a queen */
+	public static final int QUEEN = 4;
+
+	/** Piece type of a king */
+	public static final int KING = 5;
+
+	/** Value of an empty square in the mailbox, and of a missing square or color */
+	public static final int EMPTY = -1;
+
+	/** Castling right of white on the king side */
+	public static final int WHITE_KINGSIDE = 1;
+
+	/** Castling right of white on the queen side */
+	public static final int WHITE_QUEENSIDE = 2;
+
+	/** Castling right of black on the king side */
+	public static final int BLACK_KINGSIDE = 4;
+
+	/** Castling right of black on the queen side */
+	public static final int BLACK_QUEENSIDE = 8;
+
+	/** All four castling rights */
+	public static final int ALL_CASTLING = 15;
+
+	/** Letters of the pieces in FEN records, indexed by piece */
+	private static final String PIECE_LETTERS = "PNBRQKpnbrqk";
+
+	/** The piece of each letter of a FEN record, or EMPTY for a character that is not a piece */
+	private static final int[] PIECE_OF_LETTER = new int[128];
+
+	/** Letters of the castling rights in FEN records, indexed by the bit of their flag */
+	private static final String CASTLING_LETTERS = "KQkq";
+
+	/** The largest halfmove clock, since it is kept in 16 bits of the undo stack */
+	public static final int MAX_HALFMOVE_CLOCK = 0xFFFF;
+
+	/** The first and the last rank, where no pawn can stand */
+	private static final long BACK_RANKS = 0xFF000000000000FFL;
+
+	/**
+	 * The castling rights that survive a move touching a square (either as source or destination).
+	 * Moving the king or a rook, or capturing a rook on its home square, clears the matching rights.
+	 */
+	private static final int[] CASTLING_MASK = new int[64];
+
+	static {
+		Arrays.fill(PIECE_OF_LETTER, EMPTY);
+		for (int piece = 0; piece < 12; piece++) {
+			PIECE_OF_LETTER[PIECE_LETTERS.charAt(piece)] = piece;
+		}
+		for (int square = 0; square < 64; square++) {
+			CASTLING_MASK[square] = ALL_CASTLING;
+		}
+		CASTLING_MASK[0] &= ~WHITE_QUEENSIDE; // a1
+		CASTLING_MASK[7] &= ~WHITE_KINGSIDE; // h1
+		CASTLING_MASK[4] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE); // e1
+		CASTLING_MASK[56] &= ~BLACK_QUEENSIDE; // a8
+		CASTLING_MASK[63] &= ~BLACK_KINGSIDE; // h8
+		CASTLING_MASK[60] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE); // e8
+	}
+
+	/** One bitboard per piece, indexed by color * 6 + type */
+	private final long[] pieces = new long[12];
+
+	/** Occupancy of each color */
+	private final long[] occupancy = new long[2];
+
+	/** Occupancy of the whole board */
+	private long occupied;
+
+	/** The piece on each square, or EMPTY */
+	private final int[] mailbox = new int[64];
+
+	/** The square of the king of each color, or EMPTY */
+	private final int[] kingSquares = new int[2];
+
+	/** The side to move, WHITE or BLACK */
+	private int sideToMove;
+
+	/** The castling rights, as a combination of the castling flags */
+	private int castlingRights;
+
+	/** The square a pawn can capture en passant on, or EMPTY */
+	private int enPassantSquare;
+
+	/** Number of half moves since the last capture or pawn move */
+	private int halfmoveClock;
+
+	/** Number of the full move, starting at 1 and incremented after black moves */
+	private int fullmoveNumber;
+
+	/** The undo information of every move made, see {@link #makeMove(int)} for the packing */
+	private long[] undoStack = new long[256];
+
+	/** Number of entries on the undo stack */
+	private int undoCount;
+
+	/** The Zobrist key of the position */
+	private long key;
+
+	/** The Zobrist key of the pawns alone */
+	private long pawnKey;
+
+	/** The Zobrist key of the position before each move on the undo stack */
+	private long[] keyStack = new long[256];
+
+	/** Sum of the middlegame values of the pieces, white minus black */
+	private int midgameScore;
+
+	/** Sum of the endgame values of the pieces, white minus black */
+	private int endgameScore;
+
+	/** Sum of the phases of the pieces */
+	private int phase;
+
+	/**
+	 * Constructs an empty position, with white to move and no castling rights.
+	 */
+	public Position() {
+		clear();
+	}
+
+	/**
+	 * Removes every piece from the board and resets the state to an empty position with white to move.
+	 */
+	public void clear() {
+		for (int i = 0; i < 12; i++) {
+			pieces[i] = 0L;
+		}
+		occupancy[WHITE] = 0L;
+		occupancy[BLACK] = 0L;
+		occupied = 0L;
+		for (int square = 0; square < 64; square++) {
+			mailbox[square] = EMPTY;
+		}
+		kingSquares[WHITE] = EMPTY;
+		kingSquares[BLACK] = EMPTY;
+		sideToMove = WHITE;
+		castlingRights = 0;
+		enPassantSquare = EMPTY;
+		halfmoveClock = 0;
+		fullmoveNumber = 1;
+		undoCount = 0;
+		key = 0L;
+		pawnKey = 0L;
+		midgameScore = 0;
+		endgameScore = 0;
+		phase = 0;
+	}
+
+	/**
+	 * Sets up the pieces in their starting positions, with white to move and all castling rights.
+	 */
+	public void setStartPosition() {
+		clear();
+		int[] backRank = { ROOK, KNIGHT, BISHOP, QUEEN, KING, BISHOP, KNIGHT, ROOK };
+		for (int file = 0; file < 8; file++) {
+			put(file, piece(WHITE, backRank[file]));
+			put(8 + file, piece(WHITE, PAWN));
+			put(48 + file, piece(BLACK, PAWN));
+			put(56 + file, piece(BLACK, backRank[file]));
+		}
+		setCastlingRights(ALL_CASTLING);
+	}
+
+	/**
+	 * Sets up the position described by a FEN (Forsyth-Edwards Notation) record, such as
+	 * "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1". The clocks may be left out.
+	 * @param fen the FEN record
+	 * @throws IllegalArgumentException if the record cannot be read
+	 */
+	public void setFen(CharSequence fen) {
+		parseFen(fen, null, 0, fen.length());
+	}
+
+	/**
+	 * Sets up the position described by the FEN record between two indices of a text, without copying it
+	 * @param text the text
+	 * @param start the index of the first character of the record
+	 * @param end the index after the last character of the record
+	 * @throws IllegalArgumentException if the record cannot be read
+	 */
+	public void setFen(CharSequence text, int start, int end) {
+		parseFen(text, null, start, end);
+	}
+
+	/**
+	 * Sets up the position described by the FEN record between two indices of a buffer of ASCII bytes, without
+	 * copying it. The position of the buffer is not changed.
+	 * @param bytes the buffer
+	 * @param start the index of the first byte of the record
+	 * @param end the index after the last byte of the record
+	 * @throws IllegalArgumentException if the record cannot be read
+	 */
+	public void setFen(ByteBuffer bytes, int start, int end) {
+		parseFen(null, bytes, start, end);
+	}
+
+	/**
+	 * Reads a FEN record in place, from either a text or a buffer of bytes. The whole record is checked before the
+	 * position is changed, so a record that cannot be read leaves the position as it was. The ranks must hold eight
+	 * squares each, each side must have one king, no pawn may stand on the first or last rank, each castling right
+	 * needs its king and rook on their starting squares, the en passant square must be on the third or sixth rank,
+	 * and the clocks must be numbers, the halfmove clock being at most MAX_HALFMOVE_CLOCK.
+	 * @param text the text, or null to read the buffer
+	 * @param bytes the buffer, read when the text is null
+	 * @param start the index of the first character of the record
+	 * @param end the index after the last character of the record
+	 * @throws IllegalArgumentException if the record cannot be read
+	 */
+	private void parseFen(CharSequence text, ByteBuffer bytes, int start, int end) {
+		int boardStart = skipSpaces(text, bytes, start, end);
+		int index = boardStart;
+		int rank = 7;
+		int file = 0;
+		long whiteKings = 0L;
+		long blackKings = 0L;
+		long whiteRooks = 0L;
+		long blackRooks = 0L;
+		long pawns = 0L;
+		for (; index < end; index++) {
+			int c = charAt(text, bytes, index);
+			if (c <= ' ') {
+				break;
+			} else if (c == '/') {
+				if (file != 8 || rank == 0) {
+					throw invalidFen(text, bytes, start, end);
+				}
+				rank--;
+				file = 0;
+			} else if (c >= '1' && c <= '8') {
+				file += c - '0';
+				if (file > 8) {
+					throw invalidFen(text, bytes, start, end);
+				}
+			} else {
+				int piece = c < 128 ? PIECE_OF_LETTER[c] : EMPTY;
+				if (piece == EMPTY || file > 7) {
+					throw invalidFen(text, bytes, start, end);
+				}
+				long bit = 1L << (rank * 8 + file++);
+				if (piece == piece(WHITE, KING)) {
+					whiteKings |= bit;
+				} else if (piece == piece(BLACK, KING)) {
+					blackKings |= bit;
+				} else if (piece == piece(WHITE, ROOK)) {
+					whiteRooks |= bit;
+				} else if (piece == piece(BLACK, ROOK)) {
+					blackRooks |= bit;
+				} else if (typeOf(piece) == PAWN) {
+					pawns |= bit;
+				}
+			}
+		}
+		int boardEnd = index;
+		if (rank != 0 || file != 8 || Long.bitCount(whiteKings) != 1 || Long.bitCount(blackKings) != 1
+				|| (pawns & BACK_RANKS) != 0) {
+			throw invalidFen(text, bytes, start, end);
+		}
+
+		index = skipSpaces(text, bytes, index, end);
+		int side = index < end ? charAt(text, bytes, index++) : 0;
+		if ((side != 'w' && side != 'b') || !isFieldEnd(text, bytes, index, end)) {
+			throw invalidFen(text, bytes, start, end);
+		}
+		int newSideToMove = side == 'w' ? WHITE : BLACK;
+
+		index = skipSpaces(text, bytes, index, end);
+		int newCastlingRights = 0;
+		if (index < end && charAt(text, bytes, index) == '-') {
+			index++;
+		} else {
+			for (; index < end && charAt(text, bytes, index) > ' '; index++) {
+				int right = CASTLING_LETTERS.indexOf(charAt(text, bytes, index));
+				if (right < 0) {
+					throw invalidFen(text, bytes, start, end);
+				}
+				newCastlingRights |= 1 << right;
+			}
+			if (newCastlingRights == 0) {
+				throw invalidFen(text, bytes, start, end);
+			}
+		}
+		// each right needs its king and its rook on their starting squares
+		if (((newCastlingRights & (WHITE_KINGSIDE | WHITE_QUEENSIDE)) != 0 && whiteKings != 1L << 4)
+				|| ((newCastlingRights & (BLACK_KINGSIDE | BLACK_QUEENSIDE)) != 0 && blackKings != 1L << 60)
+				|| ((newCastlingRights & WHITE_KINGSIDE) != 0 && (whiteRooks & 1L << 7) == 0)
+				|| ((newCastlingRights & WHITE_QUEENSIDE) != 0 && (whiteRooks & 1L) == 0)
+				|| ((newCastlingRights & BLACK_KINGSIDE) != 0 && (blackRooks & 1L << 63) == 0)
+				|| ((newCastlingRights & BLACK_QUEENSIDE) != 0 && (blackRooks & 1L << 56) == 0)
+				|| !isFieldEnd(text, bytes, index, end)) {
+			throw invalidFen(text, bytes, start, end);
+		}
+
+		index = skipSpaces(text, bytes, index, end);
+		int newEnPassantSquare = EMPTY;
+		if (index < end && charAt(text, bytes, index) == '-') {
+			index++;
+		} else if (index + 1 < end) {
+			int epFile = charAt(text, bytes, index) - 'a';
+			int epRank = charAt(text, bytes, index + 1) - '1';
+			if (epFile < 0 || epFile > 7 || epRank != (newSideToMove == WHITE ? 5 : 2)) {
+				throw invalidFen(text, bytes, start, end);
+			}
+			newEnPassantSquare = epRank * 8 + epFile;
+			index += 2;
+		} else {
+			throw invalidFen(text, bytes, start, end);
+		}
+		if (!isFieldEnd(text, bytes, index, end)) {
+			throw invalidFen(text, bytes, start, end);
+		}
+
+		// the clocks are optional
+		int newHalfmoveClock = 0;
+		int newFullmoveNumber = 1;
+		index = skipSpaces(text, bytes, index, end);
+		if (index < end) {
+			int fieldEnd = fieldEnd(text, bytes, index, end);
+			newHalfmoveClock = parseNumber(text, bytes, index, fieldEnd);
+			index = skipSpaces(text, bytes, fieldEnd, end);
+			if (index < end) {
+				fieldEnd = fieldEnd(text, bytes, index, end);
+				newFullmoveNumber = parseNumber(text, bytes, index, fieldEnd);
+				if (newFullmoveNumber < 0 || skipSpaces(text, bytes, fieldEnd, end) != end) {
+					throw invalidFen(text, bytes, start, end);
+				}
+				newFullmoveNumber = Math.max(1, newFullmoveNumber);
+			}
+			if (newHalfmoveClock < 0 || newHalfmoveClock > MAX_HALFMOVE_CLOCK) {
+				throw invalidFen(text, bytes, start, end);
+			}
+		}
+
+		// the record is valid, so the position can be replaced
+		clear();
+		rank = 7;
+		file = 0;
+		for (index = boardStart; index < boardEnd; index++) {
+			int c = charAt(text, bytes, index);
+			if (c == '/') {
+				rank--;
+				file = 0;
+			} else if (c >= '1' && c <= '8') {
+				file += c - '0';
+			} else {
+				put(rank * 8 + file++, PIECE_OF_LETTER[c]);
+			}
+		}
+		sideToMove = newSideToMove;
+		castlingRights = newCastlingRights;
+		enPassantSquare = newEnPassantSquare;
+		halfmoveClock = newHalfmoveClock;
+		fullmoveNumber = newFullmoveNumber;
+		key = computeKey();
+	}
+
+	/**
+	 * Method for getting a character of a FEN record being read
+	 * @param text the text, or null to read the buffer
+	 * @param bytes the buffer, read when the text is null
+	 * @param index the index of the character
+	 * @return the character
+	 */
+	private static int charAt(CharSequence text, ByteBuffer bytes, int index) {
+		return text != null ? text.charAt(index) : bytes.get(index) & 0xFF;
+	}
+
+	/**
+	 * Method for getting the index of the first character that is not a space
+	 * @param text the text, or null to read the buffer
+	 * @param bytes the buffer, read when the text is null
+	 * @param index the index the search starts at
+	 * @param end the end of the record
+	 * @return the index of the character, or the end of the record
+	 */
+	private static int skipSpaces(CharSequence text, ByteBuffer bytes, int index, int end) {
+		while (index < end && charAt(text, bytes, index) <= ' ') {
+			index++;
+		}
+		return index;
+	}
+
+	/**
+	 * Method for getting the end of a field of a FEN record
+	 * @param text the text, or null to read the buffer
+	 * @param bytes the buffer, read when the text is null
+	 * @param index the start of the field
+	 * @param end the end of the record
+	 * @return the index of the first space after the field, or the end of the record
+	 */
+	private static int fieldEnd(CharSequence text, ByteBuffer bytes, int index, int end) {
+		while (index < end && charAt(text, bytes, index) > ' ') {
+			index++;
+		}
+		return index;
+	}
+
+	/**
+	 * Reads a clock of a FEN record
+	 * @param text the text, or null to read the buffer
+	 * @param bytes the buffer, read when the text is null
+	 * @param start the start of the field
+	 * @param end the end of the field
+	 * @return the number, or -1 if the field is not a number of up to six digits
+	 */
+	private static int parseNumber(CharSequence text, ByteBuffer bytes, int start, int end) {
+		if (end - start > 6) {
+			return -1;
+		}
+		int number = 0;
+		for (int index = start; index < end; index++) {
+			int digit = charAt(text, bytes, index) - '0';
+			if (digit < 0 || digit > 9) {
+				return -1;
+			}
+			number = number * 10 + digit;
+		}
+		return number;
+	}
+
+	/**
+	 * Checks if a field of a FEN record ends at an index
+	 * @param text the text, or null to read the buffer
+	 * @param bytes the buffer, read when the text is null
+	 * @param index the index after the field
+	 * @param end the end of the record
+	 * @return true if the index is at the end of the record or at a space
+	 */
+	private static boolean isFieldEnd(CharSequence text, ByteBuffer bytes, int index, int end) {
+		return index == end || charAt(text, bytes, index) <= ' ';
+	}
+
+	/**
+	 * Creates the exception thrown for a FEN record that cannot be read
+	 * @param text the text, or null to read the buffer
+	 * @param bytes the buffer, read when the text is null
+	 * @param start the start of the record
+	 * @param end the end of the record
+	 * @return the exception, naming the record
+	 */
+	private static IllegalArgumentException invalidFen(CharSequence text, ByteBuffer bytes, int start, int end) {
+		StringBuilder fen = new StringBuilder(end - start);
+		for (int index = start; index < end; index++) {
+			fen.append((char) charAt(text, bytes, index));
+		}
+		return new IllegalArgumentException("Invalid FEN: " + fen.toString().trim());
+	}
+
+	/**
+	 * Appends the FEN record of the position, with all six fields, to a builder. A builder that is reused does not
+	 * allocate once it is large enough.
+	 * @param fen the builder
+	 * @return the builder
+	 */
+	public StringBuilder appendFen(StringBuilder fen) {
+		for (int rank = 7; rank >= 0; rank--) {
+			int empty = 0;
+			for (int file = 0; file < 8; file++) {
+				int piece = mailbox[rank * 8 + file];
+				if (piece == EMPTY) {
+					empty++;
+					continue;
+				}
+				if (empty > 0) {
+					fen.append((char) ('0' + empty));
+					empty = 0;
+				}
+				fen.append(PIECE_LETTERS.charAt(piece));
+			}
+			if (empty > 0) {
+				fen.append((char) ('0' + empty));
+			}
+			if (rank > 0) {
+				fen.append('/');
+			}
+		}
+		fen.append(sideToMove == WHITE ? " w " : " b ");
+		if (castlingRights == 0) {
+			fen.append('-');
+		}
+		for (int right = 0; right < 4; right++) {
+			if ((castlingRights & (1 << right)) != 0) {
+				fen.append(CASTLING_LETTERS.charAt(right));
+			}
+		}
+		fen.append(' ');
+		if (enPassantSquare == EMPTY) {
+			fen.append('-');
+		} else {
+			fen.append((char) ('a' + (enPassantSquare & 7))).append((char) ('1' + (enPassantSquare >>> 3)));
+		}
+		return fen.append(' ').append(halfmoveClock).append(' ').append(fullmoveNumber);
+	}
+
+	/**
+	 * Method for getting the FEN record of the position
+	 * @return the FEN record, with all six fields
+	 */
+	public String toFen() {
+		return appendFen(new StringBuilder(90)).toString();
+	}
+
+	/**
+	 * Copies the complete state of another position into this one.
+	 * @param other the position to copy
+	 */
+	public void copyFrom(Position other) {
+		System.arraycopy(other.pieces, 0, pieces, 0, 12);
+		System.arraycopy(other.mailbox, 0, mailbox, 0, 64);
+		occupancy[WHITE] = other.occupancy[WHITE];
+		occupancy[BLACK] = other.occupancy[BLACK];
+		occupied = other.occupied;
+		kingSquares[WHITE] = other.kingSquares[WHITE];
+		kingSquares[BLACK] = other.kingSquares[BLACK];
+		sideToMove = other.sideToMove;
+		castlingRights = other.castlingRights;
+		enPassantSquare = other.enPassantSquare;
+		halfmoveClock = other.halfmoveClock;
+		fullmoveNumber = other.fullmoveNumber;
+		if (undoStack.length < other.undoCount) {
+			undoStack = new long[other.undoStack.length];
+		}
+		if (keyStack.length < other.undoCount) {
+			keyStack = new long[other.keyStack.length];
+		}
+		System.arraycopy(other.undoStack, 0, undoStack, 0, other.undoCount);
+		System.arraycopy(other.keyStack, 0, keyStack, 0, other.undoCount);
+		undoCount = other.undoCount;
+		key = other.key;
+		pawnKey = other.pawnKey;
+		midgameScore = other.midgameScore;
+		endgameScore = other.endgameScore;
+		phase = other.phase;
+	}
+
+	/**
+	 * Places a piece on an empty square.
+	 * @param square the square to place the piece on
+	 * @param piece the piece, as returned by {@link #piece(int, int)}
+	 */
+	public void put(int square, int piece) {
+		long bit = 1L << square;
+		pieces[piece] |= bit;
+		occupancy[colorOf(piece)] |= bit;
+		occupied |= bit;
+		mailbox[square] = piece;
+		if (typeOf(piece) == KING) {
+			kingSquares[colorOf(piece)] = square;
+		}
+		key ^= Zobrist.piece(piece, square);
+		pawnKey ^= Zobrist.pawn(piece, square);
+		midgameScore += PieceSquareTables.midgame(piece, square);
+		endgameScore += PieceSquareTables.endgame(piece, square);
+		phase += PieceSquareTables.phase(piece);
+	}
+
+	/**
+	 * Removes the piece standing on a square.
+	 * @param square the square to clear
+	 * @return the piece that was removed, or EMPTY if the square was already empty
+	 */
+	public int remove(int square) {
+		int piece = mailbox[square];
+		if (piece == EMPTY) {
+			return EMPTY;
+		}
+		long bit = 1L << square;
+		pieces[piece] &= ~bit;
+		occupancy[colorOf(piece)] &= ~bit;
+		occupied &= ~bit;
+		mailbox[square] = EMPTY;
+		if (typeOf(piece) == KING && kingSquares[colorOf(piece)] == square) {
+			kingSquares[colorOf(piece)] = EMPTY;
+		}
+		key ^= Zobrist.piece(piece, square);
+		pawnKey ^= Zobrist.pawn(piece, square);
+		midgameScore -= PieceSquareTables.midgame(piece, square);
+		endgameScore -= PieceSquareTables.endgame(piece, square);
+		phase -= PieceSquareTables.phase(piece);
+		return piece;
+	}
+
+	/**
+	 * Moves the piece standing on a square to an empty square.
+	 * Captures have to remove the captured piece first.
+	 * @param from the square the piece stands on
+	 * @param to the empty destination square
+	 */
+	public void move(int from, int to) {
+		int piece = mailbox[from];
+		long fromTo = (1L << from) | (1L << to);
+		pieces[piece] ^= fromTo;
+		occupancy[colorOf(piece)] ^= fromTo;
+		occupied ^= fromTo;
+		mailbox[from] = EMPTY;
+		mailbox[to] = piece;
+		if (typeOf(piece) == KING) {
+			kingSquares[colorOf(piece)] = to;
+		}
+		key ^= Zobrist.piece(piece, from) ^ Zobrist.piece(piece, to);
+		pawnKey ^= Zobrist.pawn(piece, from) ^ Zobrist.pawn(piece, to);
+		midgameScore += PieceSquareTables.midgame(piece, to) - PieceSquareTables.midgame(piece, from);
+		endgameScore += PieceSquareTables.endgame(piece, to) - PieceSquareTables.endgame(piece, from);
+	}
+
+	/**
+	 * Plays a move generated by the {@link MoveGenerator} in place, updating the pieces, the castling rights, the en
+	 * passant square, the clocks and the side to move. The state the move destroys is pushed on the undo stack as
+	 * one long: the captured piece plus one (bits 0-3), the castling rights (bits 4-7), the en passant square plus
+	 * one (bits 8-14) and the halfmove clock (bits 16-31).
+	 * @param move the move
+	 */
+	public void makeMove(int move) {
+		int from = Move.from(move);
+		int to = Move.to(move);
+		int flag = Move.flag(move);
+		int piece = mailbox[from];
+		int us = colorOf(piece);
+		int captured = captured(move);
+
+		if (undoCount == undoStack.length) {
+			undoStack = Arrays.copyOf(undoStack, undoStack.length * 2);
+			keyStack = Arrays.copyOf(keyStack, undoStack.length);
+		}
+		keyStack[undoCount] = key;
+		undoStack[undoCount++] = (captured + 1) | (castlingRights << 4) | ((long) (enPassantSquare + 1) << 8)
+				| ((long) halfmoveClock << 16);
+
+		if (flag == Move.EN_PASSANT) {
+			remove(to + (us == WHITE ? -8 : 8));
+		} else if (flag == Move.CASTLING) {
+			if (to > from) {
+				move(from + 3, from + 1);
+			} else {
+				move(from - 4, from - 1);
+			}
+		} else if (captured != EMPTY) {
+			remove(to);
+		}
+		move(from, to);
+		if (Move.promotion(move) != 0) {
+			remove(to);
+			put(to, piece(us, Move.promotion(move)));
+		}
+
+		updateCastlingRights(from, to);
+		setEnPassantSquare(flag == Move.DOUBLE_PUSH ? (from + to) >>> 1 : EMPTY);
+		halfmoveClock = typeOf(piece) == PAWN || captured != EMPTY ? 0 : halfmoveClock + 1;
+		if (us == BLACK) {
+			fullmoveNumber++;
+		}
+		sideToMove = 1 - us;
+		key ^= Zobrist.side();
+	}
+
+	/**
+	 * Takes back the last move made with {@link #makeMove(int)}, restoring the position exactly as it was.
+	 * @param move the move, which must be the last move made
+	 */
+	public void unmakeMove(int move) {
+		int from = Move.from(move);
+		int to = Move.to(move);
+		int flag = Move.flag(move);
+		long undo = undoStack[--undoCount];
+		int us = 1 - sideToMove;
+		sideToMove = us;
+		if (us == BLACK) {
+			fullmoveNumber--;
+		}
+
+		if (Move.promotion(move) != 0) {
+			remove(to);
+			put(to, piece(us, PAWN));
+		}
+		move(to, from);
+		if (flag == Move.CASTLING) {
+			if (to > from) {
+				move(from + 1, from + 3);
+			} else {
+				move(from - 1, from - 4);
+			}
+		}
+		int captured = (int) (undo & 15) - 1;
+		if (captured != EMPTY) {
+			put(flag == Move.EN_PASSANT ? to + (us == WHITE ? -8 : 8) : to, captured);
+		}
+
+		castlingRights = (int) (undo >>> 4) & 15;
+		enPassantSquare = (int) ((undo >>> 8) & 127) - 1;
+		halfmoveClock = (int) (undo >>> 16) & 0xFFFF;
+		key = keyStack[undoCount];
+	}
+
+	/**
+	 * Method for getting the piece a move captures in this position
+	 * @param move the move, not yet made
+	 * @return the captured piece, or EMPTY if the move is not a capture
+	 */
+	public int captured(int move) {
+		int to = Move.to(move);
+		if (Move.flag(move) == Move.EN_PASSANT) {
+			return piece(1 - colorOf(mailbox[Move.from(move)]), PAWN);
+		}
+		return Move.flag(move) == Move.CASTLING ? EMPTY : mailbox[to];
+	}
+
+	/**
+	 * Method for getting the number of moves that can be taken back
+	 * @return the number of moves on the undo stack
+	 */
+	public int getUndoCount() {
+		return undoCount;
+	}
+
+	/**
+	 * Method for getting the Zobrist key of the position
+	 * @return the key, which is equal for positions with the same pieces, side to move, castling rights and en
+	 *         passant square
+	 */
+	public long getKey() {
+		return key;
+	}
+
+	/**
+	 * Method for getting the Zobrist key of the pawns
+	 * @return the key, which is equal for positions with the same pawns on the same squares
+	 */
+	public long getPawnKey() {
+		return pawnKey;
+	}
+
+	/**
+	 * Computes the Zobrist key of the position from scratch. The incremental key returned by {@link #getKey()}
+	 * always equals it.
+	 * @return the key
+	 */
+	public long computeKey() {
+		long result = 0L;
+		for (int square = 0; square < 64; square++) {
+			if (mailbox[square] != EMPTY) {
+				result ^= Zobrist.piece(mailbox[square], square);
+			}
+		}
+		result ^= Zobrist.castling(castlingRights) ^ Zobrist.enPassant(enPassantSquare);
+		return sideToMove == BLACK ? result ^ Zobrist.side() : result;
+	}
+
+	/**
+	 * Method for getting the middlegame score of the pieces
+	 * @return the sum of the middlegame values of the pieces, white minus black
+	 */
+	public int getMidgameScore() {
+		return midgameScore;
+	}
+
+	/**
+	 * Method for getting the endgame score of the pieces
+	 * @return the sum of the endgame values of the pieces, white minus black
+	 */
+	public int getEndgameScore() {
+		return endgameScore;
+	}
+
+	/**
+	 * Method for getting the game phase
+	 * @return the sum of the phases of the pieces, which is {@link PieceSquareTables#TOTAL_PHASE} at the start and
+	 *         can exceed it after promotions
+	 */
+	public int getPhase() {
+		return phase;
+	}
+
+	/**
+	 * Checks if the position has already occurred since the last capture or pawn move, among the moves made on this
+	 * position. Only positions with the same side to move are compared.
+	 * @return true if the position is a repetition
+	 */
+	public boolean isRepetition() {
+		int first = Math.max(0, undoCount - halfmoveClock);
+		for (int i = undoCount - 2; i >= first; i -= 2) {
+			if (keyStack[i] == key) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Clears the castling rights lost by a move between two squares.
+	 * @param from the source square of the move
+	 * @param to the destination square of the move
+	 */
+	public void updateCastlingRights(int from, int to) {
+		setCastlingRights(castlingRights & CASTLING_MASK[from] & CASTLING_MASK[to]);
+	}
+
+	/**
+	 * Method for getting the piece on a square
+	 * @param square the square
+	 * @return the piece, or EMPTY
+	 */
+	public int pieceAt(int square) {
+		return mailbox[square];
+	}
+
+	/**
+	 * Method for getting the color of the piece on a square
+	 * @param square the square
+	 * @return WHITE, BLACK, or EMPTY if there is no piece on the square
+	 */
+	public int colorAt(int square) {
+		int piece = mailbox[square];
+		return piece == EMPTY ? EMPTY : colorOf(piece);
+	}
+
+	/**
+	 * Method for getting the type of the piece on a square
+	 * @param square the square
+	 * @return the piece type, or EMPTY if there is no piece on the square
+	 */
+	public int typeAt(int square) {
+		int piece = mailbox[square];
+		return piece == EMPTY ? EMPTY : typeOf(piece);
+	}
+
+	/**
+	 * Checks if a square is empty
+	 * @param square the square
+	 * @return true if no piece stands on the square
+	 */
+	public boolean isEmpty(int square) {
+		return mailbox[square] == EMPTY;
+	}
+
+	/**
+	 * Method for getting the bitboard of one kind of piece
+	 * @param color the color of the pieces
+	 * @param type the type of the pieces
+	 * @return the bitboard of the pieces
+	 */
+	public long pieces(int color, int type) {
+		return pieces[color * 6 + type];
+	}
+
+	/**
+	 * Method for getting the bitboard of all pieces of one color
+	 * @param color the color of the pieces
+	 * @return the occupancy of the color
+	 */
+	public long occupancy(int color) {
+		return occupancy[color];
+	}
+
+	/**
+	 * Method for getting the bitboard of all pieces on the board
+	 * @return the occupancy of the board
+	 */
+	public long occupancy() {
+		return occupied;
+	}
+
+	/**
+	 * Method for getting the square of the king of a color
+	 * @param color the color of the king
+	 * @return the square of the king, or EMPTY if there is no such king on the board
+	 */
+	public int kingSquare(int color) {
+		return kingSquares[color];
+	}
+
+	/**
+	 * Checks if a square is attacked by the pieces of a color. The square is probed outward: the pawn, knight and
+	 * king tables give the squares a piece of each kind would attack it from, and the slider attacks from the square
+	 * stop at the first piece on each ray, so only the pieces that can really reach the square are looked at.
+	 * @param square the square
+	 * @param byColor the color of the attackers
+	 * @return true if at least one piece of that color attacks the square
+	 */
+	public boolean isSquareAttacked(int square, int byColor) {
+		int offset = byColor * 6;
+		if ((Attacks.pawnAttacks(1 - byColor, square) & pieces[offset + PAWN]) != 0L
+				|| (Attacks.knightAttacks(square) & pieces[offset + KNIGHT]) != 0L
+				|| (Attacks.kingAttacks(square) & pieces[offset + KING]) != 0L) {
+			return true;
+		}
+		long queens = pieces[offset + QUEEN];
+		return (Attacks.bishopAttacks(square, occupied) & (pieces[offset + BISHOP] | queens)) != 0L
+				|| (Attacks.rookAttacks(square, occupied) & (pieces[offset + ROOK] | queens)) != 0L;
+	}
+
+	/**
+	 * Checks if the king of a color is attacked
+	 * @param color the color of the king
+	 * @return true if the king is in check, false if it is not or there is no such king
+	 */
+	public boolean isInCheck(int color) {
+		int king = kingSquares[color];
+		return king != EMPTY && isSquareAttacked(king, 1 - color);
+	}
+
+	/**
+	 * Method for getting the pieces giving check to the king of a color
+	 * @param color the color of the king
+	 * @return the bitboard of the checking pieces, or 0 if the king is not in check or there is no such king
+	 */
+	public long checkers(int color) {
+		int king = kingSquares[color];
+		if (king == EMPTY) {
+			return 0L;
+		}
+		int offset = (1 - color) * 6;
+		long queens = pieces[offset + QUEEN];
+		return (Attacks.pawnAttacks(color, king) & pieces[offset + PAWN])
+				| (Attacks.knightAttacks(king) & pieces[offset + KNIGHT])
+				| (Attacks.bishopAttacks(king, occupied) & (pieces[offset + BISHOP] | queens))
+				| (Attacks.rookAttacks(king, occupied) & (pieces[offset + ROOK] | queens));
+	}
+
+	/**
+	 * Method for getting the pieces of a color pinned to their king. A pinned piece stands alone between its king
+	 * and an enemy slider, and may only move along the line through both (see {@link Attacks#line(int, int)}).
+	 * @param color the color of the king
+	 * @return the bitboard of the pinned pieces, or 0 if there is no such king
+	 */
+	public long pinned(int color) {
+		int king = kingSquares[color];
+		if (king == EMPTY) {
+			return 0L;
+		}
+		int offset = (1 - color) * 6;
+		long enemies = occupancy[1 - color];
+		long queens = pieces[offset + QUEEN];
+		// the enemy sliders that would attack the king if the pieces of the color were not on the board
+		long snipers = (Attacks.bishopAttacks(king, enemies) & (pieces[offset + BISHOP] | queens))
+				| (Attacks.rookAttacks(king, enemies) & (pieces[offset + ROOK] | queens));
+		long pinned = 0L;
+		while (snipers != 0L) {
+			int sniper = Long.numberOfTrailingZeros(snipers);
+			snipers &= snipers - 1;
+			long blockers = Attacks.between(king, sniper) & occupied;
+			if (Long.bitCount(blockers) == 1) {
+				pinned |= blockers & occupancy[color];
+			}
+		}
+		return pinned;
+	}
+
+	/**
+	 * Method for getting the side to move
+	 * @return WHITE or BLACK
+	 */
+	public int getSideToMove() {
+		return sideToMove;
+	}
+
+	/**
+	 * Method for setting the side to move
+	 * @param sideToMove WHITE or BLACK
+	 */
+	public void setSideToMove(int sideToMove) {
+		if (sideToMove != this.sideToMove) {
+			key ^= Zobrist.side();
+		}
+		this.sideToMove = sideToMove;
+	}
+
+	/**
+	 * Method for getting the castling rights
+	 * @return the castling rights, as a combination of the castling flags
+	 */
+	public int getCastlingRights() {
+		return castlingRights;
+	}
+
+	/**
+	 * Method for setting the castling rights
+	 * @param castlingRights a combination of the castling flags
+	 */
+	public void setCastlingRights(int castlingRights) {
+		key ^= Zobrist.castling(this.castlingRights) ^ Zobrist.castling(castlingRights);
+		this.castlingRights = castlingRights;
+	}
+
+	/**
+	 * Method for getting the en passant square
+	 * @return the square a pawn can capture en passant on, or EMPTY
+	 */
+	public int getEnPassantSquare() {
+		return enPassantSquare;
+	}
+
+	/**
+	 * Method for setting the en passant square
+	 * @param enPassantSquare the square behind a pawn that just moved two squares, or EMPTY
+	 */
+	public void setEnPassantSquare(int enPassantSquare) {
+		key ^= Zobrist.enPassant(this.enPassantSquare) ^ Zobrist.enPassant(enPassantSquare);
+		this.enPassantSquare = enPassantSquare;
+	}
+
+	/**
+	 * Method for getting the halfmove clock
+	 * @return the number of half moves since the last capture or pawn move
+	 */
+	public int getHalfmoveClock() {
+		return halfmoveClock;
+	}
+
+	/**
+	 * Method for setting the halfmove clock
+	 * @param halfmoveClock the number of half moves since the last capture or pawn move, at most MAX_HALFMOVE_CLOCK
+	 */
+	public void setHalfmoveClock(int halfmoveClock) {
+		this.halfmoveClock = halfmoveClock;
+	}
+
+	/**
+	 * Method for getting the fullmove number
+	 * @return the number of the current full move
+	 */
+	public int getFullmoveNumber() {
+		return fullmoveNumber;
+	}
+
+	/**
+	 * Method for setting the fullmove number
+	 * @param fullmoveNumber the number of the current full move
+	 */
+	public void setFullmoveNumber(int fullmoveNumber) {
+		this.fullmoveNumber = fullmoveNumber;
+	}
+
+	/**
+	 * Converts a row and column of the board array into a square
+	 * @param row the row, 0 being rank 8
+	 * @param column the column, 0 being file a
+	 * @return the square, 0 being a1
+	 */
+	public static int square(int row, int column) {
+		return ((7 - row) << 3) | column;
+	}
+
+	/**
+	 * Converts a square into a row of the board array
+	 * @param square the square
+	 * @return the row, 0 being rank 8
+	 */
+	public static int row(int square) {
+		return 7 - (square >>> 3);
+	}
+
+	/**
+	 * Converts a square into a column of the board array
+	 * @param square the square
+	 * @return the column, 0 being file a
+	 */
+	public static int column(int square) {
+		return square & 7;
+	}
+
+	/**
+	 * Checks if a row and column are inside the board
+	 * @param row the row
+	 * @param column the column
+	 * @return true if both are between 0 and 7
+	 */
+	public static boolean onBoard(int row, int column) {
+		return row >= 0 && row <= 7 && column >= 0 && column <= 7;
+	}
+
+	/**
+	 * Combines a color and a type into a piece
+	 * @param color WHITE or BLACK
+	 * @param type the piece type
+	 * @return the piece
+	 */
+	public static int piece(int color, int type) {
+		return color * 6 + type;
+	}
+
+	/**
+	 * Method for getting the color of a piece
+	 * @param piece the piece
+	 * @return WHITE or BLACK
+	 */
+	public static int colorOf(int piece) {
+		return piece < 6 ? WHITE : BLACK;
+	}
+
+	/**
+	 * Method for getting the type of a piece
+	 * @param piece the piece
+	 * @return the piece type
+	 */
+	public static int typeOf(int piece) {
+		return piece < 6 ? piece : piece - 6;
+	}
+
+	/**
+	 * Converts a color name used by the chess pieces into a color index
+	 * @param color "white" or "black"
+	 * @return WHITE or BLACK
+	 */
+	public static int color(String color) {
+		return color.equals("white") ? WHITE : BLACK;
+	}
+
+	/**
+	 * Converts a color index into the color name used by the chess pieces
+	 * @param color WHITE or BLACK
+	 * @return "white" or "black"
+	 */
+	public static String colorName(int color) {
+		return color == WHITE ? "white" : "black";
+	}
+}
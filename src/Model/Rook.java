@@ -23,115 +23,34 @@ public class Rook extends ChessPiece {
     /**
     Determines whether the rook can move from its current position to a specified position on the board.
     The rook can move horizontally or vertically any number of squares as long as there are no pieces in its way.
+    @param state the game the rook is on
     @param newRow the row of the position the rook wants to move to.
     @param newColumn the column of the position the rook wants to move to.
     @return true if the move is valid, false otherwise.
     */
-    public boolean isValidMove(int newRow, int newColumn) {
-    	
-    	if(newRow==-1||newColumn==-1) {
-    		return false;
-    	}
-        int currRow = getRow()-1;
-        int currColumn = getColumn()-1;
-        
-        if(newRow == currRow && newColumn == currColumn) {
-        	// cannot eat itself
-    		return false;
-    	}
-        if(board[newRow][newColumn]!=null && board[currRow][currColumn].getColor().equals(board[newRow][newColumn].getColor())) {
-        	return false;
-        }
-//        System.out.println(currRow+","+currColumn+"     "+newRow+","+newColumn);
-        if (newRow == currRow && newColumn == currColumn) {
-            // the new position is the same as the current position
-            return false;
-        }
-        if (newRow != currRow && newColumn != currColumn) {
-            // the rook is not moving in a straight line
-            return false;
-        }
-        if (newRow == currRow) {
-            // the rook is moving horizontally
-            int minColumn = Math.min(currColumn, newColumn);
-            int maxColumn = Math.max(currColumn, newColumn);
-            for (int col = minColumn + 1; col < maxColumn; col++) {
-                if (board[currRow][col] != null) {
-                    // there is another piece in the way
-                    return false;
-                }
-            }
-        } else {
-            // the rook is moving vertically
-            int minRow = Math.min(currRow, newRow);
-            int maxRow = Math.max(currRow, newRow);
-            for (int row = minRow + 1; row < maxRow; row++) {
-                if (board[row][currColumn] != null) {
-                    // there is another piece in the way
-                    return false;
-                }
-            }
-        }
-        
-        return true;
+    public boolean isValidMove(GameState state, int newRow, int newColumn) {
+        return isValidMove(state, getRow()-1, getColumn()-1, newRow, newColumn);
     }
 
     
     @Override
     /**
     Checks if a move is a valid move for a rook piece
+    @param state the game the rook is on
     @param fromRow the starting row of the piece
     @param fromCol the starting column of the piece
     @param newRow the row the piece is moving to
     @param newColumn the column the piece is moving to
     @return true if the move is valid, false otherwise
     */
-    public boolean isValidMove(int fromRow, int fromCol, int newRow, int newColumn) {
-    	if(fromRow==-1 || fromCol==-1 || newRow==-1||newColumn==-1) {
-    		return false;
-    	}
-        int currRow = fromRow;
-        int currColumn = fromCol;
-        
-        if(newRow == currRow && newColumn == currColumn) {
-        	// cannot eat itself
+    public boolean isValidMove(GameState state, int fromRow, int fromCol, int newRow, int newColumn) {
+    	Position position = state.getPosition();
+    	if(!Position.onBoard(fromRow, fromCol) || !Position.onBoard(newRow, newColumn)) {
     		return false;
     	}
-        if(board[newRow][newColumn]!=null && board[currRow][currColumn].getColor().equals(board[newRow][newColumn].getColor())) {
-        	return false;
-        }
-//        System.out.println(currRow+","+currColumn+"     "+newRow+","+newColumn);
-        if (newRow == currRow && newColumn == currColumn) {
-            // the new position is the same as the current position
-            return false;
-        }
-        if (newRow != currRow && newColumn != currColumn) {
-            // the rook is not moving in a straight line
-            return false;
-        }
-        if (newRow == currRow) {
-            // the rook is moving horizontally
-            int minColumn = Math.min(currColumn, newColumn);
-            int maxColumn = Math.max(currColumn, newColumn);
-            for (int col = minColumn + 1; col < maxColumn; col++) {
-                if (board[currRow][col] != null) {
-                    // there is another piece in the way
-                    return false;
-                }
-            }
-        } else {
-            // the rook is moving vertically
-            int minRow = Math.min(currRow, newRow);
-            int maxRow = Math.max(currRow, newRow);
-            for (int row = minRow + 1; row < maxRow; row++) {
-                if (board[row][currColumn] != null) {
-                    // there is another piece in the way
-                    return false;
-                }
-            }
-        }
-        
-        return true;
+        // the destination must be attacked along an unblocked line, and must not hold a piece of the same color
+        long attacks = Attacks.rookAttacks(Position.square(fromRow, fromCol), position.occupancy());
+        return (attacks & ~position.occupancy(getSide()) & (1L << Position.square(newRow, newColumn))) != 0;
     }
 
     /**
@@ -0,0 +1,133 @@
+package Model;
+
+/**
+ * The Zobrist class holds the random numbers of Zobrist hashing, which identifies a position by a 64-bit key.
+ *
+ * <p>
+ * The key of a position is the exclusive or of one random number per piece on its square, one per combination of
+ * castling rights, one per file of the en passant square, and one more when black is to move. Since exclusive or is
+ * its own inverse, a move updates the key by toggling only the numbers of what it changed, which is how
+ * {@link Position} keeps its key. The numbers come from a fixed seed, so keys are the same in every run and can be
+ * stored.
+ * </p>
+ *
+ * <p>
+ * A second key made of the pawns alone identifies the pawn structure, which changes far less often than the
+ * position, for caching the evaluation of the pawns.
+ * </p>
+ *
+ * @author Yiming Huang
+ * @author Zihao Zheng
+ */
+public final class Zobrist {
+	/** Random number of each piece on each square, indexed by piece then square */
+	private static final long[][] PIECES = new long[12][64];
+
+	/** Random number of each pawn on each square, and 0 for the other pieces, indexed by piece then square */
+	private static final long[][] PAWNS = new long[12][64];
+
+	/** Random number of each combination of castling rights */
+	private static final long[] CASTLING = new long[16];
+
+	/** Random number of each file of the en passant square */
+	private static final long[] EN_PASSANT = new long[8];
+
+	/** Random number toggled when black is to move */
+	private static final long SIDE;
+
+	static {
+		long seed = 0x2545F4914F6CDD1DL;
+		for (int piece = 0; piece < 12; piece++) {
+			for (int square = 0; square < 64; square++) {
+				seed = nextRandom(seed);
+				PIECES[piece][square] = seed;
+			}
+		}
+		for (int color = Position.WHITE; color <= Position.BLACK; color++) {
+			int pawn = Position.piece(color, Position.PAWN);
+			PAWNS[pawn] = PIECES[pawn];
+		}
+		// the key of a set of rights is the exclusive or of the keys of each right, and no rights is 0
+		long[] rights = new long[4];
+		for (int i = 0; i < 4; i++) {
+			seed = nextRandom(seed);
+			rights[i] = seed;
+		}
+		for (int mask = 0; mask < 16; mask++) {
+			for (int i = 0; i < 4; i++) {
+				if ((mask & (1 << i)) != 0) {
+					CASTLING[mask] ^= rights[i];
+				}
+			}
+		}
+		for (int file = 0; file < 8; file++) {
+			seed = nextRandom(seed);
+			EN_PASSANT[file] = seed;
+		}
+		SIDE = nextRandom(seed);
+	}
+
+	/**
+	 * This class only has static methods
+	 */
+	private Zobrist() {
+	}
+
+	/**
+	 * Method for getting the random number of a piece on a square
+	 * @param piece the piece
+	 * @param square the square
+	 * @return the random number
+	 */
+	public static long piece(int piece, int square) {
+		return PIECES[piece][square];
+	}
+
+	/**
+	 * Method for getting the random number of a piece on a square in the pawn key, which only has the pawns
+	 * @param piece the piece
+	 * @param square the square
+	 * @return the random number of a pawn, or 0 for any other piece
+	 */
+	public static long pawn(int piece, int square) {
+		return PAWNS[piece][square];
+	}
+
+	/**
+	 * Method for getting the random number of a combination of castling rights
+	 * @param rights the castling rights
+	 * @return the random number, which is 0 for no rights
+	 */
+	public static long castling(int rights) {
+		return CASTLING[rights];
+	}
+
+	/**
+	 * Method for getting the random number of an en passant square
+	 * @param square the en passant square, or Position.EMPTY
+	 * @return the random number of the file of the square, or 0 if there is no en passant square
+	 */
+	public static long enPassant(int square) {
+		return square == Position.EMPTY ? 0L : EN_PASSANT[square & 7];
+	}
+
+	/**
+	 * Method for getting the random number toggled when black is to move
+	 * @return the random number
+	 */
+	public static long side() {
+		return SIDE;
+	}
+
+	/**
+	 * Advances the xorshift random number generator
+	 * @param seed the current state
+	 * @return the next state, which is also the next random number
+	 */
+	private static long nextRandom(long seed) {
+		seed ^= seed << 13;
+		seed ^= seed >>> 7;
+		seed ^= seed << 17;
+		return seed;
+	}
+}